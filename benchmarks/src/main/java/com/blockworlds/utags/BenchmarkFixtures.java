@@ -0,0 +1,43 @@
+package com.blockworlds.utags;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deterministic tag catalogs shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private static final String COLOR_CODES = "0123456789abcdef";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds {@code count} tags: a third suffixes, half public, with bracketed colour-coded displays.
+     * The ItemStack is left null; nothing benchmarked here touches it.
+     */
+    static List<Tag> tags(int count) {
+        List<Tag> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            char color = COLOR_CODES.charAt(i % COLOR_CODES.length());
+            String display = "&" + color + "[&" + COLOR_CODES.charAt((i * 7) % COLOR_CODES.length()) + "Tag" + i + "&" + color + "]";
+            TagType type = i % 3 == 0 ? TagType.SUFFIX : TagType.PREFIX;
+            tags.add(new Tag("tag" + i, display, type, i % 2 == 0, true, null, i));
+        }
+        return tags;
+    }
+
+    /**
+     * @return The names of every {@code stride}-th tag, as a permission snapshot would hold them.
+     */
+    static Set<String> permittedNames(List<Tag> tags, int stride) {
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < tags.size(); i += stride) {
+            names.add(tags.get(i).getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,240 @@
+package com.blockworlds.utags;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.cacheddata.CachedDataManager;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.model.data.DataMutateResult;
+import net.luckperms.api.model.data.NodeMap;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.NodeBuilderRegistry;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.types.PrefixNode;
+import net.luckperms.api.util.Tristate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Just enough of the LuckPerms API for uTags to enable and for players to join under MockBukkit:
+ * users holding at most one prefix node, prefix node builders, an event bus that accepts subscriptions,
+ * and saves that complete immediately. Any other call throws, so a join that starts using more of
+ * LuckPerms fails here instead of being measured against a stub that silently does nothing.
+ */
+final class LuckPermsStub {
+
+    private final Map<UUID, StubUser> users = new ConcurrentHashMap<>();
+    private final LuckPerms api;
+
+    LuckPermsStub() {
+        UserManager userManager = proxy(UserManager.class, (self, method, args) -> {
+            switch (method) {
+                case "getUser":
+                    StubUser user = users.get((UUID) args[0]);
+                    return user != null ? user.api : null;
+                case "loadUser":
+                    StubUser loaded = users.get((UUID) args[0]);
+                    return CompletableFuture.completedFuture(loaded != null ? loaded.api : null);
+                case "saveUser":
+                    return CompletableFuture.completedFuture(null); // Node changes are already applied in memory
+                default:
+                    return unsupported(UserManager.class, method);
+            }
+        });
+        EventBus eventBus = proxy(EventBus.class, (self, method, args) -> {
+            if (method.equals("subscribe")) {
+                return proxy(EventSubscription.class, (subscription, subscriptionMethod, subscriptionArgs) -> {
+                    if (subscriptionMethod.equals("close")) {
+                        return null;
+                    }
+                    return subscriptionMethod.equals("isActive") ? Boolean.TRUE : unsupported(EventSubscription.class, subscriptionMethod);
+                });
+            }
+            return unsupported(EventBus.class, method);
+        });
+        NodeBuilderRegistry nodeBuilders = proxy(NodeBuilderRegistry.class, (self, method, args) ->
+                method.equals("forPrefix") ? prefixBuilder() : unsupported(NodeBuilderRegistry.class, method));
+
+        this.api = proxy(LuckPerms.class, (self, method, args) -> {
+            switch (method) {
+                case "getUserManager":
+                    return userManager;
+                case "getEventBus":
+                    return eventBus;
+                case "getNodeBuilderRegistry":
+                    return nodeBuilders;
+                default:
+                    return unsupported(LuckPerms.class, method);
+            }
+        });
+    }
+
+    /**
+     * Makes this stub what {@link LuckPermsProvider#get()} returns. The provider's register method is
+     * internal to the API, so it is called reflectively.
+     */
+    void register() throws ReflectiveOperationException {
+        Method register = LuckPermsProvider.class.getDeclaredMethod("register", LuckPerms.class);
+        register.setAccessible(true);
+        register.invoke(null, api);
+    }
+
+    void unregister() throws ReflectiveOperationException {
+        Method unregister = LuckPermsProvider.class.getDeclaredMethod("unregister");
+        unregister.setAccessible(true);
+        unregister.invoke(null);
+    }
+
+    void addUser(UUID uuid, String username) {
+        users.put(uuid, new StubUser(uuid, username));
+    }
+
+    /**
+     * @return The user's current prefix, or null if they have none.
+     */
+    String getPrefix(UUID uuid) {
+        StubUser user = users.get(uuid);
+        PrefixNode prefix = user != null ? user.prefix : null;
+        return prefix != null ? prefix.getMetaValue() : null;
+    }
+
+    private final class StubUser {
+        private final User api;
+        private volatile PrefixNode prefix;
+
+        private StubUser(UUID uuid, String username) {
+            CachedMetaData metaData = proxy(CachedMetaData.class, (self, method, args) -> {
+                if (method.equals("getPrefix")) {
+                    PrefixNode current = prefix;
+                    return current != null ? current.getMetaValue() : null;
+                }
+                return unsupported(CachedMetaData.class, method);
+            });
+            CachedDataManager cachedData = proxy(CachedDataManager.class, (self, method, args) ->
+                    method.equals("getMetaData") ? metaData : unsupported(CachedDataManager.class, method));
+            NodeMap data = proxy(NodeMap.class, this::nodeMap);
+
+            this.api = proxy(User.class, (self, method, args) -> {
+                switch (method) {
+                    case "getUniqueId":
+                        return uuid;
+                    case "getUsername":
+                        return username;
+                    case "getCachedData":
+                        return cachedData;
+                    case "data":
+                        return data;
+                    case "getNodes":
+                        PrefixNode current = prefix;
+                        if (args.length == 1 && current != null && ((NodeType<?>) args[0]).predicate().test(current)) {
+                            return Collections.singletonList(current);
+                        }
+                        return Collections.emptyList();
+                    default:
+                        return unsupported(User.class, method);
+                }
+            });
+        }
+
+        // A node counts as present when it is a prefix with the same value and priority
+        private Object nodeMap(Object self, String method, Object[] args) {
+            switch (method) {
+                case "contains":
+                    return Tristate.of(sameAsPrefix(args[0]));
+                case "add":
+                    if (!(args[0] instanceof PrefixNode)) {
+                        return unsupported(NodeMap.class, "add(" + args[0] + ")");
+                    }
+                    prefix = (PrefixNode) args[0];
+                    return DataMutateResult.SUCCESS;
+                case "remove":
+                    if (!sameAsPrefix(args[0])) {
+                        return DataMutateResult.FAIL_LACKS;
+                    }
+                    prefix = null;
+                    return DataMutateResult.SUCCESS;
+                case "clear":
+                    PrefixNode current = prefix;
+                    @SuppressWarnings("unchecked")
+                    Predicate<Object> test = args.length == 1 ? (Predicate<Object>) args[0] : node -> true;
+                    if (current != null && test.test(current)) {
+                        prefix = null;
+                    }
+                    return null;
+                default:
+                    return unsupported(NodeMap.class, method);
+            }
+        }
+
+        private boolean sameAsPrefix(Object node) {
+            PrefixNode current = prefix;
+            return current != null && node instanceof PrefixNode
+                    && ((PrefixNode) node).getPriority() == current.getPriority()
+                    && ((PrefixNode) node).getMetaValue().equals(current.getMetaValue());
+        }
+    }
+
+    private static PrefixNode.Builder prefixBuilder() {
+        String[] value = new String[1];
+        int[] priority = new int[1];
+        return proxy(PrefixNode.Builder.class, (self, method, args) -> {
+            switch (method) {
+                case "prefix":
+                    value[0] = (String) args[0];
+                    return self;
+                case "priority":
+                    priority[0] = (Integer) args[0];
+                    return self;
+                case "build":
+                    return prefixNode(value[0], priority[0]);
+                default:
+                    return unsupported(PrefixNode.Builder.class, method);
+            }
+        });
+    }
+
+    private static PrefixNode prefixNode(String value, int priority) {
+        return proxy(PrefixNode.class, (self, method, args) -> {
+            switch (method) {
+                case "getMetaValue":
+                    return value;
+                case "getPriority":
+                    return priority;
+                default:
+                    return unsupported(PrefixNode.class, method);
+            }
+        });
+    }
+
+    private interface Handler {
+        Object invoke(Object self, String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(LuckPermsStub.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return type.getSimpleName() + " (stub)";
+                default:
+                    return handler.invoke(self, method.getName(), args != null ? args : new Object[0]);
+            }
+        }));
+    }
+
+    private static Object unsupported(Class<?> type, String method) {
+        throw new UnsupportedOperationException("LuckPermsStub does not implement " + type.getSimpleName() + "." + method);
+    }
+}
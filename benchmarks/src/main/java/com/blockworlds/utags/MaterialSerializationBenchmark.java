@@ -0,0 +1,72 @@
+package com.blockworlds.utags;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the tags.material column encoding, which is decoded for every row on each catalog reload:
+ * the legacy Bukkit object stream + Base64 blob against {@link MaterialCodec}'s compact format.
+ * Uses MockBukkit so ItemStacks can be serialized outside a server.
+ *
+ * Only plain items (no meta) are measured. The compact format stores items with meta through
+ * {@code ItemStack.serializeAsBytes}/{@code deserializeBytes}, which go through the server's
+ * {@code UnsafeValues}. MockBukkit does not implement those, so that path can only be timed on a real server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaterialSerializationBenchmark {
+
+    @Param({"legacy", "compact"})
+    public String format;
+
+    private ItemStack plainItem;
+    private String plainEncoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MockBukkit.mock();
+        plainItem = new ItemStack(Material.NAME_TAG);
+        plainEncoded = encode(plainItem);
+    }
+
+    private String encode(ItemStack item) throws IOException {
+        return format.equals("legacy") ? MaterialCodec.encodeLegacy(item) : MaterialCodec.encode(item);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public String serializePlain() throws IOException {
+        return encode(plainItem);
+    }
+
+    // MaterialCodec.decode reads both formats, as the catalog load does
+    @Benchmark
+    public ItemStack deserializePlain() throws IOException {
+        return MaterialCodec.decode(plainEncoded);
+    }
+}
@@ -0,0 +1,186 @@
+package com.blockworlds.utags;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole player join: {@link LoginListener}'s pre-login profile load (preference queries against H2
+ * plus the LuckPerms prefix lookup), then the join itself, which hydrates the colour preferences and
+ * refreshes the prefix. The plugin is enabled under MockBukkit with the benchmark config.yml and a
+ * {@link LuckPermsStub}; each player has {@code colorPreferences} stored colour rows and already wears
+ * a tag that has one of them.
+ *
+ * Joining must not write anything back. Teardown prints the colour writes queued on the
+ * {@link TagColorWriteBuffer} and the LuckPerms saves made by {@link TagNodeManager} per join,
+ * and fails the run if either is not zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerJoinBenchmark {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 10000L;
+
+    @Param({"100"})
+    public int players;
+
+    @Param({"0", "10", "100"})
+    public int colorPreferences;
+
+    private ServerMock server;
+    private LuckPermsStub luckPerms;
+    private uTags plugin;
+    // Driven directly rather than through events, so MockBukkit's event threading is not part of the timing
+    private LoginListener listener;
+    private PlayerMock[] playerMocks;
+    private InetAddress address;
+    private int cursor;
+
+    private long joins;
+    private long enqueuedBefore;
+    private long savesBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = MockBukkit.mock();
+        luckPerms = new LuckPermsStub();
+        luckPerms.register();
+        MockBukkit.createMockPlugin("LuckPerms"); // Satisfies the plugin.yml dependency and setupLuckPerms
+        plugin = MockBukkit.load(uTags.class);
+        if (!plugin.isEnabled()) {
+            throw new IllegalStateException("uTags did not enable; see the log above");
+        }
+        awaitStartup();
+
+        Tag worn = new Tag("tag0", ChatColor.translateAlternateColorCodes('&', "&6[&eTag0&6]"), TagType.PREFIX,
+                true, true, new ItemStack(Material.NAME_TAG), 0);
+        if (!plugin.addTagToDatabase(worn).join()) {
+            throw new IllegalStateException("Could not save the worn tag");
+        }
+
+        address = InetAddress.getLoopbackAddress();
+        listener = new LoginListener(plugin);
+        playerMocks = new PlayerMock[players];
+        for (int i = 0; i < players; i++) {
+            UUID uuid = new UUID(0x5554616773L, i); // Deterministic
+            String name = "Player" + i;
+            luckPerms.addUser(uuid, name);
+            playerMocks[i] = new PlayerMock(server, name, uuid);
+        }
+        seedPreferences();
+
+        // Join everyone once, put the tag on, and start counting from there
+        for (PlayerMock player : playerMocks) {
+            server.addPlayer(player);
+            join(player);
+            plugin.getTagNodeManager().applyTagPrefix(player.getUniqueId(), worn).join();
+            if (luckPerms.getPrefix(player.getUniqueId()) == null) {
+                throw new IllegalStateException("No prefix applied for " + player.getName());
+            }
+        }
+        enqueuedBefore = plugin.getTagColorWriteBuffer().getEnqueuedCount();
+        savesBefore = plugin.getTagNodeManager().getSaveCount();
+    }
+
+    // The catalog and request cache warm on the I/O executor and finish on a scheduler tick
+    private void awaitStartup() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (!plugin.getStartupTimingsSummary().contains("warmup")) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("uTags startup did not finish: " + plugin.getStartupTimingsSummary());
+            }
+            server.getScheduler().performOneTick();
+            Thread.sleep(10L);
+        }
+    }
+
+    private void seedPreferences() throws SQLException {
+        try (Connection connection = plugin.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement names = connection.prepareStatement(
+                    "INSERT INTO player_preferences (player_uuid, name_color_code) VALUES (?, ?)");
+                 PreparedStatement colors = connection.prepareStatement(
+                    "INSERT INTO player_tag_color_preferences (player_uuid, tag_name, bracket_color_code, content_color_code) VALUES (?, ?, ?, ?)")) {
+                for (PlayerMock player : playerMocks) {
+                    names.setString(1, player.getUniqueId().toString());
+                    names.setString(2, "&a");
+                    names.addBatch();
+                    // tag0, the worn tag, gets the first row: the case that used to rewrite the prefix on join
+                    for (int t = 0; t < colorPreferences; t++) {
+                        colors.setString(1, player.getUniqueId().toString());
+                        colors.setString(2, "tag" + t);
+                        colors.setString(3, "&6");
+                        colors.setString(4, "&b");
+                        colors.addBatch();
+                    }
+                }
+                names.executeBatch();
+                colors.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private void join(PlayerMock player) {
+        UUID uuid = player.getUniqueId();
+        listener.onAsyncPreLogin(new AsyncPlayerPreLoginEvent(player.getName(), address, uuid));
+        listener.onPlayerJoin(new PlayerJoinEvent(player, (String) null));
+        // The prefix refresh runs on the I/O executor; an edit queued behind it completes once it is done
+        plugin.getTagNodeManager().modifyUser(uuid, user -> false).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ReflectiveOperationException {
+        long enqueued = plugin.getTagColorWriteBuffer().getEnqueuedCount() - enqueuedBefore;
+        long saves = plugin.getTagNodeManager().getSaveCount() - savesBefore;
+        double perJoin = Math.max(1L, joins);
+        System.out.printf("%n%d joins with %d colour rows each: %.3f colour writes queued and %.3f LuckPerms saves per join%n",
+                joins, colorPreferences, enqueued / perJoin, saves / perJoin);
+
+        MockBukkit.unmock();
+        luckPerms.unregister();
+        if (enqueued != 0 || saves != 0) {
+            throw new IllegalStateException("Joining wrote back " + enqueued + " colour preference(s) and saved "
+                    + saves + " LuckPerms user(s) over " + joins + " joins; expected none");
+        }
+    }
+
+    @Benchmark
+    public void rejoin() {
+        cursor = (cursor + 1) % playerMocks.length;
+        PlayerMock player = playerMocks[cursor];
+        listener.onPlayerQuit(new PlayerQuitEvent(player, (String) null));
+        join(player);
+        joins++;
+    }
+}
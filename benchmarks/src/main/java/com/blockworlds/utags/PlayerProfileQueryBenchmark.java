@@ -0,0 +1,100 @@
+package com.blockworlds.utags;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The database half of the login path ({@code PlayerProfileLoader}): borrow a pooled connection and run
+ * the preference queries through {@link PreferenceStorage#loadPreferences}. The pool is built by
+ * {@link DataSourceFactory} from a config section using the {@code driverClassName}/{@code jdbcUrl}
+ * override, pointed at an in-memory H2 database in MySQL mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerProfileQueryBenchmark {
+
+    @Param({"1000"})
+    public int players;
+
+    @Param({"0", "10"})
+    public int colorPreferencesPerPlayer;
+
+    private MySqlStorage storage;
+    private UUID[] playerUuids;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        MemoryConfiguration database = new MemoryConfiguration();
+        database.set("driverClassName", "org.h2.Driver");
+        database.set("jdbcUrl", "jdbc:h2:mem:utags_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        database.set("username", "sa");
+        database.set("password", "");
+        storage = new MySqlStorage(DataSourceFactory.create(database, null, Logger.getLogger("uTags-bench")), Logger.getLogger("uTags-bench"));
+        storage.createTables();
+
+        playerUuids = new UUID[players];
+        try (Connection connection = storage.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement names = connection.prepareStatement(
+                    "INSERT INTO player_preferences (player_uuid, name_color_code) VALUES (?, ?)");
+                 PreparedStatement colors = connection.prepareStatement(
+                    "INSERT INTO player_tag_color_preferences (player_uuid, tag_name, bracket_color_code, content_color_code) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < players; i++) {
+                    UUID uuid = new UUID(0x5554616773L, i); // Deterministic
+                    playerUuids[i] = uuid;
+                    names.setString(1, uuid.toString());
+                    names.setString(2, "&" + Integer.toHexString(i % 16));
+                    names.addBatch();
+                    for (int t = 0; t < colorPreferencesPerPlayer; t++) {
+                        colors.setString(1, uuid.toString());
+                        colors.setString(2, "tag" + t);
+                        colors.setString(3, "&6");
+                        colors.setString(4, "&b");
+                        colors.addBatch();
+                    }
+                }
+                names.executeBatch();
+                colors.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public String loadPreferences() throws SQLException {
+        cursor = (cursor + 1) % playerUuids.length;
+        Map<String, PlayerTagColorPreference> tagColors = new HashMap<>();
+        return storage.loadPreferences(playerUuids[cursor], tagColors);
+    }
+}
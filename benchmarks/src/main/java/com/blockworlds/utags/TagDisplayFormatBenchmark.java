@@ -0,0 +1,153 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * What {@code uTags#formatTagDisplayWithColor} costs: the original string-slicing implementation
+ * ({@link #legacyFormat}, the baseline), a full parse and recolour, a recolour of an already parsed
+ * display, and a hit in {@link TagDisplayFormatCache} (the path the plugin takes).
+ * Setup fails if the new code's output differs from the baseline for any fixture display.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagDisplayFormatBenchmark {
+
+    @Param({"64"})
+    public int distinctDisplays;
+
+    private String[] displays;
+    private TagDisplayFormat[] parsed;
+    private TagDisplayFormatCache cache;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        List<Tag> tags = BenchmarkFixtures.tags(distinctDisplays);
+        displays = new String[tags.size()];
+        parsed = new TagDisplayFormat[tags.size()];
+        cache = new TagDisplayFormatCache(Logger.getLogger("uTags-bench"));
+        for (int i = 0; i < tags.size(); i++) {
+            displays[i] = tags.get(i).getDisplay();
+            parsed[i] = TagDisplayFormat.parse(displays[i]);
+            cache.format(displays[i], ChatColor.GOLD, ChatColor.AQUA); // Warm the result cache
+        }
+        verifyMatchesLegacy(tags);
+    }
+
+    // The new code must produce exactly what the old method did, or the timings compare different work
+    private static void verifyMatchesLegacy(List<Tag> tags) {
+        List<String> samples = new ArrayList<>();
+        for (Tag tag : tags) {
+            samples.add(tag.getDisplay());
+            samples.add(ChatColor.translateAlternateColorCodes('&', tag.getDisplay())); // As stored by /tag admin create
+        }
+        samples.add(ChatColor.translateAlternateColorCodes('&', "&6&l[&eVIP&6] &7"));
+        samples.add(ChatColor.translateAlternateColorCodes('&', "&a[Plain]"));
+        samples.add("NoBrackets");
+        samples.add("]Reversed[");
+
+        ChatColor[][] colorPairs = {
+                {ChatColor.GOLD, ChatColor.AQUA}, {ChatColor.GOLD, null}, {null, ChatColor.AQUA}, {null, null}};
+        for (String display : samples) {
+            for (ChatColor[] colors : colorPairs) {
+                String expected = legacyFormat(display, colors[0], colors[1]);
+                String actual = TagDisplayFormat.parse(display).format(colors[0], colors[1]);
+                if (!expected.equals(actual)) {
+                    throw new IllegalStateException("TagDisplayFormat differs from the original for '" + display
+                            + "' with " + colors[0] + "/" + colors[1] + ": expected '" + expected + "', got '" + actual + "'");
+                }
+            }
+        }
+    }
+
+    /**
+     * The formatTagDisplayWithColor body as it was before TagDisplayFormat (minus the warning log):
+     * indexOf/substring on every call and repeated getLastColors scans.
+     */
+    static String legacyFormat(String originalDisplay, ChatColor bracketColor, ChatColor contentColor) {
+        int openBracketIndex = originalDisplay.indexOf('[');
+        int closeBracketIndex = originalDisplay.indexOf(']');
+        if (openBracketIndex == -1 || closeBracketIndex == -1 || openBracketIndex >= closeBracketIndex) {
+            return originalDisplay;
+        }
+
+        String prefix = originalDisplay.substring(0, openBracketIndex);
+        String content = originalDisplay.substring(openBracketIndex + 1, closeBracketIndex);
+        String suffix = originalDisplay.substring(closeBracketIndex + 1);
+
+        StringBuilder formatted = new StringBuilder();
+        formatted.append(prefix);
+        if (bracketColor != null) {
+            formatted.append(bracketColor).append('[');
+        } else {
+            formatted.append(ChatColor.getLastColors(prefix)).append('[');
+        }
+        if (contentColor != null) {
+            formatted.append(contentColor).append(content);
+        } else {
+            String originalInside = originalDisplay.substring(openBracketIndex + 1, closeBracketIndex);
+            String lastColorInside = ChatColor.getLastColors(originalInside);
+            if (!lastColorInside.isEmpty()) {
+                formatted.append(lastColorInside).append(content);
+            } else {
+                String colorBeforeContentStr = ChatColor.getLastColors(prefix);
+                if (bracketColor != null) {
+                    colorBeforeContentStr = bracketColor.toString();
+                }
+                formatted.append(colorBeforeContentStr).append(content);
+            }
+        }
+        if (bracketColor != null) {
+            formatted.append(bracketColor).append(']');
+        } else {
+            formatted.append(ChatColor.getLastColors(prefix)).append(']');
+        }
+        formatted.append(suffix);
+        return formatted.toString();
+    }
+
+    private int next() {
+        cursor = (cursor + 1) % displays.length;
+        return cursor;
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return legacyFormat(displays[next()], ChatColor.GOLD, ChatColor.AQUA);
+    }
+
+    @Benchmark
+    public String parseAndFormat() {
+        return TagDisplayFormat.parse(displays[next()]).format(ChatColor.GOLD, ChatColor.AQUA);
+    }
+
+    @Benchmark
+    public String formatParsed() {
+        return parsed[next()].format(ChatColor.GOLD, ChatColor.AQUA);
+    }
+
+    @Benchmark
+    public String formatCached() {
+        return cache.format(displays[next()], ChatColor.GOLD, ChatColor.AQUA);
+    }
+}
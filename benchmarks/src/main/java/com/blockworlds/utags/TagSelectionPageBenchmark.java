@@ -0,0 +1,60 @@
+package com.blockworlds.utags;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list work behind {@code TagMenuManager#openTagSelection}: the catalog's pre-split prefix view,
+ * then {@link TagMenuManager#selectionPage} (the permission / "show all" filter and the page slice).
+ * Item creation is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagSelectionPageBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean showAll;
+
+    private TagCatalog catalog;
+    private Set<String> permitted;
+    private int lastPageIndex;
+
+    @Setup
+    public void setUp() {
+        List<Tag> tags = BenchmarkFixtures.tags(catalogSize);
+        catalog = new TagCatalog(1L, tags);
+        permitted = BenchmarkFixtures.permittedNames(tags, 4);
+        int displayable = TagMenuManager.selectionPage(catalog.getTags(TagType.PREFIX), permitted, showAll, 0).totalDisplayable;
+        lastPageIndex = Math.max(0, (displayable - 1) / TagMenuManager.ITEMS_PER_PAGE);
+    }
+
+    @Benchmark
+    public List<Tag> firstPage() {
+        return TagMenuManager.selectionPage(catalog.getTags(TagType.PREFIX), permitted, showAll, 0).tags;
+    }
+
+    @Benchmark
+    public List<Tag> lastPage() {
+        return TagMenuManager.selectionPage(catalog.getTags(TagType.PREFIX), permitted, showAll, lastPageIndex).tags;
+    }
+}
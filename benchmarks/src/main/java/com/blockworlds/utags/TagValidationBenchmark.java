@@ -0,0 +1,40 @@
+package com.blockworlds.utags;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TagCommand#isValidTag}, run on every {@code /tag request} and by the request preview listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagValidationBenchmark {
+
+    @Param({
+            "&6[VIP]",                     // Valid, short
+            "&d[&bSuper&dLongTagText]",    // Valid, colour codes inside
+            "&6[&lBold]",                  // Rejected: formatting code
+            "[NoColour]",                  // Rejected: no leading colour
+            "&a[ThisIsFarTooLongForATag]"  // Rejected: too long
+    })
+    public String tag;
+
+    @Benchmark
+    public String validate() {
+        return TagCommand.isValidTag(tag);
+    }
+}
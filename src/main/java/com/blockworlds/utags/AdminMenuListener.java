@@ -31,69 +31,41 @@ public class AdminMenuListener implements Listener {
         this.adminMenuManager = adminMenuManager;
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
-            return;
-        }
-
-        Player player = (Player) event.getWhoClicked();
-        ItemStack clickedItem = event.getCurrentItem();
-        String inventoryTitle = event.getView().getTitle();
-
-        // Check if it's one of the admin menus or the creation wizard
-        if (!isAdminMenu(inventoryTitle) && !inventoryTitle.startsWith(ChatColor.GREEN + "Create Tag:")) {
-             return;
-        }
-
-        // Basic checks for valid clicks
-        if (event.getRawSlot() < 0 || event.getRawSlot() >= event.getInventory().getSize()) {
-            return; // Prevent clicking outside inventory bounds
-        }
-
-        event.setCancelled(true); // Cancel all clicks in admin menus (and wizard for now)
-
-        if (clickedItem == null || clickedItem.getType() == Material.AIR || !clickedItem.hasItemMeta()) {
-            return; // Ignore clicks on empty slots or items without meta
-        }
-
-        // Handle interaction based on the specific admin menu title
-        handleAdminMenuInteraction(event, inventoryTitle);
-    }
-
-    private boolean isAdminMenu(String inventoryTitle) {
-        // Add more titles as new admin menus are created
-        return inventoryTitle.equals(ChatColor.DARK_RED + "uTags Admin Menu")
-                || inventoryTitle.startsWith(ChatColor.AQUA + "Tag List")
-                || inventoryTitle.startsWith(ChatColor.DARK_AQUA + "Edit Tag:")
-                || inventoryTitle.startsWith(ChatColor.DARK_RED + "Confirm Purge:")
-                || inventoryTitle.startsWith(ChatColor.DARK_RED + "Confirm Delete:")
-                || inventoryTitle.equals(ChatColor.DARK_RED + "Select Purge Type")
-                || inventoryTitle.startsWith(ChatColor.GREEN + "Create Tag:"); // Add creation wizard title
-    }
-
-    private void handleAdminMenuInteraction(InventoryClickEvent event, String inventoryTitle) {
+    /**
+     * Handles a click in any admin menu or the creation wizard. Called by {@link MenuClickListener},
+     * which has already cancelled the event and filtered out empty slots.
+     */
+    void handleClick(InventoryClickEvent event, UTagsMenuHolder holder) {
         Player player = (Player) event.getWhoClicked();
         ItemStack clickedItem = event.getCurrentItem();
         ItemMeta meta = clickedItem.getItemMeta();
         String itemName = ChatColor.stripColor(meta.getDisplayName());
 
-        if (inventoryTitle.equals(ChatColor.DARK_RED + "uTags Admin Menu")) {
-            handleAdminMainMenuClick(player, itemName);
-        } else if (inventoryTitle.startsWith(ChatColor.DARK_RED + "Confirm Purge:")) {
-             handlePurgeConfirmClick(event, player, itemName, inventoryTitle);
-        } else if (inventoryTitle.startsWith(ChatColor.AQUA + "Tag List")) {
-             handleTagListClick(event, player, itemName, inventoryTitle);
-        } else if (inventoryTitle.startsWith(ChatColor.DARK_AQUA + "Edit Tag:")) {
-             handleTagEditorClick(event, player, itemName, inventoryTitle);
-        } else if (inventoryTitle.startsWith(ChatColor.DARK_RED + "Confirm Delete:")) {
-             handleDeleteConfirmClick(event, player, itemName, inventoryTitle);
-        } else if (inventoryTitle.equals(ChatColor.DARK_RED + "Select Purge Type")) {
-             handlePurgeTypeSelectionClick(event, player, itemName);
-        } else if (inventoryTitle.startsWith(ChatColor.GREEN + "Create Tag:")) {
-             handleCreationWizardClick(event, player, itemName); // Route to creation wizard handler
+        switch (holder.getKind()) {
+            case ADMIN_MAIN:
+                handleAdminMainMenuClick(player, itemName);
+                break;
+            case ADMIN_PURGE_CONFIRM:
+                handlePurgeConfirmClick(player, itemName, holder.getContext());
+                break;
+            case ADMIN_TAG_LIST:
+                handleTagListClick(event, player, itemName, holder);
+                break;
+            case ADMIN_TAG_EDITOR:
+                handleTagEditorClick(event, player, itemName, holder.getContext());
+                break;
+            case ADMIN_DELETE_CONFIRM:
+                handleDeleteConfirmClick(player, itemName, holder.getContext());
+                break;
+            case ADMIN_PURGE_TYPE:
+                handlePurgeTypeSelectionClick(event, player, itemName);
+                break;
+            case ADMIN_CREATE_WIZARD:
+                handleCreationWizardClick(event, player, itemName);
+                break;
+            default:
+                break;
         }
-        // TODO: Add else if blocks for other admin menus
     }
 
     private void handleAdminMainMenuClick(Player player, String itemName) {
@@ -122,16 +94,9 @@ public class AdminMenuListener implements Listener {
 
 
     // Handles clicks in the Purge Confirmation menu
-    private void handlePurgeConfirmClick(InventoryClickEvent event, Player player, String itemName, String inventoryTitle) {
+    private void handlePurgeConfirmClick(Player player, String itemName, String purgeType) {
         if (itemName.startsWith("CONFIRM PURGE")) {
-            String purgeType = null;
-            if (itemName.contains("TAGS")) {
-                purgeType = "tags";
-            } else if (itemName.contains("REQUESTS")) {
-                purgeType = "requests";
-            }
-
-            if (purgeType != null) {
+            if ("tags".equals(purgeType) || "requests".equals(purgeType)) {
                 player.closeInventory();
                 String command = "tag admin purge " + purgeType + " confirm";
                 player.sendMessage(ChatColor.YELLOW + "Executing purge command: /" + command);
@@ -147,17 +112,8 @@ public class AdminMenuListener implements Listener {
 
 
     // Handles clicks in the Tag List menu
-    private void handleTagListClick(InventoryClickEvent event, Player player, String itemName, String inventoryTitle) {
-        int currentPage = 0;
-        try {
-            int pageStartIndex = inventoryTitle.indexOf("(Page ") + 6;
-            int pageEndIndex = inventoryTitle.indexOf('/');
-            if (pageStartIndex > 5 && pageEndIndex > pageStartIndex) { // Basic validation
-                currentPage = Integer.parseInt(inventoryTitle.substring(pageStartIndex, pageEndIndex).trim()) - 1;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Could not parse page number from Tag List title: " + inventoryTitle);
-        }
+    private void handleTagListClick(InventoryClickEvent event, Player player, String itemName, UTagsMenuHolder holder) {
+        int currentPage = holder.getPage();
 
         switch (itemName) {
             case "Previous Page":
@@ -170,18 +126,9 @@ public class AdminMenuListener implements Listener {
                 adminMenuManager.openAdminMainMenu(player);
                 break;
             default:
-                // Assume a tag item was clicked
-                String tagName = null;
-                ItemMeta meta = event.getCurrentItem().getItemMeta();
-                if (meta != null && meta.hasLore()) {
-                    for (String loreLine : meta.getLore()) {
-                        String strippedLore = ChatColor.stripColor(loreLine);
-                        if (strippedLore.startsWith("Name: ")) {
-                            tagName = strippedLore.substring("Name: ".length());
-                            break;
-                        }
-                    }
-                }
+                // Tag entries were bound to their tag name when the page was built
+                MenuAction action = holder.getSlotAction(event.getRawSlot());
+                String tagName = (action != null && action.getType() == MenuAction.Type.EDIT_TAG) ? action.getValue() : null;
 
                 if (tagName != null) {
                     Tag tagToEdit = plugin.getTagByName(tagName);
@@ -192,26 +139,46 @@ public class AdminMenuListener implements Listener {
                         player.closeInventory();
                     }
                 } else {
-                    // Clicked on frame or failed to get tag name from lore
+                    // Clicked on frame or another unbound slot
                 }
                 break;
         }
     } // End of handleTagListClick
 
 
-    // Handles clicks in the Tag Editor menu
-    private void handleTagEditorClick(InventoryClickEvent event, Player player, String itemName, String inventoryTitle) {
-        String tagName = null;
-        String titlePrefix = ChatColor.DARK_AQUA + "Edit Tag: " + ChatColor.AQUA;
-        if (inventoryTitle.startsWith(titlePrefix)) {
-            tagName = inventoryTitle.substring(titlePrefix.length());
-            if (tagName.endsWith("...")) {
-                 player.sendMessage(ChatColor.RED + "Error: Cannot reliably edit tag with truncated name in title.");
-                 player.closeInventory();
-                 return;
+    /**
+     * Applies one attribute change on the I/O executor, then reports back and reopens the editor
+     * with the reloaded tag on the main thread.
+     *
+     * @param returnOnFailure An item taken from the admin for this edit, given back if it fails; or null.
+     */
+    private void editAndReopen(Player player, String tagName, String attribute, String value,
+                               String successMessage, String failureMessage, ItemStack returnOnFailure) {
+        plugin.editTagAttribute(tagName, attribute, value).thenAccept(edited -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (!edited) {
+                player.sendMessage(failureMessage);
+                if (returnOnFailure != null) {
+                    player.getInventory().addItem(returnOnFailure).values()
+                            .forEach(leftover -> player.getWorld().dropItem(player.getLocation(), leftover));
+                }
+                return;
             }
-        }
+            player.sendMessage(successMessage);
+            // Only reopen if the admin is still looking at this tag's editor
+            if (!(player.getOpenInventory().getTopInventory().getHolder() instanceof UTagsMenuHolder)) {
+                return;
+            }
+            UTagsMenuHolder open = (UTagsMenuHolder) player.getOpenInventory().getTopInventory().getHolder();
+            if (open.getKind() != UTagsMenuHolder.Kind.ADMIN_TAG_EDITOR || !tagName.equals(open.getContext())) {
+                return;
+            }
+            Tag updatedTag = plugin.getTagByName(tagName);
+            if (updatedTag != null) adminMenuManager.openTagEditorMenu(player, updatedTag); else player.closeInventory();
+        }));
+    }
 
+    // Handles clicks in the Tag Editor menu
+    private void handleTagEditorClick(InventoryClickEvent event, Player player, String itemName, String tagName) {
         if (tagName == null) {
              player.sendMessage(ChatColor.RED + "Error: Could not determine which tag is being edited.");
              player.closeInventory();
@@ -255,13 +222,8 @@ public class AdminMenuListener implements Listener {
                     case SUFFIX: nextType = TagType.BOTH; break;
                     case BOTH: default: nextType = TagType.PREFIX; break;
                 }
-                if (plugin.editTagAttribute(tagName, "type", nextType.name())) {
-                     player.sendMessage(ChatColor.GREEN + "Tag type set to " + nextType.name());
-                     Tag updatedTag = plugin.getTagByName(tagName);
-                     if (updatedTag != null) adminMenuManager.openTagEditorMenu(player, updatedTag); else player.closeInventory();
-                } else {
-                     player.sendMessage(ChatColor.RED + "Failed to update tag type.");
-                }
+                editAndReopen(player, tagName, "type", nextType.name(),
+                        ChatColor.GREEN + "Tag type set to " + nextType.name(), ChatColor.RED + "Failed to update tag type.", null);
                 break;
 
             case "Weight (Sort Order)":
@@ -273,38 +235,25 @@ public class AdminMenuListener implements Listener {
 
             case "Publicly Visible":
                 boolean nextPublic = !currentTag.isPublic();
-                if (plugin.editTagAttribute(tagName, "public", String.valueOf(nextPublic))) {
-                     player.sendMessage(ChatColor.GREEN + "Tag visibility set to " + (nextPublic ? "Public" : "Private"));
-                     Tag updatedTag = plugin.getTagByName(tagName);
-                     if (updatedTag != null) adminMenuManager.openTagEditorMenu(player, updatedTag); else player.closeInventory();
-                } else {
-                     player.sendMessage(ChatColor.RED + "Failed to update tag visibility.");
-                }
+                editAndReopen(player, tagName, "public", String.valueOf(nextPublic),
+                        ChatColor.GREEN + "Tag visibility set to " + (nextPublic ? "Public" : "Private"), ChatColor.RED + "Failed to update tag visibility.", null);
                 break;
 
             case "Color Flag (Unused?)":
                 boolean nextColor = !currentTag.isColor();
-                if (plugin.editTagAttribute(tagName, "color", String.valueOf(nextColor))) {
-                     player.sendMessage(ChatColor.GREEN + "Tag color flag set to " + nextColor);
-                     Tag updatedTag = plugin.getTagByName(tagName);
-                     if (updatedTag != null) adminMenuManager.openTagEditorMenu(player, updatedTag); else player.closeInventory();
-                } else {
-                     player.sendMessage(ChatColor.RED + "Failed to update tag color flag.");
-                }
+                editAndReopen(player, tagName, "color", String.valueOf(nextColor),
+                        ChatColor.GREEN + "Tag color flag set to " + nextColor, ChatColor.RED + "Failed to update tag color flag.", null);
                 break;
 
             case "Current Icon":
                  ItemStack cursorItem = event.getCursor();
                  if (cursorItem != null && cursorItem.getType() != Material.AIR) {
                      String newMaterialData = plugin.serializeMaterial(cursorItem);
-                     if (plugin.editTagAttribute(tagName, "material", newMaterialData)) {
-                         player.sendMessage(ChatColor.GREEN + "Tag icon updated!");
-                         event.setCursor(null);
-                         Tag updatedTag = plugin.getTagByName(tagName);
-                         if (updatedTag != null) adminMenuManager.openTagEditorMenu(player, updatedTag); else player.closeInventory();
-                     } else {
-                          player.sendMessage(ChatColor.RED + "Failed to update tag icon.");
-                     }
+                     // Take the item now; it is handed back if the update fails
+                     ItemStack takenIcon = cursorItem.clone();
+                     event.setCursor(null);
+                     editAndReopen(player, tagName, "material", newMaterialData,
+                             ChatColor.GREEN + "Tag icon updated!", ChatColor.RED + "Failed to update tag icon.", takenIcon);
                  } else {
                      player.sendMessage(ChatColor.YELLOW + "Click this slot with the item you want to use as the new icon.");
                  }
@@ -318,30 +267,7 @@ public class AdminMenuListener implements Listener {
 
 
     // Handles clicks in the Delete Confirmation menu
-    private void handleDeleteConfirmClick(InventoryClickEvent event, Player player, String itemName, String inventoryTitle) {
-        String tagName = null;
-        String titlePrefix = ChatColor.DARK_RED + "Confirm Delete: ";
-        if (inventoryTitle.startsWith(titlePrefix)) {
-            tagName = inventoryTitle.substring(titlePrefix.length());
-             if (tagName.endsWith("...")) {
-                 ItemStack infoItem = event.getInventory().getItem(4);
-                 if (infoItem != null && infoItem.hasItemMeta() && infoItem.getItemMeta().hasLore()) {
-                     for(String line : infoItem.getItemMeta().getLore()) {
-                         String stripped = ChatColor.stripColor(line);
-                         if (stripped.startsWith("Name: ")) {
-                             tagName = stripped.substring("Name: ".length());
-                             break;
-                         }
-                     }
-                 }
-                 if (tagName.endsWith("...")) {
-                     player.sendMessage(ChatColor.RED + "Error: Cannot reliably delete tag with truncated name.");
-                     player.closeInventory();
-                     return;
-                 }
-            }
-        }
-
+    private void handleDeleteConfirmClick(Player player, String itemName, String tagName) {
          if (tagName == null) {
              player.sendMessage(ChatColor.RED + "Error: Could not determine which tag to delete.");
              player.closeInventory();
@@ -409,10 +335,17 @@ public class AdminMenuListener implements Listener {
                     }
                     // Create the tag
                     Tag newTag = new Tag(data.getName(), data.getDisplay(), data.getType(), data.isPublic(), data.isColor(), data.getMaterial(), data.getWeight());
-                    plugin.addTagToDatabase(newTag);
-                    player.sendMessage(ChatColor.GREEN + "Tag '" + newTag.getName() + "' created successfully!");
                     tagCreationProcesses.remove(player.getUniqueId()); // Clean up map
-                    adminMenuManager.openTagListMenu(player, 0); // Go to tag list
+                    player.closeInventory();
+                    // The list is opened once the new catalog (with this tag) has been published
+                    plugin.addTagToDatabase(newTag).thenAccept(created -> Bukkit.getScheduler().runTask(plugin, () -> {
+                        if (created) {
+                            player.sendMessage(ChatColor.GREEN + "Tag '" + newTag.getName() + "' created successfully!");
+                            adminMenuManager.openTagListMenu(player, 0); // Go to tag list
+                        } else {
+                            player.sendMessage(ChatColor.RED + "Failed to create tag '" + newTag.getName() + "'; see the console.");
+                        }
+                    }));
                 } else {
                     player.sendMessage(ChatColor.RED + "Please set Name, Display, and Weight before confirming.");
                     // Refresh the menu to ensure button state is correct
@@ -10,13 +10,13 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 
 public class AdminMenuManager {
 
     private final uTags plugin;
     private final TagMenuManager tagMenuManager; // For createInventoryFrame
+    private final AdminTagListPages tagListPages = new AdminTagListPages();
 
     public AdminMenuManager(uTags plugin, TagMenuManager tagMenuManager) {
         this.plugin = plugin;
@@ -25,7 +25,8 @@ public class AdminMenuManager {
 
     // Main Admin Menu
     public void openAdminMainMenu(Player player) {
-        Inventory adminMenu = Bukkit.createInventory(player, 27, ChatColor.DARK_RED + "uTags Admin Menu"); // 3 rows
+        Inventory adminMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_MAIN)
+                .createInventory(27, ChatColor.DARK_RED + "uTags Admin Menu"); // 3 rows
 
         // --- Placeholder Items ---
         ItemStack listEditItem = new ItemStack(Material.BOOKSHELF);
@@ -74,51 +75,27 @@ public class AdminMenuManager {
 
     // Opens the paginated list of all tags for viewing/editing
     public void openTagListMenu(Player player, int pageIndex) {
-        List<Tag> allTags = plugin.getAvailableTags(null); // Get all tags regardless of type
+        long renderStart = plugin.getMetrics().start();
+        TagCatalog catalog = plugin.getTagCatalog();
 
-        // Sort tags alphabetically by name for consistency
-        allTags.sort(Comparator.comparing(Tag::getName, String.CASE_INSENSITIVE_ORDER));
-
-        int itemsPerPage = 28; // 4 rows * 7 slots
-        int totalPages = Math.max(1, (int) Math.ceil((double) allTags.size() / itemsPerPage)); // Ensure at least 1 page
+        int totalPages = catalog.pageCount(AdminTagListPages.PAGE_SIZE);
         pageIndex = Math.max(0, Math.min(pageIndex, totalPages - 1)); // Clamp page index
 
         String title = ChatColor.AQUA + "Tag List (Page " + (pageIndex + 1) + "/" + totalPages + ")";
+        UTagsMenuHolder holder = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_TAG_LIST, pageIndex, null, null);
         Inventory inventory = tagMenuManager.createInventoryFrame(54, title, // Use common frame creator
-                Material.valueOf(plugin.getConfig().getString("frame-material", "GRAY_STAINED_GLASS_PANE")), player); // Different frame color?
-
-        int startIndex = pageIndex * itemsPerPage;
-        int endIndex = Math.min(startIndex + itemsPerPage, allTags.size());
+                Material.valueOf(plugin.getConfig().getString("frame-material", "GRAY_STAINED_GLASS_PANE")), holder); // Different frame color?
 
         int[] itemSlots = {10, 11, 12, 13, 14, 15, 16,
                            19, 20, 21, 22, 23, 24, 25,
                            28, 29, 30, 31, 32, 33, 34,
                            37, 38, 39, 40, 41, 42, 43};
 
-        int slotIndex = 0;
-        for (int i = startIndex; i < endIndex; i++) {
-            if (slotIndex >= itemSlots.length) break;
-
-            Tag tag = allTags.get(i);
-            ItemStack tagItem = tag.getMaterial().clone();
-            ItemMeta tagMeta = tagItem.getItemMeta();
-
-            if (tagMeta != null) {
-                tagMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&', tag.getDisplay()));
-                List<String> lore = new ArrayList<>();
-                lore.add(ChatColor.GRAY + "Name: " + ChatColor.WHITE + tag.getName());
-                lore.add(ChatColor.GRAY + "Type: " + ChatColor.WHITE + tag.getType());
-                lore.add(ChatColor.GRAY + "Weight: " + ChatColor.WHITE + tag.getWeight());
-                lore.add(ChatColor.GRAY + "Public: " + (tag.isPublic() ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
-                // lore.add(ChatColor.GRAY + "Color: " + (tag.isColor() ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No")); // Add if needed
-                lore.add(" ");
-                lore.add(ChatColor.YELLOW + "Click to Edit");
-                // TODO: Add PDC with tag name
-                tagMeta.setLore(lore);
-                tagItem.setItemMeta(tagMeta);
-            }
-            inventory.setItem(itemSlots[slotIndex], tagItem);
-            slotIndex++;
+        // Only this page's tags are rendered (or reused from the page cache), sorted by name
+        AdminTagListPages.Page page = tagListPages.getPage(catalog, pageIndex);
+        for (int i = 0; i < page.items.length && i < itemSlots.length; i++) {
+            inventory.setItem(itemSlots[i], page.items[i]);
+            holder.setSlotAction(itemSlots[i], new MenuAction(MenuAction.Type.EDIT_TAG, page.tagNames[i]));
         }
 
         // Navigation Items
@@ -151,6 +128,11 @@ public class AdminMenuManager {
         inventory.setItem(49, backItem); // Bottom center
 
         player.openInventory(inventory);
+        plugin.getMetrics().record(UTagsMetrics.Timer.MENU_TAG_LIST, renderStart);
+
+        // Build the neighbouring pages on the next tick, after this one has been sent
+        final int openedPage = pageIndex;
+        Bukkit.getScheduler().runTask(plugin, () -> tagListPages.prefetchAround(catalog, openedPage));
     }
 
 
@@ -161,7 +143,9 @@ public class AdminMenuManager {
         if (title.length() > 32) {
             title = title.substring(0, 29) + "...";
         }
-        Inventory editorMenu = Bukkit.createInventory(player, 27, title); // 3 rows
+        // The full tag name rides in the holder, so a truncated title doesn't matter
+        Inventory editorMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_TAG_EDITOR, 0, null, tag.getName())
+                .createInventory(27, title); // 3 rows
 
         // --- Items representing attributes ---
 
@@ -302,7 +286,8 @@ public class AdminMenuManager {
 
     // Opens a menu to select which data type to purge
     public void openPurgeTypeSelectionMenu(Player player) {
-        Inventory selectionMenu = Bukkit.createInventory(player, 9, ChatColor.DARK_RED + "Select Purge Type");
+        Inventory selectionMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_PURGE_TYPE)
+                .createInventory(9, ChatColor.DARK_RED + "Select Purge Type");
 
         // Purge Tags Item
         ItemStack tagsItem = new ItemStack(Material.BOOKSHELF); // Or other representative item
@@ -351,7 +336,8 @@ public class AdminMenuManager {
         if (title.length() > 32) {
              title = title.substring(0, 29) + "...";
         }
-        Inventory confirmMenu = Bukkit.createInventory(player, 9, title);
+        Inventory confirmMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_DELETE_CONFIRM, 0, null, tagToDelete.getName())
+                .createInventory(9, title);
 
         // Tag Info Item (Display Only)
         ItemStack infoItem = tagToDelete.getMaterial().clone();
@@ -400,7 +386,8 @@ public class AdminMenuManager {
     // Opens the main creation wizard step GUI
     public void openCreationWizardStep(Player player, TagCreationData data) {
         String title = ChatColor.GREEN + "Create Tag: Step 1"; // Or just "Create Tag"
-        Inventory wizardMenu = Bukkit.createInventory(player, 36, title); // 4 rows
+        Inventory wizardMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_CREATE_WIZARD)
+                .createInventory(36, title); // 4 rows
 
         // --- Display Current Values & Actions ---
 
@@ -566,7 +553,8 @@ public class AdminMenuManager {
             return;
         }
 
-        Inventory confirmMenu = Bukkit.createInventory(player, 9, ChatColor.DARK_RED + "Confirm Purge: " + purgeType);
+        Inventory confirmMenu = new UTagsMenuHolder(UTagsMenuHolder.Kind.ADMIN_PURGE_CONFIRM, 0, null, purgeType)
+                .createInventory(9, ChatColor.DARK_RED + "Confirm Purge: " + purgeType);
 
         // Confirmation Item (e.g., Red Wool)
         ItemStack confirmItem = new ItemStack(Material.RED_WOOL);
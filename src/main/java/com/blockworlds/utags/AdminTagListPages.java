@@ -0,0 +1,102 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rendered pages of the admin tag list. A page is sliced from the catalog's name-sorted view and
+ * its items are built once per catalog version, so opening a page costs one page of item building
+ * however many tags exist. The pages either side of the one just opened are built ahead of time
+ * (see {@link AdminMenuManager#openTagListMenu}), so flipping pages usually finds them ready.
+ * The items are the same for every admin, so one cache is shared. Main thread only.
+ */
+final class AdminTagListPages {
+
+    static final int PAGE_SIZE = 28; // 4 rows * 7 slots
+    // The open page, its neighbours and a few recently visited ones
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private final Map<Integer, Page> pages = new LinkedHashMap<Integer, Page>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private long catalogVersion = -1L;
+
+    /**
+     * @param pageIndex Zero-based page, already clamped to the catalog's page count.
+     */
+    Page getPage(TagCatalog catalog, int pageIndex) {
+        if (catalog.getVersion() != catalogVersion) {
+            pages.clear(); // Tags were added, edited or removed
+            catalogVersion = catalog.getVersion();
+        }
+        Page page = pages.get(pageIndex);
+        if (page == null) {
+            page = buildPage(catalog.getPageByName(pageIndex, PAGE_SIZE));
+            pages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    /**
+     * Builds the pages before and after {@code pageIndex} unless they are cached already.
+     * Skipped if the catalog changed since the page was opened; the next open rebuilds anyway.
+     */
+    void prefetchAround(TagCatalog catalog, int pageIndex) {
+        if (catalog.getVersion() != catalogVersion) {
+            return;
+        }
+        int pageCount = catalog.pageCount(PAGE_SIZE);
+        if (pageIndex + 1 < pageCount) {
+            getPage(catalog, pageIndex + 1);
+        }
+        if (pageIndex > 0) {
+            getPage(catalog, pageIndex - 1);
+        }
+    }
+
+    private static Page buildPage(List<Tag> tags) {
+        ItemStack[] items = new ItemStack[tags.size()];
+        String[] names = new String[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            Tag tag = tags.get(i);
+            ItemStack tagItem = tag.getMaterial().clone();
+            ItemMeta tagMeta = tagItem.getItemMeta();
+
+            if (tagMeta != null) {
+                tagMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&', tag.getDisplay()));
+                List<String> lore = new ArrayList<>();
+                lore.add(ChatColor.GRAY + "Name: " + ChatColor.WHITE + tag.getName());
+                lore.add(ChatColor.GRAY + "Type: " + ChatColor.WHITE + tag.getType());
+                lore.add(ChatColor.GRAY + "Weight: " + ChatColor.WHITE + tag.getWeight());
+                lore.add(ChatColor.GRAY + "Public: " + (tag.isPublic() ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
+                lore.add(" ");
+                lore.add(ChatColor.YELLOW + "Click to Edit");
+                tagMeta.setLore(lore);
+                tagItem.setItemMeta(tagMeta);
+            }
+            items[i] = tagItem;
+            names[i] = tag.getName();
+        }
+        return new Page(items, names);
+    }
+
+    // Bukkit copies items on Inventory.setItem, so the cached stacks are never handed out for mutation
+    static final class Page {
+        final ItemStack[] items;
+        final String[] tagNames;
+
+        Page(ItemStack[] items, String[] tagNames) {
+            this.items = items;
+            this.tagNames = tagNames;
+        }
+    }
+}
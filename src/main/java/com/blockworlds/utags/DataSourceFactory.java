@@ -0,0 +1,95 @@
+package com.blockworlds.utags;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Builds the uTags connection pool from the {@code database} config section.
+ * {@code driverClassName} + {@code jdbcUrl} override the MySQL URL built from host/port/database,
+ * which is how H2 is used for local runs and the benchmark module.
+ * {@code type: sqlite} uses {@link #createSqlite} instead.
+ */
+final class DataSourceFactory {
+
+    private DataSourceFactory() {
+    }
+
+    /**
+     * @param database       The {@code database} section; missing keys fall back to the defaults in config.yml.
+     * @param metricsFactory Receives pool timings, or null for none.
+     */
+    static HikariDataSource create(ConfigurationSection database, MetricsTrackerFactory metricsFactory, Logger logger) {
+        if (database == null) {
+            database = new MemoryConfiguration(); // All defaults
+        }
+        HikariConfig config = new HikariConfig();
+        // Check for explicit driver/url (for H2 testing or other DBs)
+        String driverClassName = database.getString("driverClassName");
+        String jdbcUrl = database.getString("jdbcUrl");
+        // Read database credentials from config.yml
+        String dbHost = database.getString("host", "localhost");
+        int dbPort = database.getInt("port", 3306);
+        String dbName = database.getString("database", "utags");
+        String dbUser = database.getString("username", "user");
+        String dbPass = database.getString("password", "password");
+
+        // Log the credentials being used (excluding password for security)
+        logger.info("Connecting to database: " + dbHost + ":" + dbPort + "/" + dbName + " as user: " + dbUser);
+
+        if (driverClassName != null && !driverClassName.isEmpty() && jdbcUrl != null && !jdbcUrl.isEmpty()) {
+            // Use explicit driver and URL if provided
+            config.setDriverClassName(driverClassName);
+            config.setJdbcUrl(jdbcUrl);
+            logger.info("Using custom JDBC driver and URL from config.");
+        } else {
+            // Construct MySQL URL using config values
+            config.setJdbcUrl("jdbc:mysql://" + dbHost + ":" + dbPort + "/" + dbName + "?autoReconnect=true&useSSL=false");
+            logger.info("Using MySQL JDBC URL constructed from config.yml values.");
+        }
+
+        // Set common pool properties using config values
+        config.setUsername(dbUser);
+        config.setPassword(dbPass);
+        config.setMaximumPoolSize(10);
+        config.setMinimumIdle(5);
+        config.setConnectionTimeout(30000); // 30 seconds
+        config.setIdleTimeout(600000); // 10 minutes
+        config.setMaxLifetime(1800000); // 30 minutes
+        if (metricsFactory != null) {
+            config.setMetricsTrackerFactory(metricsFactory); // Connection acquire/usage timings
+        }
+
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Pool for an SQLite database file, opened in WAL mode. SQLite has a single writer, so the pool is
+     * small and writers wait on busy_timeout instead of failing with SQLITE_BUSY.
+     *
+     * @param file The database file; created if missing.
+     */
+    static HikariDataSource createSqlite(File file, int poolSize, MetricsTrackerFactory metricsFactory, Logger logger) {
+        logger.info("Opening SQLite database: " + file.getPath());
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        // Passed to the driver as connection pragmas
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        config.setMaximumPoolSize(Math.max(1, poolSize));
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(30000);
+        config.setMaxLifetime(0); // A local file never goes stale
+        if (metricsFactory != null) {
+            config.setMetricsTrackerFactory(metricsFactory);
+        }
+        return new HikariDataSource(config);
+    }
+}
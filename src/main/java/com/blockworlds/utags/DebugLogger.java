@@ -0,0 +1,136 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in debug output for per-player hot paths. Everything is off by default; categories are switched on
+ * from config ({@code debug.categories}) or with {@code /tag admin debug}, and output can be narrowed to
+ * specific players. Messages are passed as suppliers, so nothing is concatenated or colour-escaped unless
+ * the category is actually enabled. Safe to call from any thread.
+ */
+public class DebugLogger {
+
+    public enum Category {
+        TAGS,       // Applying and recolouring tags
+        DISPLAY,    // Display name / tab list refreshes
+        LUCKPERMS,  // LuckPerms events and node saves
+        PROFILE,    // Login profile loading
+        REQUESTS;   // Custom tag requests
+
+        /**
+         * @return The category for a command argument, or null if there is none by that name.
+         */
+        public static Category fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Logger logger;
+    // Copy-on-write so the hot-path check never locks
+    private volatile Set<Category> enabledCategories = EnumSet.noneOf(Category.class);
+    // Empty means every player; otherwise only these players' actions are logged
+    private final Set<UUID> watchedPlayers = ConcurrentHashMap.newKeySet();
+
+    public DebugLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public boolean isEnabled(Category category) {
+        return enabledCategories.contains(category);
+    }
+
+    /**
+     * @return Whether the category is on and the player passes the player filter.
+     */
+    public boolean isEnabled(Category category, UUID playerUuid) {
+        return enabledCategories.contains(category)
+                && (watchedPlayers.isEmpty() || playerUuid == null || watchedPlayers.contains(playerUuid));
+    }
+
+    public void log(Category category, Supplier<String> message) {
+        if (isEnabled(category)) {
+            write(category, message);
+        }
+    }
+
+    public void log(Category category, UUID playerUuid, Supplier<String> message) {
+        if (isEnabled(category, playerUuid)) {
+            write(category, message);
+        }
+    }
+
+    public synchronized void setEnabled(Category category, boolean enabled) {
+        EnumSet<Category> updated = enabledCategories.isEmpty() ? EnumSet.noneOf(Category.class) : EnumSet.copyOf(enabledCategories);
+        if (enabled) {
+            updated.add(category);
+        } else {
+            updated.remove(category);
+        }
+        enabledCategories = updated;
+    }
+
+    public synchronized void setAllEnabled(boolean enabled) {
+        enabledCategories = enabled ? EnumSet.allOf(Category.class) : EnumSet.noneOf(Category.class);
+    }
+
+    /**
+     * Enables exactly the named categories, e.g. from config. Unknown names are reported and skipped.
+     */
+    public synchronized void configure(Collection<String> categoryNames) {
+        EnumSet<Category> configured = EnumSet.noneOf(Category.class);
+        for (String name : categoryNames) {
+            Category category = Category.fromName(name);
+            if (category != null) {
+                configured.add(category);
+            } else {
+                logger.warning("Unknown debug category in config: " + name);
+            }
+        }
+        enabledCategories = configured;
+    }
+
+    public Set<Category> getEnabledCategories() {
+        return enabledCategories;
+    }
+
+    /**
+     * Adds the player to the filter, or removes them if they were already in it.
+     *
+     * @return True if the player is now watched.
+     */
+    public boolean toggleWatchedPlayer(UUID playerUuid) {
+        if (watchedPlayers.remove(playerUuid)) {
+            return false;
+        }
+        watchedPlayers.add(playerUuid);
+        return true;
+    }
+
+    public Set<UUID> getWatchedPlayers() {
+        return watchedPlayers;
+    }
+
+    /**
+     * Makes colour codes readable in console output. Only call this inside a message supplier.
+     */
+    public static String visible(String text) {
+        return text == null ? "null" : text.replace(ChatColor.COLOR_CHAR, '&');
+    }
+
+    private void write(Category category, Supplier<String> message) {
+        logger.info("[debug/" + category.name().toLowerCase(Locale.ROOT) + "] " + message.get());
+    }
+}
@@ -0,0 +1,111 @@
+package com.blockworlds.utags;
+
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.model.user.User;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces display name refreshes. Any thread may request a refresh; all requests made before the
+ * next server tick collapse into one recompute per player on the main thread, built from the LuckPerms
+ * user already in memory (no {@code loadUser} round trip). The display name and tab list name are only
+ * set when the computed value actually changed.
+ */
+public class DisplayNameRefresher {
+
+    private final uTags plugin;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+
+    public DisplayNameRefresher(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queues a refresh of the player's display name for the next tick. Safe to call from any thread.
+     */
+    public void requestRefresh(UUID playerUuid) {
+        requested.incrementAndGet();
+        if (pending.add(playerUuid) && drainScheduled.compareAndSet(false, true)) {
+            if (!plugin.isEnabled()) {
+                drainScheduled.set(false);
+                return; // The scheduler rejects tasks from disabled plugins
+            }
+            Bukkit.getScheduler().runTask(plugin, this::drain);
+        }
+    }
+
+    private void drain() {
+        // Cleared first, so a request racing with this drain schedules another one rather than being lost
+        drainScheduled.set(false);
+        Iterator<UUID> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            UUID playerUuid = iterator.next();
+            iterator.remove();
+            Player player = Bukkit.getPlayer(playerUuid);
+            if (player != null && player.isOnline()) {
+                long start = plugin.getMetrics().start();
+                apply(player);
+                plugin.getMetrics().record(UTagsMetrics.Timer.DISPLAY_REFRESH, start);
+            }
+        }
+    }
+
+    private void apply(Player player) {
+        User user = plugin.getLuckPerms().getUserManager().getUser(player.getUniqueId());
+        if (user == null) {
+            plugin.getLogger().warning("[uTags] Could not find LuckPerms user for " + player.getName() + " during display name refresh.");
+            return;
+        }
+
+        CachedMetaData metaData = user.getCachedData().getMetaData();
+        String prefix = metaData.getPrefix();
+        String suffix = metaData.getSuffix();
+        String displayName = (prefix != null ? ChatColor.translateAlternateColorCodes('&', prefix) : "") +
+                             player.getName() +
+                             (suffix != null ? ChatColor.translateAlternateColorCodes('&', suffix) : "") +
+                             ChatColor.RESET;
+
+        plugin.getDebugLogger().log(DebugLogger.Category.DISPLAY, player.getUniqueId(), () ->
+                "Display name for " + player.getName() + ": '" + DebugLogger.visible(displayName) + "'"
+                + (displayName.equals(player.getDisplayName()) ? " (unchanged)" : ""));
+
+        try {
+            if (!displayName.equals(player.getDisplayName())) {
+                player.setDisplayName(displayName);
+            }
+            if (!displayName.equals(player.getPlayerListName())) {
+                player.setPlayerListName(displayName); // Update tab list name as well
+            }
+            applied.incrementAndGet();
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error setting display name for " + player.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return How many refreshes were requested since startup.
+     */
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    /**
+     * @return How many recomputes actually ran; the difference to {@link #getRequestedCount()} was coalesced away.
+     */
+    public long getAppliedCount() {
+        return applied.get();
+    }
+}
@@ -0,0 +1,223 @@
+package com.blockworlds.utags;
+
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Bounded thread pool for every blocking uTags task (JDBC and LuckPerms storage calls).
+ * Keeps that work off the JVM-wide common ForkJoinPool and lets the pool size follow the
+ * database pool instead of the CPU count.
+ *
+ * When the queue is full, background threads run the task themselves, which slows them down
+ * instead of dropping writes. The server main thread never runs blocking work inline: it waits
+ * up to {@code mainThreadWaitMillis} for queue space and is then refused with a
+ * {@link RejectedExecutionException}. Submit through {@link #supplyAsync}, {@link #runAsync} or
+ * {@link #tryExecute} so the refusal reaches the caller as a failed future or a false return value
+ * rather than as an exception thrown out of an event handler or command.
+ */
+public class IoExecutor implements Executor {
+
+    private final ThreadPoolExecutor executor;
+    private final Logger logger;
+    private final int queueCapacity;
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong mainThreadRejections = new AtomicLong();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+    public IoExecutor(int threads, int queueCapacity, long mainThreadWaitMillis, Logger logger) {
+        this.logger = logger;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), new NamedThreadFactory(),
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        // Late submissions during shutdown still run, so no write is lost
+                        task.run();
+                        return;
+                    }
+                    if (isPrimaryThread()) {
+                        waitForQueueSpace(task, pool, mainThreadWaitMillis);
+                        return;
+                    }
+                    callerRuns.incrementAndGet();
+                    task.run();
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // A JDBC or LuckPerms call inline on the main thread would stall the tick for its full duration
+    private void waitForQueueSpace(Runnable task, ThreadPoolExecutor pool, long waitMillis) {
+        try {
+            if (pool.getQueue().offer(task, Math.max(0L, waitMillis), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mainThreadRejections.incrementAndGet();
+        logger.warning("uTags I/O queue is full (" + describe() + "); refused a task from the main thread.");
+        throw new RejectedExecutionException("uTags I/O queue is full");
+    }
+
+    private static boolean isPrimaryThread() {
+        // No server in benchmarks and unit runs
+        return Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+        int depth = executor.getQueue().size();
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Runs the task on the pool like {@link CompletableFuture#supplyAsync(Supplier, Executor)}, but a refused
+     * task completes the returned future exceptionally with the {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, this);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> refused = new CompletableFuture<>();
+            refused.completeExceptionally(e);
+            return refused;
+        }
+    }
+
+    /**
+     * Runs the task on the pool like {@link CompletableFuture#runAsync(Runnable, Executor)}, but a refused
+     * task completes the returned future exceptionally with the {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Fire-and-forget {@link #execute}: a refusal is logged instead of thrown.
+     *
+     * @param description What the task does, for the log line.
+     * @return false if the task was refused and will not run.
+     */
+    public boolean tryExecute(Runnable task, String description) {
+        try {
+            execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warning("Skipped " + description + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether a future failed because its task was refused by the pool, as opposed to failing while running.
+     */
+    static boolean isRejection(Throwable failure) {
+        Throwable cause = failure;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RejectedExecutionException;
+    }
+
+    /**
+     * Stops accepting new work and waits for queued tasks to finish.
+     * Must be called before the data source is closed.
+     *
+     * @param timeoutMillis How long to wait for queued tasks.
+     * @return true if every task finished in time.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            logger.warning("uTags I/O executor did not drain within " + timeoutMillis + "ms; "
+                    + executor.getQueue().size() + " task(s) still queued. Forcing shutdown.");
+            executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return How many tasks ran on the submitting thread because the queue was full.
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    /**
+     * @return How many main thread submissions were refused because the queue stayed full.
+     */
+    public long getMainThreadRejectionCount() {
+        return mainThreadRejections.get();
+    }
+
+    /**
+     * @return A one-line summary of the pool state, for logs and admin commands.
+     */
+    public String describe() {
+        return "threads=" + getPoolSize()
+                + " active=" + getActiveCount()
+                + " queued=" + getQueueDepth() + "/" + queueCapacity
+                + " peakQueued=" + getPeakQueueDepth()
+                + " completed=" + getCompletedTaskCount()
+                + " callerRuns=" + getCallerRunsCount()
+                + " mainThreadRejections=" + getMainThreadRejectionCount();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "uTags-IO-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
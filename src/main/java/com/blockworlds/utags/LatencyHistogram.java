@@ -0,0 +1,107 @@
+package com.blockworlds.utags;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets (bucket n holds samples below 2^n µs).
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within 2x,
+ * which is enough to tell a 50 µs menu render from a 5 ms one. Recording is a few atomic increments.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40; // 2^39 µs is several days; anything slower lands in the last bucket
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Takes a snapshot without resetting. Samples recorded concurrently may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Takes a snapshot and starts over, for interval reporting.
+     */
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.getAndSet(i, 0);
+        }
+        return new Snapshot(counts, count.sumThenReset(), totalNanos.sumThenReset(), maxNanos.getAndSet(0));
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return count == 0 ? 0 : totalNanos / count / 1000;
+        }
+
+        public long getMaxMicros() {
+            return maxNanos / 1000;
+        }
+
+        /**
+         * @param percentile Between 0 and 100.
+         * @return The upper bound in microseconds of the bucket holding the percentile, capped at the maximum seen.
+         */
+        public long getPercentileMicros(double percentile) {
+            long bucketTotal = 0;
+            for (long c : counts) {
+                bucketTotal += c;
+            }
+            if (bucketTotal == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(bucketTotal * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(1L << i, getMaxMicros());
+                }
+            }
+            return getMaxMicros();
+        }
+    }
+}
@@ -1,151 +1,152 @@
 package com.blockworlds.utags;
 
-import net.luckperms.api.model.user.User;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class LoginListener implements Listener {
+    // A join normally follows pre-login within seconds; anything older belongs to a client that never logged in
+    private static final long PRELOAD_MAX_AGE_MILLIS = 60_000L;
+
     private uTags plugin;
+    private final PlayerProfileLoader profileLoader;
+    // Profiles loaded during pre-login, waiting for the join event
+    private final Map<UUID, PlayerProfile> preloadedProfiles = new ConcurrentHashMap<>();
 
     public LoginListener(uTags plugin) {
         this.plugin = plugin;
+        this.profileLoader = new PlayerProfileLoader(plugin);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        // Already off the main thread, so load everything here and have it ready for the join event
+        PlayerProfile profile = profileLoader.load(event.getUniqueId(), event.getName());
+        preloadedProfiles.put(event.getUniqueId(), profile);
+        // Cached now so LuckPerms writes queued before the join event see the right name colour.
+        // Not pinned until the join: a client that drops before logging in expires like a quit player
+        plugin.preloadPlayerNameColorCode(event.getUniqueId(), profile.getNameColorCode());
+    }
+
+    /**
+     * Drops preloaded profiles of players who disconnected between pre-login and login, which
+     * neither a login event nor a quit event ever cleans up. Called from the periodic cache sweep.
+     *
+     * @return The number of profiles dropped.
+     */
+    public int evictStalePreloadedProfiles(long nowMillis) {
+        int removed = 0;
+        for (Iterator<PlayerProfile> it = preloadedProfiles.values().iterator(); it.hasNext(); ) {
+            if (nowMillis - it.next().getLoadedAt() > PRELOAD_MAX_AGE_MILLIS) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preloadedProfiles.remove(event.getPlayer().getUniqueId());
+            plugin.expirePlayerNameColorCode(event.getPlayer().getUniqueId());
+        }
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        UUID playerUuid = player.getUniqueId();
 
-        if (player.hasPermission("utags.staff")) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (plugin.hasPendingTagRequests()) {
-                    player.sendMessage(ChatColor.RED + "There are pending tag requests. Use " + ChatColor.YELLOW + "/tag admin requests" + ChatColor.RED + " to check them.");
-                }
-            });
+        PlayerProfile profile = preloadedProfiles.remove(playerUuid);
+        if (profile != null) {
+            applyProfile(player, profile);
+            return;
         }
 
-        // Load player's custom tag color preferences
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            UUID playerUuid = player.getUniqueId();
-            plugin.getLogger().fine("Loading tag color preferences for " + player.getName() + " (" + playerUuid + ")");
-            String sql = "SELECT tag_name, bracket_color_code, content_color_code FROM player_tag_color_preferences WHERE player_uuid = ?";
-            try (Connection conn = plugin.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                ps.setString(1, playerUuid.toString());
-                ResultSet rs = ps.executeQuery();
-
-                int count = 0;
-                while (rs.next()) {
-                    String tagName = rs.getString("tag_name");
-                    String bracketCode = rs.getString("bracket_color_code");
-                    String contentCode = rs.getString("content_color_code");
-
-                    ChatColor bracketColor = (bracketCode != null && bracketCode.length() == 2) ? ChatColor.getByChar(bracketCode.charAt(1)) : null;
-                    ChatColor contentColor = (contentCode != null && contentCode.length() == 2) ? ChatColor.getByChar(contentCode.charAt(1)) : null;
-
-                    // Use the existing method to populate the in-memory map
-                    // Note: This will trigger another async save, which is redundant but harmless here.
-                    // A better approach might be a dedicated loading method in uTags.
-                    plugin.setPlayerTagColor(playerUuid, tagName, bracketColor, contentColor);
-                    count++;
-                }
-                if (count > 0) {
-                     plugin.getLogger().info("Loaded " + count + " tag color preferences for " + player.getName());
-                }
+        // No pre-login profile (e.g. the plugin was reloaded mid-session): load it now in one task
+        loadAndApplyProfile(player);
+    }
 
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Failed to load tag color preferences for " + player.getName() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+    // Logs and gives up if the I/O queue refuses the load; the player keeps their current display until the next join
+    private void loadAndApplyProfile(Player player) {
+        UUID playerUuid = player.getUniqueId();
+        String playerName = player.getName();
+        plugin.getIoExecutor().tryExecute(() -> {
+            PlayerProfile loaded = profileLoader.load(playerUuid, playerName);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (player.isOnline()) {
+                    applyProfile(player, loaded);
+                }
+            });
+        }, "profile load for " + playerName);
+    }
 
+    /**
+     * Loads and applies profiles for players who were online before the plugin enabled (e.g. after /reload).
+     * Called once the tag catalog is warm, so worn tags can be matched.
+     */
+    public void loadOnlinePlayers() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadAndApplyProfile(player);
+        }
+    }
 
-        // Determine and store the applied prefix tag name on join
+    // Must run on the main thread
+    private void applyProfile(Player player, PlayerProfile profile) {
         UUID playerUuid = player.getUniqueId();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            User user = plugin.getLuckPerms().getUserManager().getUser(playerUuid);
-            if (user != null) {
-                String currentPrefix = user.getCachedData().getMetaData().getPrefix();
-                if (currentPrefix != null && currentPrefix.length() > 2) {
-                    // Check if the last 2 characters form a valid color code (§X or &X where X is 0-9a-fA-F)
-                    String potentialDisplay = null;
-                    int prefixLen = currentPrefix.length();
-                    char potentialColorChar = currentPrefix.charAt(prefixLen - 2);
-                    char potentialCodeChar = currentPrefix.charAt(prefixLen - 1);
-
-                    // Validate the trailing color code pattern
-                    if ((potentialColorChar == ChatColor.COLOR_CHAR || potentialColorChar == '&')
-                            && "0123456789abcdefABCDEFkKlLmMnNoOrR".indexOf(potentialCodeChar) != -1) {
-                        // Valid color code found at the end, extract display without it
-                        potentialDisplay = currentPrefix.substring(0, prefixLen - 2);
-                    } else {
-                        // No valid trailing color code, use the full prefix as potential display
-                        potentialDisplay = currentPrefix;
-                    }
-
-                    // Check if this display string corresponds to a known tag
-                    final String finalPotentialDisplay = potentialDisplay;
-                    plugin.getTagNameByDisplayAsync(finalPotentialDisplay).thenAcceptAsync(tagName -> {
-                        if (tagName != null) {
-                            // Store the mapping
-                            plugin.playerAppliedPrefixTagName.put(playerUuid, tagName);
-                            plugin.getLogger().info("Identified applied tag '" + tagName + "' for player " + player.getName() + " on join.");
-                        } else {
-                            // Prefix exists but doesn't match a known tag display (or tag was deleted)
-                            // Remove any potentially stale mapping
-                            plugin.playerAppliedPrefixTagName.remove(playerUuid);
-                        }
-                        // Update display name *after* potentially identifying the tag
-                        Bukkit.getScheduler().runTask(plugin, () -> plugin.updatePlayerDisplayName(player));
-                    }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
-                } else {
-                    // No prefix or prefix too short, remove any stale mapping and update display name
-                    plugin.playerAppliedPrefixTagName.remove(playerUuid);
-                    Bukkit.getScheduler().runTask(plugin, () -> plugin.updatePlayerDisplayName(player));
-                }
-            } else {
-                 // Could not find LP user, just update display name
-                 Bukkit.getScheduler().runTask(plugin, () -> plugin.updatePlayerDisplayName(player));
-            }
-        });
-        
 
-        if (player.hasPermission("utags.custom1") && !player.hasPermission("utags.tag." + player.getName() + "1")) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (plugin.hasPendingTagRequests()) {
-                    player.sendMessage(ChatColor.GREEN + "You are able to request a custom tag! Use " + ChatColor.YELLOW + "/tag request" + ChatColor.GREEN + " to request your tag.");
-                }
-            });
+        // Fill caches straight from the profile (no writes back to the DB or LuckPerms)
+        plugin.hydratePlayerTagColorPreferences(playerUuid, profile.getTagColorPreferences());
+        plugin.cachePlayerNameColorCode(playerUuid, profile.getNameColorCode());
+
+        String appliedTagName = profile.getAppliedPrefixTagName();
+        if (appliedTagName != null) {
+            plugin.playerAppliedPrefixTagName.put(playerUuid, appliedTagName);
+            plugin.getDebugLogger().log(DebugLogger.Category.PROFILE, playerUuid, () ->
+                    "Identified applied tag '" + appliedTagName + "' for player " + player.getName() + " on join.");
+        } else {
+            // No prefix, or it doesn't match a known tag display (or tag was deleted)
+            plugin.playerAppliedPrefixTagName.remove(playerUuid);
         }
-        if (player.hasPermission("utags.custom2") && !player.hasPermission("utags.tag." + player.getName() + "2")) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (plugin.hasPendingTagRequests()) {
-                    player.sendMessage(ChatColor.GREEN + "You are able to request a custom tag! Use " + ChatColor.YELLOW + "/tag request" + ChatColor.GREEN + " to request your tag.");
-                }
-            });
+        plugin.updatePlayerDisplayName(player);
+
+        // Pending requests are cached in memory, so these checks never touch the database
+        if (!plugin.hasPendingTagRequests()) {
+            return;
         }
-        if (player.hasPermission("utags.custom3") && !player.hasPermission("utags.tag." + player.getName() + "3")) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (plugin.hasPendingTagRequests()) {
-                    player.sendMessage(ChatColor.GREEN + "You are able to request a custom tag! Use " + ChatColor.YELLOW + "/tag request" + ChatColor.GREEN + " to request your tag.");
-                }
-            });
+        if (player.hasPermission("utags.staff")) {
+            player.sendMessage(ChatColor.RED + "There are pending tag requests. Use " + ChatColor.YELLOW + "/tag admin requests" + ChatColor.RED + " to check them.");
         }
-        if (player.hasPermission("utags.custom4") && !player.hasPermission("utags.tag." + player.getName() + "4")) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                if (plugin.hasPendingTagRequests()) {
-                    player.sendMessage(ChatColor.GREEN + "You are able to request a custom tag! Use " + ChatColor.YELLOW + "/tag request" + ChatColor.GREEN + " to request your tag.");
-                }
-            });
+        for (int slot = 1; slot <= 4; slot++) {
+            if (player.hasPermission("utags.custom" + slot) && !player.hasPermission("utags.tag." + player.getName() + slot)) {
+                player.sendMessage(ChatColor.GREEN + "You are able to request a custom tag! Use " + ChatColor.YELLOW + "/tag request" + ChatColor.GREEN + " to request your tag.");
+            }
         }
     }
-}
\ No newline at end of file
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        preloadedProfiles.remove(event.getPlayer().getUniqueId());
+        plugin.getTagPermissionCache().invalidate(event.getPlayer().getUniqueId());
+        plugin.getTagNodeManager().forget(event.getPlayer().getUniqueId());
+        plugin.expirePlayerNameColorCode(event.getPlayer().getUniqueId());
+        // Write out any colour changes the player made this session that the timer has not flushed yet
+        plugin.getTagColorWriteBuffer().flushPlayerAsync(event.getPlayer().getUniqueId());
+    }
+}
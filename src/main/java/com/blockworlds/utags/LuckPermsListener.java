@@ -26,21 +26,18 @@ public class LuckPermsListener {
 
         // Check if the player is online on this server instance
         if (player != null && player.isOnline()) {
-             // --- LISTENER DEBUG LOGGING ---
-             // Get metadata DIRECTLY from the user object provided by the event
-             String eventPrefix = user.getCachedData().getMetaData().getPrefix();
-             String eventSuffix = user.getCachedData().getMetaData().getSuffix();
-             plugin.getLogger().info("[LISTENER DEBUG] UserDataRecalculateEvent for " + player.getName() + ". Prefix: '" + eventPrefix + "', Suffix: '" + eventSuffix + "'. Scheduling refresh.");
-             // --- END LISTENER DEBUG LOGGING ---
+             // Metadata is read from the event's user, and only when the category is enabled
+             plugin.getDebugLogger().log(DebugLogger.Category.LUCKPERMS, player.getUniqueId(), () ->
+                     "UserDataRecalculateEvent for " + player.getName()
+                     + ". Prefix: '" + DebugLogger.visible(user.getCachedData().getMetaData().getPrefix())
+                     + "', Suffix: '" + DebugLogger.visible(user.getCachedData().getMetaData().getSuffix())
+                     + "'. Scheduling refresh.");
 
-            // Schedule the display name refresh to run on the main server thread
-            // No delay needed here, as the event signifies data is ready
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                // Pass null for the prefix; the refresh method will fetch the latest from cache
-                plugin.refreshBukkitDisplayName(player);
-            });
+            // Coalesced with any other refresh requested this tick and applied on the main thread
+            plugin.refreshBukkitDisplayName(player);
         } else {
-             plugin.getLogger().finest("LuckPerms UserDataRecalculateEvent detected for offline/unknown user: " + user.getUniqueId());
+             plugin.getDebugLogger().log(DebugLogger.Category.LUCKPERMS, () ->
+                     "UserDataRecalculateEvent for offline/unknown user: " + user.getUniqueId());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.blockworlds.utags;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Encoding of the tags.material column.
+ * <ul>
+ *     <li>{@code 2|K|minecraft:name_tag} - a single item with no meta, stored as its material key</li>
+ *     <li>{@code 2|B|<base64>} - anything else (custom heads, names, lore), as Paper's {@link ItemStack#serializeAsBytes()}</li>
+ *     <li>anything without the version marker - the legacy Base64 {@link BukkitObjectOutputStream} blob</li>
+ * </ul>
+ * Legacy values are still read, and are rewritten in the current format by {@link uTags#migrateLegacyMaterialsAsync()}.
+ */
+final class MaterialCodec {
+
+    static final String FORMAT_PREFIX = "2|";
+    private static final String KEY_PREFIX = FORMAT_PREFIX + "K|";
+    private static final String BYTES_PREFIX = FORMAT_PREFIX + "B|";
+
+    private MaterialCodec() {
+    }
+
+    static String encode(ItemStack item) {
+        if (item.getAmount() == 1 && !item.hasItemMeta()) {
+            return KEY_PREFIX + item.getType().getKey();
+        }
+        return BYTES_PREFIX + Base64.getEncoder().encodeToString(item.serializeAsBytes());
+    }
+
+    /**
+     * Decodes a stored value in either the current or the legacy format.
+     *
+     * @throws IOException If the value is malformed or names an unknown material.
+     */
+    static ItemStack decode(String stored) throws IOException {
+        if (stored.startsWith(KEY_PREFIX)) {
+            Material material = Material.matchMaterial(stored.substring(KEY_PREFIX.length()));
+            if (material == null) {
+                throw new IOException("Unknown material key: " + stored.substring(KEY_PREFIX.length()));
+            }
+            return new ItemStack(material);
+        }
+        if (stored.startsWith(BYTES_PREFIX)) {
+            try {
+                return ItemStack.deserializeBytes(Base64.getDecoder().decode(stored.substring(BYTES_PREFIX.length())));
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid item bytes: " + e.getMessage(), e);
+            }
+        }
+        try {
+            return decodeLegacy(stored);
+        } catch (ClassNotFoundException | RuntimeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    // The pre-version-2 format, kept for reading old rows and for benchmark comparisons
+    static String encodeLegacy(ItemStack item) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
+            dataOutput.writeObject(item);
+        }
+        return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+    }
+
+    static ItemStack decodeLegacy(String base64Material) throws IOException, ClassNotFoundException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(base64Material));
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
+            return (ItemStack) dataInput.readObject();
+        }
+    }
+}
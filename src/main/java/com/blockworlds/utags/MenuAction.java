@@ -0,0 +1,43 @@
+package com.blockworlds.utags;
+
+/**
+ * What a menu slot does when clicked, recorded in the {@link UTagsMenuHolder} when the menu is built.
+ */
+public final class MenuAction {
+
+    public enum Type {
+        EDIT_TAG,            // Admin tag list entry; value = tag name
+        REVIEW_REQUEST,      // Requests menu entry; value = request id
+        SELECT_TAG,          // Tag the player may wear; value = tag name
+        LOCKED_TAG,          // Public tag shown without permission; value = tag name
+        REQUEST_CUSTOM_SLOT, // Unlocked custom tag slot with no tag yet; value = 0-based slot index
+        LOCKED_CUSTOM_SLOT,  // Custom tag slot the player hasn't unlocked; value = 0-based slot index
+        PREVIOUS_PAGE,
+        NEXT_PAGE,
+        SWITCH_TYPE,         // Switch between the prefix and suffix menus
+        REMOVE_TAG,          // Remove the player's current tag of the menu's type
+        OPEN_NAME_COLOR,
+        TOGGLE_VISIBILITY,   // Toggle showing locked public tags
+        SEARCH               // Prompt for a search query; right-click clears the current one
+    }
+
+    private final Type type;
+    private final String value;
+
+    public MenuAction(Type type) {
+        this(type, null);
+    }
+
+    public MenuAction(Type type, String value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.blockworlds.utags;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * The only inventory click listener uTags registers. Non-uTags inventories leave after one
+ * instanceof check on the holder; uTags menus are dispatched by {@link UTagsMenuHolder.Kind}.
+ */
+public class MenuClickListener implements Listener {
+
+    private final UTagsMetrics metrics;
+    private final TagMenuListener tagMenuListener;
+    private final AdminMenuListener adminMenuListener;
+    private final TagColorMenuListener tagColorMenuListener;
+    private final NameColorMenuListener nameColorMenuListener;
+    private final RequestMenuClickListener requestMenuClickListener;
+
+    public MenuClickListener(UTagsMetrics metrics, TagMenuListener tagMenuListener, AdminMenuListener adminMenuListener,
+                             TagColorMenuListener tagColorMenuListener, NameColorMenuListener nameColorMenuListener,
+                             RequestMenuClickListener requestMenuClickListener) {
+        this.metrics = metrics;
+        this.tagMenuListener = tagMenuListener;
+        this.adminMenuListener = adminMenuListener;
+        this.tagColorMenuListener = tagColorMenuListener;
+        this.nameColorMenuListener = nameColorMenuListener;
+        this.requestMenuClickListener = requestMenuClickListener;
+    }
+
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        // getHolder(false) skips the block state snapshot Paper would otherwise take for container inventories
+        InventoryHolder inventoryHolder = event.getInventory().getHolder(false);
+        if (!(inventoryHolder instanceof UTagsMenuHolder)) {
+            return;
+        }
+        if (!(event.getWhoClicked() instanceof Player)) {
+            return;
+        }
+        UTagsMenuHolder holder = (UTagsMenuHolder) inventoryHolder;
+
+        // Clicks outside the menu itself (player inventory, outside the window)
+        if (event.getRawSlot() < 0 || event.getRawSlot() >= event.getInventory().getSize()) {
+            if (holder.getKind().locksPlayerInventory()) {
+                event.setCancelled(true);
+            }
+            return;
+        }
+
+        event.setCancelled(true); // Cancel all clicks in uTags menus
+
+        ItemStack clickedItem = event.getCurrentItem();
+        if (clickedItem == null || clickedItem.getType() == Material.AIR || !clickedItem.hasItemMeta()) {
+            return; // Ignore clicks on empty slots or items without meta
+        }
+
+        // Includes any menu the click opens, since that also runs on this tick
+        long clickStart = metrics.start();
+        switch (holder.getKind()) {
+            case TAG_SELECTION:
+            case REQUEST_CONFIRMATION:
+                tagMenuListener.handleClick(event, holder);
+                break;
+            case TAG_COLOR:
+                tagColorMenuListener.handleClick(event, holder);
+                break;
+            case NAME_COLOR:
+                nameColorMenuListener.handleClick(event, holder);
+                break;
+            case REQUESTS:
+                requestMenuClickListener.handleClick(event, holder);
+                break;
+            case ADMIN_MAIN:
+            case ADMIN_TAG_LIST:
+            case ADMIN_TAG_EDITOR:
+            case ADMIN_DELETE_CONFIRM:
+            case ADMIN_PURGE_TYPE:
+            case ADMIN_PURGE_CONFIRM:
+            case ADMIN_CREATE_WIZARD:
+                adminMenuListener.handleClick(event, holder);
+                break;
+            default:
+                break;
+        }
+        metrics.record(UTagsMetrics.Timer.MENU_CLICK, clickStart);
+    }
+}
@@ -0,0 +1,109 @@
+package com.blockworlds.utags;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * MySQL / MariaDB storage, the default. Also used with H2 in MySQL mode for local runs and benchmarks.
+ */
+final class MySqlStorage extends SqlStorage {
+
+    MySqlStorage(HikariDataSource dataSource, Logger logger) {
+        super(dataSource, logger);
+    }
+
+    @Override
+    String describe() {
+        return "MySQL";
+    }
+
+    @Override
+    protected String[] createTableStatements() {
+        return new String[]{
+                "CREATE TABLE IF NOT EXISTS `tags` (" +
+                        "`id` INT AUTO_INCREMENT PRIMARY KEY," +
+                        "`name` VARCHAR(255) NOT NULL," +
+                        "`display` VARCHAR(255) NOT NULL," +
+                        "`type` ENUM('prefix', 'suffix', 'both') NOT NULL," +
+                        "`public` BOOLEAN NOT NULL," +
+                        "`color` BOOLEAN NOT NULL," +
+                        "`material` MEDIUMTEXT NOT NULL," +
+                        "`weight` INT NOT NULL" +
+                        ");",
+                createRequestsTableSql(),
+                "CREATE TABLE IF NOT EXISTS `player_preferences` ("
+                        + "`player_uuid` VARCHAR(36) PRIMARY KEY NOT NULL,"
+                        + "`name_color_code` VARCHAR(2) NULL" // Allow NULL for reset/default
+                        + ");",
+                "CREATE TABLE IF NOT EXISTS `player_tag_color_preferences` (" +
+                        "`player_uuid` VARCHAR(36) NOT NULL," +
+                        "`tag_name` VARCHAR(255) NOT NULL," +
+                        "`bracket_color_code` VARCHAR(2) NULL," +
+                        "`content_color_code` VARCHAR(2) NULL," +
+                        "PRIMARY KEY (`player_uuid`, `tag_name`)" +
+                        ");"
+        };
+    }
+
+    // A purged tags table is recreated keyed by name, so REPLACE INTO replaces instead of duplicating
+    @Override
+    protected String createTagsTableSql() {
+        return "CREATE TABLE IF NOT EXISTS tags (" +
+                "`name` VARCHAR(255) PRIMARY KEY," +
+                "`display` VARCHAR(255) NOT NULL," +
+                "`type` ENUM('prefix', 'suffix', 'both') NOT NULL," +
+                "`public` BOOLEAN NOT NULL," +
+                "`color` BOOLEAN NOT NULL," +
+                "`material` MEDIUMTEXT NOT NULL," +
+                "`weight` INT NOT NULL" +
+                ");";
+    }
+
+    @Override
+    protected String createRequestsTableSql() {
+        return "CREATE TABLE IF NOT EXISTS `tag_requests` ("
+                + "`id` INT AUTO_INCREMENT PRIMARY KEY,"
+                + "`player_uuid` VARCHAR(36) NOT NULL,"
+                + "`player_name` VARCHAR(255) NOT NULL,"
+                + "`tag_display` VARCHAR(255) NOT NULL);";
+    }
+
+    @Override
+    protected String upsertTagSql() {
+        return "REPLACE INTO tags (name, display, type, public, color, material, weight) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    protected String upsertNameColorSql() {
+        return "REPLACE INTO player_preferences (player_uuid, name_color_code) VALUES (?, ?)";
+    }
+
+    @Override
+    protected String upsertTagColorSql() {
+        return "INSERT INTO player_tag_color_preferences (player_uuid, tag_name, bracket_color_code, content_color_code) " +
+                "VALUES (?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE bracket_color_code = VALUES(bracket_color_code), content_color_code = VALUES(content_color_code)";
+    }
+
+    // Very old tables either lack the column or have it as a shorter text type
+    @Override
+    void ensureMaterialColumn(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String typeName = null;
+        try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null, "tags", "material")) {
+            if (resultSet.next()) {
+                typeName = resultSet.getString("TYPE_NAME");
+            }
+        }
+        if (typeName == null) {
+            SchemaMigrator.executeUpdate(connection, "ALTER TABLE tags ADD COLUMN `material` MEDIUMTEXT NOT NULL");
+        } else if (!typeName.equalsIgnoreCase("MEDIUMTEXT") && !typeName.equalsIgnoreCase("LONGTEXT")) {
+            SchemaMigrator.executeUpdate(connection, "ALTER TABLE tags MODIFY COLUMN `material` MEDIUMTEXT NOT NULL");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.blockworlds.utags;
+
+import java.util.UUID;
+
+/**
+ * Name colour codes of online (and recently online) players, keyed by the two halves of the UUID.
+ * An open-addressing table of parallel arrays, so an entry costs two longs, an expiry time and a
+ * reference to a shared, interned code string instead of a UUID object and a map node.
+ *
+ * Entries are added when a profile is loaded and pinned while the player is online. On quit they are
+ * given an expiry time and removed by {@link #evictExpired(long)} once it passes, unless the player
+ * comes back first. Thread-safe; every method is synchronized, and all of them are O(1) except the sweep.
+ */
+final class NameColorCache {
+
+    // Marks a loaded player with no preference, so that a miss always means "not loaded"
+    private static final String NO_COLOR = "";
+    private static final int MIN_CAPACITY = 64;
+
+    private long[] mostSigBits;
+    private long[] leastSigBits;
+    private String[] codes;   // null = free slot
+    private long[] expiresAt; // 0 = pinned (player online)
+    private int size;
+
+    NameColorCache() {
+        allocate(MIN_CAPACITY);
+    }
+
+    synchronized boolean isLoaded(UUID playerUuid) {
+        return indexOf(playerUuid) >= 0;
+    }
+
+    /**
+     * @return The cached colour code, or null if the player has none or is not loaded.
+     */
+    synchronized String get(UUID playerUuid) {
+        int index = indexOf(playerUuid);
+        return index < 0 || codes[index] == NO_COLOR ? null : codes[index];
+    }
+
+    /**
+     * Stores a player's code (null for no preference) and pins the entry until {@link #expire} is called.
+     */
+    synchronized void put(UUID playerUuid, String colorCode) {
+        store(playerUuid, colorCode, 0L);
+    }
+
+    /**
+     * Stores a player's code unpinned, so the sweep removes it after {@code expiresAtMillis} unless
+     * {@link #put} pins it first. Used at pre-login, before it is known whether the player gets in.
+     */
+    synchronized void putUnpinned(UUID playerUuid, String colorCode, long expiresAtMillis) {
+        store(playerUuid, colorCode, Math.max(1L, expiresAtMillis));
+    }
+
+    private void store(UUID playerUuid, String colorCode, long expiry) {
+        String value = colorCode == null || colorCode.isEmpty() ? NO_COLOR : colorCode.intern();
+        int index = indexOf(playerUuid);
+        if (index >= 0) {
+            codes[index] = value;
+            expiresAt[index] = expiry;
+            return;
+        }
+        if ((size + 1) * 2 > codes.length) {
+            resize(codes.length * 2);
+        }
+        insert(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits(), value, expiry);
+        size++;
+    }
+
+    synchronized void remove(UUID playerUuid) {
+        int index = indexOf(playerUuid);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Unpins a player's entry so the next sweep after {@code expiresAtMillis} removes it.
+     */
+    synchronized void expire(UUID playerUuid, long expiresAtMillis) {
+        int index = indexOf(playerUuid);
+        if (index >= 0) {
+            expiresAt[index] = Math.max(1L, expiresAtMillis);
+        }
+    }
+
+    /**
+     * Removes every unpinned entry whose expiry time has passed, shrinking the table if it is mostly empty.
+     *
+     * @return The number of entries removed.
+     */
+    synchronized int evictExpired(long nowMillis) {
+        int removed = 0;
+        for (int i = 0; i < codes.length; i++) {
+            // Backward-shift deletion can move a later entry into slot i, so re-check it
+            while (codes[i] != null && expiresAt[i] != 0L && expiresAt[i] <= nowMillis) {
+                removeAt(i);
+                removed++;
+            }
+        }
+        if (codes.length > MIN_CAPACITY && size * 8 < codes.length) {
+            resize(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) * 4)));
+        }
+        return removed;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int capacity() {
+        return codes.length;
+    }
+
+    private int indexOf(UUID playerUuid) {
+        long msb = playerUuid.getMostSignificantBits();
+        long lsb = playerUuid.getLeastSignificantBits();
+        int mask = codes.length - 1;
+        for (int i = slot(msb, lsb, mask); codes[i] != null; i = (i + 1) & mask) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long msb, long lsb, String value, long expiry) {
+        int mask = codes.length - 1;
+        int i = slot(msb, lsb, mask);
+        while (codes[i] != null) {
+            i = (i + 1) & mask;
+        }
+        mostSigBits[i] = msb;
+        leastSigBits[i] = lsb;
+        codes[i] = value;
+        expiresAt[i] = expiry;
+    }
+
+    // Linear probing delete: shift later entries of the same run back so lookups never need tombstones
+    private void removeAt(int index) {
+        int mask = codes.length - 1;
+        int gap = index;
+        int i = (index + 1) & mask;
+        while (codes[i] != null) {
+            int home = slot(mostSigBits[i], leastSigBits[i], mask);
+            // Move the entry into the gap unless its home slot lies cyclically in (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                mostSigBits[gap] = mostSigBits[i];
+                leastSigBits[gap] = leastSigBits[i];
+                codes[gap] = codes[i];
+                expiresAt[gap] = expiresAt[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        codes[gap] = null;
+        size--;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldMsb = mostSigBits;
+        long[] oldLsb = leastSigBits;
+        String[] oldCodes = codes;
+        long[] oldExpiry = expiresAt;
+        allocate(newCapacity);
+        for (int i = 0; i < oldCodes.length; i++) {
+            if (oldCodes[i] != null) {
+                insert(oldMsb[i], oldLsb[i], oldCodes[i], oldExpiry[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSigBits = new long[capacity];
+        leastSigBits = new long[capacity];
+        codes = new String[capacity];
+        expiresAt = new long[capacity];
+    }
+
+    // Random UUIDs are already well mixed; the multiply spreads sequential offline-mode ids
+    private static int slot(long msb, long lsb, int mask) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
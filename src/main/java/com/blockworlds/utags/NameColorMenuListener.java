@@ -1,18 +1,14 @@
 package com.blockworlds.utags;
 
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.Map;
 
-public class NameColorMenuListener implements Listener {
+public class NameColorMenuListener {
 
     private final uTags plugin;
 
@@ -21,54 +17,44 @@ public class NameColorMenuListener implements Listener {
         this.plugin = plugin;
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
-            return;
-        }
-
+    /**
+     * Handles a click in the name color menu. Called by {@link MenuClickListener}.
+     */
+    void handleClick(InventoryClickEvent event, UTagsMenuHolder holder) {
         Player player = (Player) event.getWhoClicked();
-        Inventory clickedInventory = event.getClickedInventory();
         ItemStack clickedItem = event.getCurrentItem();
 
-        // Check if the clicked inventory is the Name Color Menu
-        if (clickedInventory != null && event.getView().getTitle().equals(NameColorMenuManager.MENU_TITLE)) {
-            // Prevent taking items from the menu
-            event.setCancelled(true);
-
-            if (clickedItem == null || clickedItem.getType() == Material.AIR || !clickedItem.hasItemMeta()) {
-                return; // Ignore clicks on empty slots or items without meta
-            }
-
-            ItemMeta meta = clickedItem.getItemMeta();
-            if (meta == null || !meta.hasDisplayName()) {
-                return; // Ignore items without a display name
-            }
-
-            String displayName = meta.getDisplayName();
-            String strippedName = ChatColor.stripColor(displayName); // Get the plain color name (e.g., "Light Blue")
-            String colorCode = findColorCodeByName(strippedName);
+        ItemMeta meta = clickedItem.getItemMeta();
+        if (meta == null || !meta.hasDisplayName()) {
+            return; // Ignore items without a display name
+        }
 
-            if (colorCode == null) {
-                player.sendMessage(ChatColor.RED + "Could not determine the color code for the selected item.");
-                plugin.getLogger().warning("Could not find color code for item display name: " + displayName + " (Stripped: " + strippedName + ")");
-                return;
-            }
+        String displayName = meta.getDisplayName();
+        String strippedName = ChatColor.stripColor(displayName); // Get the plain color name (e.g., "Light Blue")
+        String colorCode = findColorCodeByName(strippedName);
 
-            // Permission check (redundant if menu only shows permitted items, but good practice)
-            String permissionNode = "utags.namecolor." + strippedName.toLowerCase().replace(" ", "_");
-            if (!player.hasPermission(permissionNode)) {
-                player.sendMessage(ChatColor.RED + "You do not have permission to use this name color.");
-                return;
-            }
+        if (colorCode == null) {
+            player.sendMessage(ChatColor.RED + "Could not determine the color code for the selected item.");
+            plugin.getLogger().warning("Could not find color code for item display name: " + displayName + " (Stripped: " + strippedName + ")");
+            return;
+        }
 
-            // Update player's preference and display name
-            plugin.savePlayerNameColorCode(player.getUniqueId(), colorCode); // Persist preference
-            plugin.updatePlayerDisplayName(player); // Apply change immediately
+        // Permission check (redundant if menu only shows permitted items, but good practice)
+        String permissionNode = "utags.namecolor." + strippedName.toLowerCase().replace(" ", "_");
+        if (!player.hasPermission(permissionNode)) {
+            player.sendMessage(ChatColor.RED + "You do not have permission to use this name color.");
+            return;
+        }
 
-            player.sendMessage(ChatColor.GREEN + "Your name color has been updated to " + ChatColor.translateAlternateColorCodes('&', colorCode) + strippedName + ChatColor.GREEN + "!");
-            player.closeInventory();
+        // Update player's preference and display name
+        if (!plugin.savePlayerNameColorCode(player.getUniqueId(), colorCode)) { // Persist preference
+            player.sendMessage(ChatColor.RED + "The server is busy; your name color was not changed. Try again in a moment.");
+            return;
         }
+        plugin.updatePlayerDisplayName(player); // Apply change immediately
+
+        player.sendMessage(ChatColor.GREEN + "Your name color has been updated to " + ChatColor.translateAlternateColorCodes('&', colorCode) + strippedName + ChatColor.GREEN + "!");
+        player.closeInventory();
     }
 
     /**
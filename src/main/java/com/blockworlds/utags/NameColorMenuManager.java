@@ -1,6 +1,5 @@
 package com.blockworlds.utags;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -47,7 +46,7 @@ public class NameColorMenuManager {
 
         int size = (int) Math.ceil(availableColors.size() / 9.0) * 9;
         size = Math.max(9, Math.min(size, 54)); // Ensure size is between 9 and 54
-        Inventory menu = Bukkit.createInventory(null, size, MENU_TITLE);
+        Inventory menu = new UTagsMenuHolder(UTagsMenuHolder.Kind.NAME_COLOR).createInventory(size, MENU_TITLE);
 
         int slot = 0;
         for (Map.Entry<String, String> entry : availableColors.entrySet()) {
@@ -0,0 +1,79 @@
+package com.blockworlds.utags;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory mirror of the tag_requests table, ordered by request id.
+ * Loaded once on startup and then kept in step by every method in {@link uTags}
+ * that writes to the table, so notifications and the requests GUI never query the database.
+ */
+public class PendingRequestCache {
+
+    private final ConcurrentSkipListMap<Integer, CustomTagRequest> requests = new ConcurrentSkipListMap<>();
+
+    /**
+     * Replaces the cache contents with a fresh load from the database.
+     */
+    public void replaceAll(Collection<CustomTagRequest> loaded) {
+        requests.clear();
+        for (CustomTagRequest request : loaded) {
+            requests.put(request.getId(), request);
+        }
+    }
+
+    /**
+     * Adds or replaces a request. A player only has one open request, so any other
+     * entry for the same player is dropped.
+     */
+    public void put(CustomTagRequest request) {
+        requests.values().removeIf(existing -> existing.getPlayerUuid().equals(request.getPlayerUuid()) && existing.getId() != request.getId());
+        requests.put(request.getId(), request);
+    }
+
+    /**
+     * @return The pending request with this id, or null if it was handled or removed.
+     */
+    public CustomTagRequest get(int requestId) {
+        return requests.get(requestId);
+    }
+
+    public void remove(int requestId) {
+        requests.remove(requestId);
+    }
+
+    public void clear() {
+        requests.clear();
+    }
+
+    public boolean isEmpty() {
+        return requests.isEmpty();
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * @return A copy of the pending requests, oldest first.
+     */
+    public List<CustomTagRequest> getAll() {
+        return new ArrayList<>(requests.values());
+    }
+
+    /**
+     * Finds a request by player name (case-insensitive, like the old SQL lookup).
+     *
+     * @return The request, or null if the player has none pending.
+     */
+    public CustomTagRequest getByPlayerName(String playerName) {
+        for (CustomTagRequest request : requests.values()) {
+            if (request.getPlayerName().equalsIgnoreCase(playerName)) {
+                return request;
+            }
+        }
+        return null;
+    }
+}
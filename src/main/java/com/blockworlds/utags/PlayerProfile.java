@@ -0,0 +1,63 @@
+package com.blockworlds.utags;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of everything uTags needs for a player when they join,
+ * loaded in one pass by {@link PlayerProfileLoader}.
+ */
+public final class PlayerProfile {
+
+    private final UUID playerUuid;
+    private final String playerName;
+    private final Map<String, PlayerTagColorPreference> tagColorPreferences;
+    private final String nameColorCode;
+    private final String appliedPrefixTagName;
+    private final long loadedAt;
+
+    public PlayerProfile(UUID playerUuid, String playerName, Map<String, PlayerTagColorPreference> tagColorPreferences,
+                         String nameColorCode, String appliedPrefixTagName) {
+        this.playerUuid = playerUuid;
+        this.playerName = playerName;
+        this.tagColorPreferences = Collections.unmodifiableMap(new HashMap<>(tagColorPreferences));
+        this.nameColorCode = nameColorCode;
+        this.appliedPrefixTagName = appliedPrefixTagName;
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    public UUID getPlayerUuid() {
+        return playerUuid;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * @return The player's stored tag color preferences, keyed by tag name. Read-only.
+     */
+    public Map<String, PlayerTagColorPreference> getTagColorPreferences() {
+        return tagColorPreferences;
+    }
+
+    /**
+     * @return The stored name color code (e.g. "&a"), or null for the default color.
+     */
+    public String getNameColorCode() {
+        return nameColorCode;
+    }
+
+    /**
+     * @return The name of the uTags prefix the player is wearing according to LuckPerms, or null.
+     */
+    public String getAppliedPrefixTagName() {
+        return appliedPrefixTagName;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.blockworlds.utags;
+
+import net.luckperms.api.model.user.User;
+import org.bukkit.ChatColor;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds a {@link PlayerProfile} in one pass: the preference queries run back to back on a single
+ * borrowed connection ({@link PreferenceStorage#loadPreferences}), followed by the LuckPerms prefix lookup.
+ * Blocks the calling thread, so only call it from the async pre-login thread or the I/O executor.
+ */
+public class PlayerProfileLoader {
+
+    private final uTags plugin;
+
+    public PlayerProfileLoader(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    public PlayerProfile load(UUID playerUuid, String playerName) {
+        Map<String, PlayerTagColorPreference> tagColors = new HashMap<>();
+        // Fall back to the cached value (set if the player was already online) if the query below fails
+        String nameColorCode = plugin.getPlayerNameColorCode(playerUuid);
+
+        try {
+            nameColorCode = plugin.getPreferenceStorage().loadPreferences(playerUuid, tagColors);
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to load player profile for " + playerName + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        String appliedTagName = resolveAppliedPrefixTagName(playerUuid);
+        if (!tagColors.isEmpty()) {
+            plugin.getDebugLogger().log(DebugLogger.Category.PROFILE, playerUuid, () ->
+                    "Loaded " + tagColors.size() + " tag color preferences for " + playerName);
+        }
+        return new PlayerProfile(playerUuid, playerName, tagColors, nameColorCode, appliedTagName);
+    }
+
+    /**
+     * Works out which uTags prefix the player is wearing by matching their LuckPerms prefix
+     * (minus the trailing name color code) against the tag catalog.
+     */
+    private String resolveAppliedPrefixTagName(UUID playerUuid) {
+        User user = plugin.getLuckPerms().getUserManager().getUser(playerUuid);
+        if (user == null) {
+            try {
+                user = plugin.getLuckPerms().getUserManager().loadUser(playerUuid).join();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Could not load LuckPerms user " + playerUuid + " for profile: " + e.getMessage());
+                return null;
+            }
+        }
+        if (user == null) {
+            return null;
+        }
+
+        String currentPrefix = user.getCachedData().getMetaData().getPrefix();
+        if (currentPrefix == null || currentPrefix.length() <= 2) {
+            return null;
+        }
+        // Check if the last 2 characters form a valid color code (§X or &X)
+        int prefixLen = currentPrefix.length();
+        char potentialColorChar = currentPrefix.charAt(prefixLen - 2);
+        char potentialCodeChar = currentPrefix.charAt(prefixLen - 1);
+        String potentialDisplay;
+        if ((potentialColorChar == ChatColor.COLOR_CHAR || potentialColorChar == '&')
+                && "0123456789abcdefABCDEFkKlLmMnNoOrR".indexOf(potentialCodeChar) != -1) {
+            potentialDisplay = currentPrefix.substring(0, prefixLen - 2);
+        } else {
+            potentialDisplay = currentPrefix;
+        }
+        return plugin.getTagNameByDisplay(potentialDisplay);
+    }
+
+    // Converts a stored "&x" code back into a ChatColor; null for missing or malformed codes
+    static ChatColor parseStoredColorCode(String code) {
+        return (code != null && code.length() == 2) ? ChatColor.getByChar(code.charAt(1)) : null;
+    }
+}
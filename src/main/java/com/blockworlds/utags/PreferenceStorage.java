@@ -0,0 +1,57 @@
+package com.blockworlds.utags;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persistence for per-player name colours and tag colour overrides.
+ * Blocking, like {@link TagStorage}.
+ */
+public interface PreferenceStorage {
+
+    /**
+     * Reads everything a joining player needs in one connection.
+     *
+     * @param tagColors Receives the player's tag colour overrides.
+     * @return The stored name colour code, or null if none is set.
+     */
+    String loadPreferences(UUID playerUuid, Map<String, PlayerTagColorPreference> tagColors) throws SQLException;
+
+    /**
+     * @return The stored name colour code, or null if none is set.
+     */
+    String loadNameColor(UUID playerUuid) throws SQLException;
+
+    /**
+     * @param colorCode The code (e.g. "&a"), or null to reset to the default.
+     */
+    void saveNameColor(UUID playerUuid, String colorCode) throws SQLException;
+
+    /**
+     * Upserts or deletes tag colour rows in one transaction.
+     */
+    void writeTagColors(Collection<TagColorChange> changes) throws SQLException;
+
+    /**
+     * One coalesced row of player_tag_color_preferences; both codes null means delete the row.
+     */
+    final class TagColorChange {
+        final UUID playerUuid;
+        final String tagName;
+        final String bracketCode;
+        final String contentCode;
+
+        TagColorChange(UUID playerUuid, String tagName, String bracketCode, String contentCode) {
+            this.playerUuid = playerUuid;
+            this.tagName = tagName;
+            this.bracketCode = bracketCode;
+            this.contentCode = contentCode;
+        }
+
+        boolean isDelete() {
+            return bracketCode == null && contentCode == null;
+        }
+    }
+}
@@ -1,14 +1,11 @@
 package com.blockworlds.utags;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
 
-public class RequestMenuClickListener implements Listener {
+public class RequestMenuClickListener {
 
     private final uTags plugin;
 
@@ -16,47 +13,41 @@ public class RequestMenuClickListener implements Listener {
         this.plugin = plugin;
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        // Check if the clicker is a player
-        if (!(event.getWhoClicked() instanceof Player)) {
-            return;
-        }
-        
-        Inventory inventory = event.getClickedInventory();
+    /**
+     * Handles a click in the requests menu. Each head was bound to its request id when the menu was built.
+     */
+    void handleClick(InventoryClickEvent event, UTagsMenuHolder holder) {
         Player player = (Player) event.getWhoClicked();
 
-        if (inventory == null || !event.getView().getTitle().contains("Custom Tag Requests")) {
+        MenuAction action = holder.getSlotAction(event.getRawSlot());
+        if (action == null || action.getType() != MenuAction.Type.REVIEW_REQUEST) {
             return;
         }
-
-        event.setCancelled(true);
-
-        ItemStack clickedItem = event.getCurrentItem();
-        if (clickedItem == null) {
-            return;
-        }
-
-        String playerName = ChatColor.stripColor(clickedItem.getItemMeta().getDisplayName());
-        CustomTagRequest request = plugin.getCustomTagRequestByPlayerName(playerName);
+        CustomTagRequest request = plugin.getCustomTagRequestById(Integer.parseInt(action.getValue()));
 
         if (request == null) {
-            player.sendMessage(ChatColor.RED + "An error occurred. Please try again.");
+            // Handled by another staff member since this menu was opened
+            player.sendMessage(ChatColor.RED + "That request is no longer pending.");
+            plugin.openRequestsMenu(player);
             return;
         }
 
         if (event.isLeftClick()) {
-            // Accept the custom tag request
-            plugin.acceptCustomTagRequest(request);
-            player.sendMessage(ChatColor.GREEN + "Custom tag request accepted.");
+            // Accept the custom tag request; the database work runs on the I/O executor
+            plugin.acceptCustomTagRequest(request).thenAccept(accepted -> Bukkit.getScheduler().runTask(plugin, () ->
+                    player.sendMessage(accepted
+                            ? ChatColor.GREEN + "Custom tag request accepted."
+                            : ChatColor.RED + "Could not accept the request from " + request.getPlayerName() + "; see the console.")));
 
         } else if (event.isRightClick()) {
             // Deny the custom tag request
-            plugin.denyCustomTagRequest(request);
-            player.sendMessage(ChatColor.RED + "Custom tag request denied.");
+            plugin.denyCustomTagRequest(request).thenAccept(denied -> Bukkit.getScheduler().runTask(plugin, () ->
+                    player.sendMessage(denied
+                            ? ChatColor.RED + "Custom tag request denied."
+                            : ChatColor.RED + "Could not deny the request from " + request.getPlayerName() + "; see the console.")));
         }
 
-        // Update the requests menu
+        // Update the requests menu; the request already left the pending cache
         plugin.openRequestsMenu(player);
     }
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.blockworlds.utags;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Applies numbered schema migrations in order and records each one in {@code utags_schema_migrations},
+ * so the database itself knows which changes it has (several servers can share one database; the old
+ * {@code database.schema} key in each config.yml could not express that).
+ *
+ * Every step checks the current schema before changing it, because MySQL commits DDL immediately and a
+ * migration interrupted halfway must be safe to run again. Versions are never renumbered or reused:
+ * add new migrations to the end of {@link #MIGRATIONS}.
+ */
+final class SchemaMigrator {
+
+    private static final String TABLE = "utags_schema_migrations";
+    // Names listed in the log line when duplicates are deleted; the count is always logged in full
+    private static final int MAX_LOGGED_NAMES = 20;
+
+    private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+            new Migration(1, "tags.material column", (connection, storage, logger) -> storage.ensureMaterialColumn(connection)),
+            new Migration(2, "unique index on tags.name", (connection, storage, logger) -> {
+                // The old tags table had no unique key, so REPLACE INTO never replaced anything and saving an
+                // existing name added another row. The index needs one row per name: keep the newest (highest id)
+                if (hasColumn(connection, "tags", "id")) {
+                    deleteDuplicates(connection, logger, "tags", "name", "MAX", "name");
+                }
+                createIndexIfMissing(connection, "tags", "idx_tags_name", true, "name");
+            }),
+            new Migration(3, "index on tags.display", (connection, storage, logger) ->
+                    createIndexIfMissing(connection, "tags", "idx_tags_display", false, "display")),
+            new Migration(4, "indexes on tag_requests.player_uuid and player_name", (connection, storage, logger) -> {
+                // uTags keeps one request per player; drop any extra rows, keeping the oldest id
+                deleteDuplicates(connection, logger, "tag_requests", "player_uuid", "MIN", "player_name");
+                createIndexIfMissing(connection, "tag_requests", "idx_tag_requests_player_uuid", true, "player_uuid");
+                createIndexIfMissing(connection, "tag_requests", "idx_tag_requests_player_name", false, "player_name");
+            })
+    ));
+
+    private final SqlStorage storage;
+    private final Logger logger;
+
+    SchemaMigrator(SqlStorage storage, Logger logger) {
+        this.storage = storage;
+        this.logger = logger;
+    }
+
+    /**
+     * Applies every migration not yet recorded.
+     *
+     * @return The number of migrations applied.
+     */
+    int migrate() throws SQLException {
+        try (Connection connection = storage.getConnection()) {
+            executeUpdate(connection, "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                    + "version INT PRIMARY KEY NOT NULL,"
+                    + "description VARCHAR(255) NOT NULL,"
+                    + "applied_at BIGINT NOT NULL)");
+            Set<Integer> applied = appliedVersions(connection);
+
+            int count = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (applied.contains(migration.version)) {
+                    continue;
+                }
+                logger.info("Applying schema migration " + migration.version + ": " + migration.description);
+                connection.setAutoCommit(false);
+                try {
+                    migration.step.apply(connection, storage, logger);
+                    record(connection, migration);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw new SQLException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Recreates the indexes added by migrations 2-4 on a table that was just dropped and recreated
+     * (the purge commands). The table is empty, so no deduplication is needed.
+     */
+    static void restoreIndexes(Connection connection, String table) throws SQLException {
+        if (table.equals("tags")) {
+            createIndexIfMissing(connection, "tags", "idx_tags_name", true, "name");
+            createIndexIfMissing(connection, "tags", "idx_tags_display", false, "display");
+        } else if (table.equals("tag_requests")) {
+            createIndexIfMissing(connection, "tag_requests", "idx_tag_requests_player_uuid", true, "player_uuid");
+            createIndexIfMissing(connection, "tag_requests", "idx_tag_requests_player_name", false, "player_name");
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection connection) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version FROM " + TABLE)) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static void record(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (version, description, applied_at) VALUES (?, ?, ?)")) {
+            statement.setInt(1, migration.version);
+            statement.setString(2, migration.description);
+            statement.setLong(3, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+    }
+
+    // --- Idempotent helpers ---
+
+    /**
+     * Deletes every row of {@code table} except one per {@code keyColumn} value (the {@code keep}, MIN or MAX, id).
+     * The rows cannot be recovered afterwards, so the count and the affected {@code nameColumn} values are logged.
+     *
+     * @return The number of rows deleted.
+     */
+    static int deleteDuplicates(Connection connection, Logger logger, String table, String keyColumn, String keep,
+                                String nameColumn) throws SQLException {
+        String duplicates = "FROM " + table + " WHERE id NOT IN (SELECT keep_id FROM (SELECT " + keep + "(id) AS keep_id FROM "
+                + table + " GROUP BY " + keyColumn + ") AS kept)";
+        Set<String> names = new LinkedHashSet<>();
+        boolean moreNames = false;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + nameColumn + " " + duplicates)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(1);
+                if (names.size() < MAX_LOGGED_NAMES) {
+                    names.add(name);
+                } else if (!names.contains(name)) {
+                    moreNames = true;
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return 0;
+        }
+
+        int deleted;
+        try (Statement statement = connection.createStatement()) {
+            deleted = statement.executeUpdate("DELETE " + duplicates);
+        }
+        logger.warning("Deleted " + deleted + " duplicate row(s) from " + table + " so " + keyColumn + " can be unique ("
+                + ("MAX".equals(keep) ? "kept the newest" : "kept the oldest") + " of each). Affected " + nameColumn + ": "
+                + String.join(", ", names) + (moreNames ? ", ..." : ""));
+        return deleted;
+    }
+
+    static void executeUpdate(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                while (columns.next()) {
+                    if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the index unless one with the same name exists, or an index (of at least the same
+     * uniqueness) already starts with the same column, e.g. a primary key on it.
+     */
+    static void createIndexIfMissing(Connection connection, String table, String indexName, boolean unique, String... columns) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        // Some drivers report upper-case table names (H2); MySQL and SQLite keep the given case
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, name, unique, false)) {
+                while (indexes.next()) {
+                    String existing = indexes.getString("INDEX_NAME");
+                    if (indexName.equalsIgnoreCase(existing)) {
+                        return;
+                    }
+                    if (indexes.getShort("ORDINAL_POSITION") == 1 && columns[0].equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                        return;
+                    }
+                }
+            }
+        }
+        executeUpdate(connection, "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName
+                + " ON " + table + " (" + String.join(", ", columns) + ")");
+    }
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection connection, SqlStorage storage, Logger logger) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.blockworlds.utags;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * JDBC implementation of both storage interfaces over one pooled {@link HikariDataSource}.
+ * The queries here are plain SQL that MySQL, SQLite and H2 all accept; table definitions and
+ * upserts differ per database and come from the {@link MySqlStorage} / {@link SqliteStorage} subclasses.
+ */
+abstract class SqlStorage implements TagStorage, PreferenceStorage {
+
+    private static final Set<String> TAG_COLUMNS = new HashSet<>(Arrays.asList("name", "display", "type", "public", "color", "material", "weight"));
+    private static final String TAG_COLORS_SQL = "SELECT tag_name, bracket_color_code, content_color_code FROM player_tag_color_preferences WHERE player_uuid = ?";
+    private static final String NAME_COLOR_SQL = "SELECT name_color_code FROM player_preferences WHERE player_uuid = ?";
+    private static final String DELETE_TAG_COLOR_SQL = "DELETE FROM player_tag_color_preferences WHERE player_uuid = ? AND tag_name = ?";
+
+    protected final HikariDataSource dataSource;
+    protected final Logger logger;
+
+    SqlStorage(HikariDataSource dataSource, Logger logger) {
+        this.dataSource = dataSource;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the backend selected by {@code database.type}: {@code mysql} (default) or {@code sqlite},
+     * which stores everything in {@code database.file} inside the plugin folder.
+     */
+    static SqlStorage create(ConfigurationSection database, File dataFolder, MetricsTrackerFactory metricsFactory, Logger logger) {
+        if (database == null) {
+            database = new MemoryConfiguration(); // All defaults
+        }
+        String type = database.getString("type", "mysql").toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "sqlite":
+                File file = new File(dataFolder, database.getString("file", "utags.db"));
+                return new SqliteStorage(DataSourceFactory.createSqlite(file, database.getInt("pool-size", 4), metricsFactory, logger), logger);
+            case "mysql":
+                return new MySqlStorage(DataSourceFactory.create(database, metricsFactory, logger), logger);
+            default:
+                throw new IllegalArgumentException("Unknown database.type '" + type + "', expected mysql or sqlite");
+        }
+    }
+
+    // --- Dialect ---
+
+    /**
+     * @return The CREATE TABLE IF NOT EXISTS statements for every uTags table.
+     */
+    protected abstract String[] createTableStatements();
+
+    protected abstract String createTagsTableSql();
+
+    protected abstract String createRequestsTableSql();
+
+    /**
+     * Parameters: name, display, type, public, color, material, weight.
+     */
+    protected abstract String upsertTagSql();
+
+    /**
+     * Parameters: player_uuid, name_color_code.
+     */
+    protected abstract String upsertNameColorSql();
+
+    /**
+     * Parameters: player_uuid, tag_name, bracket_color_code, content_color_code.
+     */
+    protected abstract String upsertTagColorSql();
+
+    /**
+     * @return A short name for log messages, e.g. "MySQL".
+     */
+    abstract String describe();
+
+    // --- Lifecycle ---
+
+    Connection getConnection() throws SQLException {
+        if (dataSource.isClosed()) {
+            throw new SQLException("Database connection pool is not available");
+        }
+        return dataSource.getConnection();
+    }
+
+    void createTables() throws SQLException {
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : createTableStatements()) {
+                statement.executeUpdate(sql);
+            }
+        }
+    }
+
+    /**
+     * Brings the schema up to date with {@link SchemaMigrator}.
+     *
+     * @return The number of migrations applied.
+     */
+    int migrateSchema() throws SQLException {
+        return new SchemaMigrator(this, logger).migrate();
+    }
+
+    /**
+     * Migration 1: makes sure tags.material can hold a serialized item. Tables created by
+     * {@link #createTableStatements()} already can, so there is nothing to do by default.
+     */
+    void ensureMaterialColumn(Connection connection) throws SQLException {
+    }
+
+    void close() {
+        if (!dataSource.isClosed()) {
+            dataSource.close();
+        }
+    }
+
+    // --- Tags ---
+
+    @Override
+    public List<Tag> loadTags() throws SQLException {
+        List<Tag> tags = new ArrayList<>();
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM tags ORDER BY weight DESC")) {
+            while (resultSet.next()) {
+                tags.add(readTag(resultSet));
+            }
+        }
+        return tags;
+    }
+
+    private Tag readTag(ResultSet resultSet) throws SQLException {
+        String name = resultSet.getString("name");
+        String display = resultSet.getString("display");
+
+        // Handle case-insensitive enum values
+        String typeStr = resultSet.getString("type").toUpperCase(Locale.ROOT);
+        TagType type;
+        try {
+            type = TagType.valueOf(typeStr);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid tag type found in database: " + typeStr + ". Defaulting to PREFIX.");
+            type = TagType.PREFIX;
+        }
+
+        boolean isPublic = resultSet.getBoolean("public");
+        boolean color = resultSet.getBoolean("color");
+        ItemStack material = decodeMaterial(resultSet.getString("material"));
+        int weight = resultSet.getInt("weight");
+        return new Tag(name, display, type, isPublic, color, material, weight);
+    }
+
+    private ItemStack decodeMaterial(String storedMaterial) {
+        if (storedMaterial == null || storedMaterial.isEmpty()) {
+            logger.warning("Empty or null material data encountered, using default material.");
+            return new ItemStack(Material.NAME_TAG);
+        }
+        try {
+            return MaterialCodec.decode(storedMaterial);
+        } catch (Exception e) {
+            logger.warning("Error deserializing material: " + e.getMessage());
+            logger.info("Stored material length: " + storedMaterial.length());
+            logger.info("Stored material prefix: " +
+                    (storedMaterial.length() > 20 ? storedMaterial.substring(0, 20) + "..." : storedMaterial));
+            return new ItemStack(Material.NAME_TAG);
+        }
+    }
+
+    @Override
+    public void saveTag(Tag tag) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(upsertTagSql())) {
+            bindTag(statement, tag);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public int saveTags(List<Tag> tags) throws SQLException {
+        if (tags.isEmpty()) {
+            return 0;
+        }
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(upsertTagSql())) {
+                for (Tag tag : tags) {
+                    bindTag(statement, tag);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return tags.size();
+    }
+
+    private static void bindTag(PreparedStatement statement, Tag tag) throws SQLException {
+        statement.setString(1, tag.getName());
+        statement.setString(2, tag.getDisplay());
+        statement.setString(3, tag.getType().name().toLowerCase(Locale.ROOT));
+        statement.setBoolean(4, tag.isPublic());
+        statement.setBoolean(5, tag.isColor());
+        statement.setString(6, MaterialCodec.encode(tag.getMaterial()));
+        statement.setInt(7, tag.getWeight());
+    }
+
+    @Override
+    public void deleteTag(String tagName) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM tags WHERE name = ?")) {
+            statement.setString(1, tagName);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void purgeTags() throws SQLException {
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS tags");
+            statement.executeUpdate(createTagsTableSql());
+            SchemaMigrator.restoreIndexes(connection, "tags");
+        }
+    }
+
+    @Override
+    public int countTagsWithNamePrefix(String namePrefix) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM tags WHERE name LIKE ?")) {
+            statement.setString(1, namePrefix + "%");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean updateTagColumn(String tagName, String column, Object value) throws SQLException {
+        // The column name is concatenated into the statement, so only known columns get through
+        if (!TAG_COLUMNS.contains(column)) {
+            throw new IllegalArgumentException("Unknown tag column: " + column);
+        }
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("UPDATE tags SET " + column + " = ? WHERE name = ?")) {
+            statement.setObject(1, value);
+            statement.setString(2, tagName);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public List<String[]> findLegacyMaterials(int limit) throws SQLException {
+        List<String[]> rows = new ArrayList<>();
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT name, material FROM tags WHERE material NOT LIKE '" + MaterialCodec.FORMAT_PREFIX + "%' LIMIT " + limit);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(new String[]{resultSet.getString("name"), resultSet.getString("material")});
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public int replaceMaterials(List<String[]> rows) throws SQLException {
+        int updated = 0;
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement update = connection.prepareStatement("UPDATE tags SET material = ? WHERE name = ? AND material = ?")) {
+                for (String[] row : rows) {
+                    update.setString(1, row[2]);
+                    update.setString(2, row[0]);
+                    update.setString(3, row[1]);
+                    update.addBatch();
+                }
+                for (int count : update.executeBatch()) {
+                    updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return updated;
+    }
+
+    // --- Requests ---
+
+    @Override
+    public List<CustomTagRequest> loadRequests() throws SQLException {
+        List<CustomTagRequest> requests = new ArrayList<>();
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM tag_requests ORDER BY id");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                int id = resultSet.getInt("id");
+                UUID playerUuid = UUID.fromString(resultSet.getString("player_uuid"));
+                String playerName = resultSet.getString("player_name");
+                String tagDisplay = resultSet.getString("tag_display");
+                requests.add(new CustomTagRequest(id, playerUuid, playerName, tagDisplay));
+            }
+        }
+        return requests;
+    }
+
+    @Override
+    public int findRequestId(UUID playerUuid) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT id FROM tag_requests WHERE player_uuid = ? LIMIT 1")) {
+            statement.setString(1, playerUuid.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("id") : -1;
+            }
+        }
+    }
+
+    @Override
+    public void updateRequest(UUID playerUuid, String playerName, String tagDisplay) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE tag_requests SET player_name = ?, tag_display = ? WHERE player_uuid = ?")) {
+            statement.setString(1, playerName);
+            statement.setString(2, tagDisplay);
+            statement.setString(3, playerUuid.toString());
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public int insertRequest(UUID playerUuid, String playerName, String tagDisplay) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO tag_requests (player_uuid, player_name, tag_display) VALUES (?, ?, ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, playerUuid.toString());
+            statement.setString(2, playerName);
+            statement.setString(3, tagDisplay);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+        }
+    }
+
+    @Override
+    public void deleteRequest(int requestId) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM tag_requests WHERE id = ?")) {
+            statement.setInt(1, requestId);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void purgeRequests() throws SQLException {
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS tag_requests");
+            statement.executeUpdate(createRequestsTableSql());
+            SchemaMigrator.restoreIndexes(connection, "tag_requests");
+        }
+    }
+
+    // --- Preferences ---
+
+    @Override
+    public String loadPreferences(UUID playerUuid, Map<String, PlayerTagColorPreference> tagColors) throws SQLException {
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(TAG_COLORS_SQL)) {
+                ps.setString(1, playerUuid.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String tagName = rs.getString("tag_name");
+                        ChatColor bracketColor = PlayerProfileLoader.parseStoredColorCode(rs.getString("bracket_color_code"));
+                        ChatColor contentColor = PlayerProfileLoader.parseStoredColorCode(rs.getString("content_color_code"));
+                        if (bracketColor == null && contentColor == null) {
+                            continue; // Nothing to override
+                        }
+                        tagColors.put(tagName, new PlayerTagColorPreference(playerUuid, tagName, bracketColor, contentColor));
+                    }
+                }
+            }
+            return readNameColor(connection, playerUuid);
+        }
+    }
+
+    @Override
+    public String loadNameColor(UUID playerUuid) throws SQLException {
+        try (Connection connection = getConnection()) {
+            return readNameColor(connection, playerUuid);
+        }
+    }
+
+    private static String readNameColor(Connection connection, UUID playerUuid) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(NAME_COLOR_SQL)) {
+            ps.setString(1, playerUuid.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("name_color_code") : null;
+            }
+        }
+    }
+
+    @Override
+    public void saveNameColor(UUID playerUuid, String colorCode) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(upsertNameColorSql())) {
+            ps.setString(1, playerUuid.toString());
+            ps.setString(2, colorCode);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void writeTagColors(Collection<TagColorChange> changes) throws SQLException {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement(upsertTagColorSql());
+                 PreparedStatement delete = connection.prepareStatement(DELETE_TAG_COLOR_SQL)) {
+                int upserts = 0;
+                int deletes = 0;
+                for (TagColorChange change : changes) {
+                    if (change.isDelete()) {
+                        delete.setString(1, change.playerUuid.toString());
+                        delete.setString(2, change.tagName);
+                        delete.addBatch();
+                        deletes++;
+                    } else {
+                        upsert.setString(1, change.playerUuid.toString());
+                        upsert.setString(2, change.tagName);
+                        if (change.bracketCode != null) upsert.setString(3, change.bracketCode); else upsert.setNull(3, Types.VARCHAR);
+                        if (change.contentCode != null) upsert.setString(4, change.contentCode); else upsert.setNull(4, Types.VARCHAR);
+                        upsert.addBatch();
+                        upserts++;
+                    }
+                }
+                if (upserts > 0) upsert.executeBatch();
+                if (deletes > 0) delete.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.blockworlds.utags;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.logging.Logger;
+
+/**
+ * File-backed SQLite storage for single-server setups and local load tests, using the SQLite driver
+ * bundled with the server. The pool opens the file in WAL mode (see {@link DataSourceFactory#createSqlite}),
+ * so readers are not blocked by the single writer. Upserts use {@code ON CONFLICT ... DO UPDATE}.
+ */
+final class SqliteStorage extends SqlStorage {
+
+    SqliteStorage(HikariDataSource dataSource, Logger logger) {
+        super(dataSource, logger);
+    }
+
+    @Override
+    String describe() {
+        return "SQLite";
+    }
+
+    @Override
+    protected String[] createTableStatements() {
+        return new String[]{
+                createTagsTableSql(),
+                createRequestsTableSql(),
+                "CREATE TABLE IF NOT EXISTS player_preferences ("
+                        + "player_uuid VARCHAR(36) PRIMARY KEY NOT NULL,"
+                        + "name_color_code VARCHAR(2) NULL)",
+                "CREATE TABLE IF NOT EXISTS player_tag_color_preferences ("
+                        + "player_uuid VARCHAR(36) NOT NULL,"
+                        + "tag_name VARCHAR(255) NOT NULL,"
+                        + "bracket_color_code VARCHAR(2) NULL,"
+                        + "content_color_code VARCHAR(2) NULL,"
+                        + "PRIMARY KEY (player_uuid, tag_name))"
+        };
+    }
+
+    @Override
+    protected String createTagsTableSql() {
+        return "CREATE TABLE IF NOT EXISTS tags ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "name VARCHAR(255) NOT NULL UNIQUE,"
+                + "display VARCHAR(255) NOT NULL,"
+                + "type TEXT NOT NULL CHECK (type IN ('prefix', 'suffix', 'both')),"
+                + "public BOOLEAN NOT NULL,"
+                + "color BOOLEAN NOT NULL,"
+                + "material TEXT NOT NULL,"
+                + "weight INTEGER NOT NULL)";
+    }
+
+    @Override
+    protected String createRequestsTableSql() {
+        return "CREATE TABLE IF NOT EXISTS tag_requests ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "player_uuid VARCHAR(36) NOT NULL,"
+                + "player_name VARCHAR(255) NOT NULL,"
+                + "tag_display VARCHAR(255) NOT NULL)";
+    }
+
+    @Override
+    protected String upsertTagSql() {
+        // Unlike REPLACE, this keeps the row id of an existing tag
+        return "INSERT INTO tags (name, display, type, public, color, material, weight) VALUES (?, ?, ?, ?, ?, ?, ?) "
+                + "ON CONFLICT(name) DO UPDATE SET display = excluded.display, type = excluded.type, public = excluded.public, "
+                + "color = excluded.color, material = excluded.material, weight = excluded.weight";
+    }
+
+    @Override
+    protected String upsertNameColorSql() {
+        return "INSERT INTO player_preferences (player_uuid, name_color_code) VALUES (?, ?) "
+                + "ON CONFLICT(player_uuid) DO UPDATE SET name_color_code = excluded.name_color_code";
+    }
+
+    @Override
+    protected String upsertTagColorSql() {
+        return "INSERT INTO player_tag_color_preferences (player_uuid, tag_name, bracket_color_code, content_color_code) "
+                + "VALUES (?, ?, ?, ?) "
+                + "ON CONFLICT(player_uuid, tag_name) DO UPDATE SET "
+                + "bracket_color_code = excluded.bracket_color_code, content_color_code = excluded.content_color_code";
+    }
+}
@@ -0,0 +1,41 @@
+package com.blockworlds.utags;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock durations of the onEnable phases, in the order they finished.
+ * Synchronous phases run on the main thread; the background phases are recorded from the I/O executor.
+ */
+final class StartupTimings {
+
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> millis = new ArrayList<>();
+
+    static long start() {
+        return System.nanoTime();
+    }
+
+    synchronized void record(String phase, long startNanos) {
+        phases.add(phase);
+        millis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return e.g. {@code "config 3ms, database 212ms, schema 8ms"}, or "none" before the first phase.
+     */
+    synchronized String summary() {
+        if (phases.isEmpty()) {
+            return "none";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < phases.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(phases.get(i)).append(' ').append(millis.get(i)).append("ms");
+        }
+        return builder.toString();
+    }
+}
@@ -13,6 +13,7 @@ public class Tag {
     private int weight;
 
     private ItemStack material;
+    private final String permission;
 
     public Tag(String name, String display, TagType type, boolean isPublic, boolean color, ItemStack material, int weight) {
         this.name = name;
@@ -22,6 +23,8 @@ public class Tag {
         this.color = color;
         this.material = material;
         this.weight = weight;
+        // Interned so every snapshot and permission lookup shares one string per tag
+        this.permission = ("utags.tag." + name).intern();
     }
 
     public String getName() {
@@ -32,6 +35,13 @@ public class Tag {
         return display;
     }
 
+    /**
+     * @return The permission node that grants this tag, "utags.tag.&lt;name&gt;".
+     */
+    public String getPermission() {
+        return permission;
+    }
+
     public TagType getType() {
         return type;
     }
@@ -0,0 +1,237 @@
+package com.blockworlds.utags;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reads and writes tag bundles for {@code /tag admin import} and {@code export}:
+ * <pre>
+ * {"version": 1, "tags": [
+ *   {"name": "vip", "display": "&amp;6[VIP]", "type": "prefix", "public": true, "color": true,
+ *    "weight": 10, "material": "2|K|minecraft:gold_ingot"}
+ * ]}
+ * </pre>
+ * Displays use '&amp;' colour codes, materials the {@link MaterialCodec} format. The file is read entry by
+ * entry with Gson's streaming reader, so a large bundle is never held as one document.
+ */
+final class TagBundle {
+
+    static final int FORMAT_VERSION = 1;
+    // Enough for an admin to fix the bundle without flooding chat
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    private TagBundle() {
+    }
+
+    /**
+     * Resolves a bundle name inside the plugin folder.
+     *
+     * @return The file, or null if the name points outside the plugin folder.
+     */
+    static File resolve(File dataFolder, String fileName) throws IOException {
+        String name = fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? fileName : fileName + ".json";
+        File folder = dataFolder.getCanonicalFile();
+        File file = new File(folder, name).getCanonicalFile();
+        return file.toPath().startsWith(folder.toPath()) && !file.equals(folder) ? file : null;
+    }
+
+    static int write(File file, Collection<Tag> tags) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        int count = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("version").value(FORMAT_VERSION);
+            writer.name("tags").beginArray();
+            for (Tag tag : tags) {
+                writer.beginObject();
+                writer.name("name").value(tag.getName());
+                writer.name("display").value(tag.getDisplay().replace(ChatColor.COLOR_CHAR, '&'));
+                writer.name("type").value(tag.getType().name().toLowerCase(Locale.ROOT));
+                writer.name("public").value(tag.isPublic());
+                writer.name("color").value(tag.isColor());
+                writer.name("weight").value(tag.getWeight());
+                writer.name("material").value(MaterialCodec.encode(tag.getMaterial()));
+                writer.endObject();
+                count++;
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return count;
+    }
+
+    /**
+     * Reads and validates every entry. Nothing is returned unless the whole bundle is valid,
+     * so an import is all or nothing.
+     */
+    static ReadResult read(File file) throws IOException {
+        List<Tag> tags = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int errorCount = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (field.equals("version")) {
+                    int version = reader.nextInt();
+                    if (version > FORMAT_VERSION) {
+                        throw new IOException("Bundle version " + version + " is newer than this uTags supports (" + FORMAT_VERSION + ")");
+                    }
+                } else if (field.equals("tags")) {
+                    reader.beginArray();
+                    int index = 0;
+                    while (reader.hasNext()) {
+                        index++;
+                        Entry entry = readEntry(reader);
+                        String error = validate(entry, names);
+                        if (error != null) {
+                            if (++errorCount <= MAX_REPORTED_ERRORS) {
+                                errors.add("#" + index + (entry.name != null ? " (" + entry.name + ")" : "") + ": " + error);
+                            }
+                        } else if (errorCount == 0) {
+                            tags.add(entry.toTag());
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // Gson reports structural mismatches (e.g. a string where an object was expected) this way
+            throw new IOException("Malformed bundle: " + e.getMessage(), e);
+        }
+
+        if (errorCount > MAX_REPORTED_ERRORS) {
+            errors.add("... and " + (errorCount - MAX_REPORTED_ERRORS) + " more");
+        }
+        return errorCount == 0 ? new ReadResult(tags, errors) : new ReadResult(new ArrayList<>(), errors);
+    }
+
+    private static Entry readEntry(JsonReader reader) throws IOException {
+        Entry entry = new Entry();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    entry.name = reader.nextString();
+                    break;
+                case "display":
+                    entry.display = reader.nextString();
+                    break;
+                case "type":
+                    entry.type = reader.nextString();
+                    break;
+                case "public":
+                    entry.isPublic = reader.nextBoolean();
+                    break;
+                case "color":
+                    entry.color = reader.nextBoolean();
+                    break;
+                case "weight":
+                    entry.weight = reader.nextInt();
+                    break;
+                case "material":
+                    entry.material = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return entry;
+    }
+
+    // Same rules as /tag admin create, plus the display check used for custom tag requests
+    private static String validate(Entry entry, Set<String> names) {
+        if (entry.name == null || !entry.name.matches("^[a-zA-Z0-9_-]+$")) {
+            return "name must contain only letters, numbers, underscores and hyphens";
+        }
+        if (!names.add(entry.name)) {
+            return "duplicate name";
+        }
+        if (entry.display == null) {
+            return "missing display";
+        }
+        String displayError = TagCommand.isValidTag(entry.display);
+        if (displayError != null) {
+            return displayError;
+        }
+        try {
+            entry.parsedType = TagType.valueOf(entry.type == null ? "" : entry.type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return "type must be prefix, suffix or both";
+        }
+        if (entry.weight < 0) {
+            return "weight must be 0 or greater";
+        }
+        if (entry.material == null) {
+            entry.item = new ItemStack(Material.NAME_TAG);
+        } else {
+            try {
+                entry.item = MaterialCodec.decode(entry.material);
+            } catch (Exception e) {
+                return "unreadable material: " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        String name;
+        String display;
+        String type;
+        boolean isPublic;
+        boolean color = true;
+        int weight;
+        String material;
+        TagType parsedType;
+        ItemStack item;
+
+        Tag toTag() {
+            return new Tag(name, ChatColor.translateAlternateColorCodes('&', display), parsedType, isPublic, color, item, weight);
+        }
+    }
+
+    static final class ReadResult {
+        final List<Tag> tags;
+        // At most MAX_REPORTED_ERRORS lines, plus a summary line; empty if the bundle is valid
+        final List<String> errors;
+
+        ReadResult(List<Tag> tags, List<String> errors) {
+            this.tags = tags;
+            this.errors = errors;
+        }
+    }
+}
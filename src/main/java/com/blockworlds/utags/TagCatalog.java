@@ -0,0 +1,186 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, versioned snapshot of every tag in the database.
+ * Tags are pre-sorted by weight (highest first), pre-split into the
+ * views the menus and commands ask for, and indexed by name and display,
+ * so reads never touch JDBC.
+ * A new catalog is built by {@link uTags#reloadTagCatalog()} whenever tag data changes.
+ */
+public final class TagCatalog {
+
+    private static final TagCatalog EMPTY = new TagCatalog(0L, Collections.<Tag>emptyList());
+
+    private final long version;
+    private final List<Tag> all;
+    private final List<Tag> prefixes; // PREFIX + BOTH
+    private final List<Tag> suffixes; // SUFFIX + BOTH
+    private final List<Tag> both;     // BOTH only
+    private final Map<String, Tag> byName;    // Lower-cased name -> tag
+    private final Map<String, Tag> byDisplay; // Raw and colour-translated display -> tag
+    private volatile List<Tag> byNameOrder;   // Built on first use; only the admin tag list needs it
+    private volatile TagSearchIndex searchIndex; // Built on the first search against this catalog
+
+    TagCatalog(long version, List<Tag> tags) {
+        this.version = version;
+
+        List<Tag> sorted = new ArrayList<>(tags);
+        // Stable sort, so tags with equal weight keep their database order
+        sorted.sort(Comparator.comparingInt(Tag::getWeight).reversed());
+
+        List<Tag> prefixView = new ArrayList<>();
+        List<Tag> suffixView = new ArrayList<>();
+        List<Tag> bothView = new ArrayList<>();
+        Map<String, Tag> nameIndex = new HashMap<>(sorted.size() * 2);
+        Map<String, Tag> displayIndex = new HashMap<>(sorted.size() * 4);
+        for (Tag tag : sorted) {
+            // putIfAbsent: on duplicates the highest weight tag wins, matching list order
+            nameIndex.putIfAbsent(nameKey(tag.getName()), tag);
+            if (tag.getDisplay() != null) {
+                displayIndex.putIfAbsent(tag.getDisplay(), tag);
+                displayIndex.putIfAbsent(ChatColor.translateAlternateColorCodes('&', tag.getDisplay()), tag);
+            }
+
+            if (tag.getType() == TagType.PREFIX || tag.getType() == TagType.BOTH) {
+                prefixView.add(tag);
+            }
+            if (tag.getType() == TagType.SUFFIX || tag.getType() == TagType.BOTH) {
+                suffixView.add(tag);
+            }
+            if (tag.getType() == TagType.BOTH) {
+                bothView.add(tag);
+            }
+        }
+
+        this.all = Collections.unmodifiableList(sorted);
+        this.prefixes = Collections.unmodifiableList(prefixView);
+        this.suffixes = Collections.unmodifiableList(suffixView);
+        this.both = Collections.unmodifiableList(bothView);
+        this.byName = nameIndex;
+        this.byDisplay = displayIndex;
+    }
+
+    // Tag names are matched case-insensitively, like the default MySQL collation did
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public static TagCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return A number that increases every time the catalog is rebuilt. 0 means nothing has been loaded yet.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * @return Every tag, sorted by weight descending. The list is read-only.
+     */
+    public List<Tag> getAll() {
+        return all;
+    }
+
+    /**
+     * @return Every tag, sorted by name (case-insensitive). Built once per catalog; read-only.
+     */
+    public List<Tag> getAllByName() {
+        List<Tag> view = byNameOrder;
+        if (view == null) {
+            List<Tag> sorted = new ArrayList<>(all);
+            sorted.sort(Comparator.comparing(Tag::getName, String.CASE_INSENSITIVE_ORDER));
+            view = Collections.unmodifiableList(sorted);
+            byNameOrder = view; // Racing builders produce equal lists, so either may win
+        }
+        return view;
+    }
+
+    /**
+     * @return The number of pages of {@code pageSize} tags, at least 1.
+     */
+    public int pageCount(int pageSize) {
+        return Math.max(1, (all.size() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Slices one page out of {@link #getAllByName()} without copying.
+     *
+     * @param pageIndex Zero-based; clamp with {@link #pageCount(int)} first.
+     * @return The tags on the page, possibly empty.
+     */
+    public List<Tag> getPageByName(int pageIndex, int pageSize) {
+        List<Tag> view = getAllByName();
+        int from = Math.min(Math.max(0, pageIndex) * pageSize, view.size());
+        return view.subList(from, Math.min(from + pageSize, view.size()));
+    }
+
+    /**
+     * Finds tags whose name or colour-stripped display contains the text, ignoring case.
+     *
+     * @return Matching tags of every type, sorted by weight descending. The list is read-only.
+     */
+    public List<Tag> search(String text) {
+        TagSearchIndex index = searchIndex;
+        if (index == null) {
+            index = new TagSearchIndex(all);
+            searchIndex = index; // As with byNameOrder, a racing build is equivalent
+        }
+        return index.search(text);
+    }
+
+    /**
+     * Gets the tags usable as the given type, sorted by weight descending.
+     * PREFIX and SUFFIX include tags of type BOTH; BOTH returns only tags of type BOTH.
+     *
+     * @param type The tag type, or null for every tag.
+     * @return A read-only list of tags.
+     */
+    public List<Tag> getTags(TagType type) {
+        if (type == null) {
+            return all;
+        }
+        switch (type) {
+            case PREFIX: return prefixes;
+            case SUFFIX: return suffixes;
+            case BOTH: return both;
+            default: return all;
+        }
+    }
+
+    /**
+     * Looks up a tag by its internal name (case-insensitive).
+     *
+     * @param name The internal tag name.
+     * @return The tag, or null if there is no such tag.
+     */
+    public Tag getByName(String name) {
+        return name == null ? null : byName.get(nameKey(name));
+    }
+
+    /**
+     * Looks up a tag by its display string. Both the raw form ("&a[VIP]") and
+     * the colour-translated form ("\u00a7a[VIP]") are indexed.
+     *
+     * @param display The display string.
+     * @return The tag, or null if no tag has this display.
+     */
+    public Tag getByDisplay(String display) {
+        return display == null ? null : byDisplay.get(display);
+    }
+}
@@ -1,6 +1,5 @@
 package com.blockworlds.utags;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -60,7 +59,8 @@ public class TagColorMenuManager {
     public void openColorSelectionMenu(Player player, Tag tag, boolean editingBrackets) {
         // Calculate size needed (16 colors + mode switch + reset = 18 items -> 2 rows minimum)
         int size = 27; // 3 rows to be safe and allow spacing
-        Inventory inv = Bukkit.createInventory(null, size, COLOR_MENU_TITLE + " - " + tag.getName());
+        Inventory inv = new UTagsMenuHolder(UTagsMenuHolder.Kind.TAG_COLOR, 0, null, tag.getName())
+                .createInventory(size, COLOR_MENU_TITLE + " - " + tag.getName());
 
         // Add color selection panes
         int slot = 0;
@@ -0,0 +1,194 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for rows in player_tag_color_preferences.
+ * Colour changes are coalesced per (player, tag) so only the last value is written,
+ * and pending rows are handed to {@link PreferenceStorage#writeTagColors} in one transaction.
+ */
+public class TagColorWriteBuffer {
+
+    private final uTags plugin;
+    private final Map<Key, PendingWrite> pending = new ConcurrentHashMap<>();
+    // Flushes are serialized so an older batch can never land after a newer one
+    private final Object flushLock = new Object();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public TagColorWriteBuffer(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Records the latest colours for a player's tag. Passing null for both colours deletes the row.
+     */
+    public void enqueue(UUID playerUuid, String tagName, ChatColor bracketColor, ChatColor contentColor) {
+        String bracketCode = (bracketColor != null) ? "&" + bracketColor.getChar() : null;
+        String contentCode = (contentColor != null) ? "&" + contentColor.getChar() : null;
+        enqueued.incrementAndGet();
+        if (pending.put(new Key(playerUuid, tagName), new PendingWrite(bracketCode, contentCode)) != null) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Flushes every pending row on the uTags I/O executor. If the executor refuses the task,
+     * the rows stay queued for the next flush.
+     */
+    public void flushAsync() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        plugin.getIoExecutor().tryExecute(() -> flush(null), "tag color preference flush");
+    }
+
+    /**
+     * Flushes the pending rows of one player on the uTags I/O executor. Used on quit.
+     */
+    public void flushPlayerAsync(UUID playerUuid) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        plugin.getIoExecutor().tryExecute(() -> flush(playerUuid), "tag color preference flush for " + playerUuid);
+    }
+
+    /**
+     * Flushes every pending row on the calling thread. Used in onDisable.
+     *
+     * @return The number of rows written.
+     */
+    public int flushNow() {
+        return flush(null);
+    }
+
+    private int flush(UUID onlyPlayer) {
+        synchronized (flushLock) {
+            // Take entries out with remove(key, value) so a change made during the flush stays queued
+            List<Map.Entry<Key, PendingWrite>> batch = new ArrayList<>();
+            for (Map.Entry<Key, PendingWrite> entry : pending.entrySet()) {
+                Key key = entry.getKey();
+                if (onlyPlayer != null && !onlyPlayer.equals(key.playerUuid)) {
+                    continue;
+                }
+                PendingWrite write = entry.getValue();
+                if (pending.remove(key, write)) {
+                    batch.add(new AbstractMap.SimpleImmutableEntry<>(key, write));
+                }
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<PreferenceStorage.TagColorChange> changes = new ArrayList<>(batch.size());
+            for (Map.Entry<Key, PendingWrite> entry : batch) {
+                Key key = entry.getKey();
+                PendingWrite write = entry.getValue();
+                changes.add(new PreferenceStorage.TagColorChange(key.playerUuid, key.tagName, write.bracketCode, write.contentCode));
+            }
+            try {
+                plugin.getPreferenceStorage().writeTagColors(changes);
+                rowsWritten.addAndGet(batch.size());
+                flushes.incrementAndGet();
+                plugin.getLogger().fine("Flushed " + batch.size() + " tag color preference change(s) to the database.");
+                return batch.size();
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to flush " + batch.size() + " tag color preference change(s): " + e.getMessage());
+                e.printStackTrace();
+                // Put the rows back unless a newer value arrived meanwhile; the next flush retries them
+                for (Map.Entry<Key, PendingWrite> entry : batch) {
+                    pending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                return 0;
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return Total colour changes handed to the buffer.
+     */
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    /**
+     * @return Changes that replaced a not-yet-flushed change for the same player and tag.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return Rows written (upserted or deleted) to the database so far.
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    private static final class Key {
+        private final UUID playerUuid;
+        private final String tagName;
+
+        private Key(UUID playerUuid, String tagName) {
+            this.playerUuid = playerUuid;
+            this.tagName = tagName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return playerUuid.equals(other.playerUuid) && tagName.equals(other.tagName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * playerUuid.hashCode() + tagName.hashCode();
+        }
+    }
+
+    private static final class PendingWrite {
+        private final String bracketCode; // "&x" or null
+        private final String contentCode; // "&x" or null
+
+        private PendingWrite(String bracketCode, String contentCode) {
+            this.bracketCode = bracketCode;
+            this.contentCode = contentCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PendingWrite)) return false;
+            PendingWrite other = (PendingWrite) o;
+            return Objects.equals(bracketCode, other.bracketCode) && Objects.equals(contentCode, other.contentCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bracketCode, contentCode);
+        }
+    }
+}
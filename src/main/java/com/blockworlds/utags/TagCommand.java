@@ -1,5 +1,6 @@
 package com.blockworlds.utags;
 
+import com.zaxxer.hikari.metrics.PoolStats;
 import org.bukkit.*;
 import org.bukkit.command.*;
 import org.bukkit.entity.Player;
@@ -18,6 +19,7 @@ import org.bukkit.inventory.meta.SkullMeta;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,7 +62,7 @@ public class TagCommand implements CommandExecutor, TabCompleter {
 
             case "set":
                 if (args.length == 2) {
-                    boolean hasPermission = player.hasPermission("utags.tag." + args[1]);
+                    boolean hasPermission = plugin.getTagPermissionCache().canUse(player, args[1]);
                     boolean isAvailableTag = plugin.getAvailableTags(TagType.PREFIX).stream().anyMatch(availableTag -> availableTag.getName().equals(args[1]));
 
                     if (!hasPermission || !isAvailableTag) {
@@ -75,6 +77,15 @@ public class TagCommand implements CommandExecutor, TabCompleter {
                 }
                 break;
 
+            case "search":
+                if (args.length < 2) {
+                    player.sendMessage(ChatColor.RED + "Usage: /tag search <text>");
+                } else {
+                    String query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+                    plugin.getTagMenuManager().openTagSelection(player, 0, TagType.PREFIX, query);
+                }
+                break;
+
             case "admin":
                 handleAdminCommands(player, args);
                 break;
@@ -85,48 +96,19 @@ public class TagCommand implements CommandExecutor, TabCompleter {
 
             case "request":
                 if (args.length == 2) {
-                    int customTagCount = plugin.countCustomTags(player.getName());
-                    String requiredPermission = "utags.custom" + (customTagCount + 1);
-                    plugin.getLogger().info("Checking required permission for request: " + requiredPermission);
-                    if (player.hasPermission(requiredPermission)) {
-                        String requestedTag = args[1];
-                        String validationResult = isValidTag(requestedTag);
-                        if (validationResult != null) {
-                            player.sendMessage(ChatColor.RED + validationResult);
-                            if (validationResult.contains("color code")) {
-                                ChatColor[] colors = {ChatColor.BLACK, ChatColor.DARK_BLUE, ChatColor.DARK_GREEN, ChatColor.DARK_AQUA, ChatColor.DARK_RED, ChatColor.DARK_PURPLE, ChatColor.GOLD, ChatColor.GRAY, ChatColor.DARK_GRAY, ChatColor.BLUE, ChatColor.GREEN, ChatColor.AQUA, ChatColor.RED, ChatColor.LIGHT_PURPLE, ChatColor.YELLOW, ChatColor.WHITE};
-                                String[] colorCodes = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "a", "b", "c", "d", "e", "f"};
-                                StringBuilder colorCodeList = new StringBuilder(ChatColor.AQUA + "List of available color codes: ");
-                                for (int i = 0; i < colors.length; i++) {
-                                    colorCodeList.append(colors[i]).append("&").append(colorCodes[i]).append(" ");
+                    // Counting custom tags queries the database, so finish the request on the main thread afterwards
+                    String requestedTag = args[1];
+                    plugin.countCustomTagsAsync(player.getName()).whenComplete((customTagCount, ex) ->
+                            Bukkit.getScheduler().runTask(plugin, () -> {
+                                if (!player.isOnline()) {
+                                    return;
                                 }
-                                player.sendMessage(colorCodeList.toString().trim());
-                            }
-                            return true;
-                        }
-                        // Trim tag display after validation
-                        int endIndex = requestedTag.indexOf(']') + 1;
-                        if (endIndex > 0 && endIndex < requestedTag.length()) { // Ensure ']' exists and there's something after it
-                            requestedTag = requestedTag.substring(0, endIndex);
-                        }
-
-                        // Open the GUI confirmation menu instead of chat prompt
-                        plugin.getTagMenuManager().openRequestConfirmation(player, requestedTag);
-
-                        // Remove old chat confirmation and preview listener logic
-                        // player.sendMessage(ChatColor.GREEN + "Tag request preview: " + ChatColor.translateAlternateColorCodes('&', requestedTag));
-                        // player.sendMessage(ChatColor.YELLOW + "Type 'accept' to accept the tag or 'decline' to try again.");
-                        // plugin.addPreviewTag(player, requestedTag);
-
-                        return true;
-                    } else {
-                        // TODO: Make permission denial message configurable
-                        if (!requiredPermission.equalsIgnoreCase("utags.custom5")) // Example limit check
-                            player.sendMessage(ChatColor.RED + "You can't request any more custom tags, unlock more custom tag slots every month as a premium subscriber.");
-                        else
-                            player.sendMessage(ChatColor.RED + "You have reached the maximum number of custom tags.");
-                        return true;
-                    }
+                                if (ex != null) {
+                                    player.sendMessage(ChatColor.RED + "The server is busy; please try your request again in a moment.");
+                                    return;
+                                }
+                                handleCustomTagRequest(player, requestedTag, customTagCount);
+                            }));
                 } else {
                     player.sendMessage(ChatColor.YELLOW + "Usage: /tag request [YourNewTag]");
                     player.sendMessage(ChatColor.YELLOW + "You must follow these rules when requesting a custom tag:");
@@ -163,6 +145,7 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         // General help commands
         helpLines.add(ChatColor.GREEN + "/tag - Open the tag GUI menu.");
         helpLines.add(ChatColor.GREEN + "/tag set [tag] - Quick set a prefix tag.");
+        helpLines.add(ChatColor.GREEN + "/tag search <text> - Find tags by name or display.");
         helpLines.add(ChatColor.GREEN + "/tag namecolor <&code|reset> - Set your name color.");
         helpLines.add(ChatColor.GREEN + "/tag request [tag] - Request a custom tag. (Requires Veteran or Premium Membership)");
 
@@ -175,6 +158,10 @@ public class TagCommand implements CommandExecutor, TabCompleter {
             helpLines.add(ChatColor.YELLOW + "/tag admin requests - View pending custom tag requests.");
             helpLines.add(ChatColor.RED + "/tag admin purge tags - Purge all tags from the database.");
             helpLines.add(ChatColor.RED + "/tag admin purge requests - Purge all custom tag requests from the database.");
+            helpLines.add(ChatColor.YELLOW + "/tag admin debug [category|all|player] [on|off|name] - Toggle debug logging.");
+            helpLines.add(ChatColor.YELLOW + "/tag admin stats [reset] - Show uTags timings and pool statistics.");
+            helpLines.add(ChatColor.YELLOW + "/tag admin import <file> - Import tags from a JSON bundle in the plugin folder.");
+            helpLines.add(ChatColor.YELLOW + "/tag admin export <file> - Export all tags to a JSON bundle in the plugin folder.");
         }
 
         int linesPerPage = 50;
@@ -233,12 +220,14 @@ public class TagCommand implements CommandExecutor, TabCompleter {
                         String purgeType = args[2].toLowerCase();
                         switch (purgeType) {
                             case "tags":
-                                plugin.purgeTagsTable();
-                                player.sendMessage(ChatColor.RED + "All data has been purged from the tags table.");
+                                plugin.purgeTagsTable().thenAccept(purged -> replyOnMainThread(player, purged
+                                        ? ChatColor.RED + "All data has been purged from the tags table."
+                                        : ChatColor.RED + "Purging the tags table failed; see the console."));
                                 break;
                             case "requests":
-                                plugin.purgeRequestsTable();
-                                player.sendMessage(ChatColor.RED + "All data has been purged from the requests table.");
+                                plugin.purgeRequestsTable().thenAccept(purged -> replyOnMainThread(player, purged
+                                        ? ChatColor.RED + "All data has been purged from the requests table."
+                                        : ChatColor.RED + "Purging the requests table failed; see the console."));
                                 break;
                             default:
                                 player.sendMessage(ChatColor.RED + "Invalid purge type specified for confirmation.");
@@ -250,6 +239,23 @@ public class TagCommand implements CommandExecutor, TabCompleter {
                 case "requests":
                     plugin.openRequestsMenu(player);
                     break;
+                case "debug":
+                    handleDebugCommand(player, args);
+                    break;
+                case "stats":
+                    handleStatsCommand(player, args);
+                    break;
+                case "import":
+                case "export":
+                    if (args.length != 3) {
+                        player.sendMessage(ChatColor.RED + "Usage: /tag admin " + args[1].toLowerCase() + " <file>");
+                    } else if (args[1].equalsIgnoreCase("import")) {
+                        player.sendMessage(ChatColor.YELLOW + "Importing tags from " + args[2] + "...");
+                        plugin.importTagBundleAsync(player, args[2]);
+                    } else {
+                        plugin.exportTagBundleAsync(player, args[2]);
+                    }
+                    break;
                 default:
                     displayAdminUsage(player);
             }
@@ -258,11 +264,179 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    private void handleCustomTagRequest(Player player, String requestedTag, int customTagCount) {
+        String requiredPermission = "utags.custom" + (customTagCount + 1);
+        plugin.getDebugLogger().log(DebugLogger.Category.REQUESTS, player.getUniqueId(), () ->
+                "Checking required permission for request: " + requiredPermission);
+        if (player.hasPermission(requiredPermission)) {
+            String validationResult = isValidTag(requestedTag);
+            if (validationResult != null) {
+                player.sendMessage(ChatColor.RED + validationResult);
+                if (validationResult.contains("color code")) {
+                    ChatColor[] colors = {ChatColor.BLACK, ChatColor.DARK_BLUE, ChatColor.DARK_GREEN, ChatColor.DARK_AQUA, ChatColor.DARK_RED, ChatColor.DARK_PURPLE, ChatColor.GOLD, ChatColor.GRAY, ChatColor.DARK_GRAY, ChatColor.BLUE, ChatColor.GREEN, ChatColor.AQUA, ChatColor.RED, ChatColor.LIGHT_PURPLE, ChatColor.YELLOW, ChatColor.WHITE};
+                    String[] colorCodes = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "a", "b", "c", "d", "e", "f"};
+                    StringBuilder colorCodeList = new StringBuilder(ChatColor.AQUA + "List of available color codes: ");
+                    for (int i = 0; i < colors.length; i++) {
+                        colorCodeList.append(colors[i]).append("&").append(colorCodes[i]).append(" ");
+                    }
+                    player.sendMessage(colorCodeList.toString().trim());
+                }
+                return;
+            }
+            // Trim tag display after validation
+            int endIndex = requestedTag.indexOf(']') + 1;
+            if (endIndex > 0 && endIndex < requestedTag.length()) { // Ensure ']' exists and there's something after it
+                requestedTag = requestedTag.substring(0, endIndex);
+            }
+
+            // Open the GUI confirmation menu instead of chat prompt
+            plugin.getTagMenuManager().openRequestConfirmation(player, requestedTag);
+
+            // Remove old chat confirmation and preview listener logic
+            // player.sendMessage(ChatColor.GREEN + "Tag request preview: " + ChatColor.translateAlternateColorCodes('&', requestedTag));
+            // player.sendMessage(ChatColor.YELLOW + "Type 'accept' to accept the tag or 'decline' to try again.");
+            // plugin.addPreviewTag(player, requestedTag);
+        } else {
+            // TODO: Make permission denial message configurable
+            if (!requiredPermission.equalsIgnoreCase("utags.custom5")) // Example limit check
+                player.sendMessage(ChatColor.RED + "You can't request any more custom tags, unlock more custom tag slots every month as a premium subscriber.");
+            else
+                player.sendMessage(ChatColor.RED + "You have reached the maximum number of custom tags.");
+        }
+    }
+
     private void displayAdminUsage(Player player) {
         player.sendMessage(ChatColor.RED + "Usage: /tag admin create [name] [display] [type] [weight] [public(true/false)]");
         player.sendMessage(ChatColor.RED + "Usage: /tag admin delete [name]");
         player.sendMessage(ChatColor.RED + "Usage: /tag admin purge");
         player.sendMessage(ChatColor.RED + "Usage: /tag admin requests");
+        player.sendMessage(ChatColor.RED + "Usage: /tag admin debug [category|all|player] [on|off|name]");
+        player.sendMessage(ChatColor.RED + "Usage: /tag admin stats [reset]");
+        player.sendMessage(ChatColor.RED + "Usage: /tag admin import <file>");
+        player.sendMessage(ChatColor.RED + "Usage: /tag admin export <file>");
+    }
+
+    private void handleStatsCommand(Player player, String[] args) {
+        UTagsMetrics metrics = plugin.getMetrics();
+        if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            player.sendMessage(ChatColor.GREEN + "uTags timing histograms reset.");
+            return;
+        }
+
+        player.sendMessage(ChatColor.GOLD + "=== uTags Timings (since start or last reset) ===");
+        for (UTagsMetrics.Timer timer : UTagsMetrics.Timer.values()) {
+            LatencyHistogram.Snapshot snapshot = metrics.getSnapshot(timer);
+            if (snapshot.getCount() == 0) {
+                player.sendMessage(ChatColor.YELLOW + timer.getKey() + ChatColor.GRAY + ": no samples");
+                continue;
+            }
+            player.sendMessage(ChatColor.YELLOW + timer.getKey() + ChatColor.WHITE
+                    + ": n=" + snapshot.getCount()
+                    + " p50=" + formatMicros(snapshot.getPercentileMicros(50))
+                    + " p99=" + formatMicros(snapshot.getPercentileMicros(99))
+                    + " max=" + formatMicros(snapshot.getMaxMicros()));
+        }
+
+        player.sendMessage(ChatColor.GOLD + "=== Pools & Queues ===");
+        PoolStats poolStats = metrics.getPoolStats();
+        if (poolStats != null) {
+            player.sendMessage(ChatColor.YELLOW + "DB pool" + ChatColor.WHITE + ": active=" + poolStats.getActiveConnections()
+                    + " idle=" + poolStats.getIdleConnections() + " total=" + poolStats.getTotalConnections()
+                    + "/" + poolStats.getMaxConnections() + " waiting=" + poolStats.getPendingThreads()
+                    + " timeouts=" + metrics.getConnectionTimeouts());
+        } else {
+            player.sendMessage(ChatColor.YELLOW + "DB pool" + ChatColor.GRAY + ": not initialised");
+        }
+        if (plugin.getIoExecutor() != null) {
+            player.sendMessage(ChatColor.YELLOW + "I/O executor" + ChatColor.WHITE + ": " + plugin.getIoExecutor().describe());
+        }
+        TagColorWriteBuffer buffer = plugin.getTagColorWriteBuffer();
+        player.sendMessage(ChatColor.YELLOW + "Color write buffer" + ChatColor.WHITE + ": pending=" + buffer.getPendingCount()
+                + " enqueued=" + buffer.getEnqueuedCount() + " coalesced=" + buffer.getCoalescedCount()
+                + " rows=" + buffer.getRowsWritten() + " flushes=" + buffer.getFlushCount());
+        DisplayNameRefresher refresher = plugin.getDisplayNameRefresher();
+        player.sendMessage(ChatColor.YELLOW + "Display refreshes" + ChatColor.WHITE + ": requested=" + refresher.getRequestedCount()
+                + " applied=" + refresher.getAppliedCount());
+        TagNodeManager nodeManager = plugin.getTagNodeManager();
+        player.sendMessage(ChatColor.YELLOW + "LuckPerms node updates" + ChatColor.WHITE + ": saved=" + nodeManager.getSaveCount()
+                + " skipped=" + nodeManager.getSkippedSaveCount());
+        NameColorCache nameColors = plugin.getNameColorCache();
+        player.sendMessage(ChatColor.YELLOW + "Name color cache" + ChatColor.WHITE + ": entries=" + nameColors.size()
+                + " capacity=" + nameColors.capacity());
+        player.sendMessage(ChatColor.YELLOW + "Startup" + ChatColor.WHITE + ": " + plugin.getStartupTimingsSummary());
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros >= 1000) {
+            return String.format("%.1fms", micros / 1000.0);
+        }
+        return micros + "\u00b5s";
+    }
+
+    // /tag admin debug                      - show what is enabled
+    // /tag admin debug <category|all> [on|off] - toggle (or set) a category
+    // /tag admin debug player <name>        - toggle logging only that player's actions
+    private void handleDebugCommand(Player player, String[] args) {
+        DebugLogger debugLogger = plugin.getDebugLogger();
+        if (args.length < 3) {
+            String categories = debugLogger.getEnabledCategories().isEmpty() ? "none"
+                    : debugLogger.getEnabledCategories().stream().map(c -> c.name().toLowerCase()).collect(Collectors.joining(", "));
+            String players = debugLogger.getWatchedPlayers().isEmpty() ? "all players"
+                    : debugLogger.getWatchedPlayers().stream().map(uuid -> {
+                        String name = Bukkit.getOfflinePlayer(uuid).getName();
+                        return name != null ? name : uuid.toString();
+                    }).collect(Collectors.joining(", "));
+            player.sendMessage(ChatColor.YELLOW + "Debug categories enabled: " + ChatColor.WHITE + categories);
+            player.sendMessage(ChatColor.YELLOW + "Debug output for: " + ChatColor.WHITE + players);
+            player.sendMessage(ChatColor.GRAY + "Categories: " + Arrays.stream(DebugLogger.Category.values())
+                    .map(c -> c.name().toLowerCase()).collect(Collectors.joining(", ")));
+            return;
+        }
+
+        String target = args[2].toLowerCase();
+        if (target.equals("player")) {
+            if (args.length < 4) {
+                player.sendMessage(ChatColor.RED + "Usage: /tag admin debug player <name>");
+                return;
+            }
+            Player watched = Bukkit.getPlayerExact(args[3]);
+            if (watched == null) {
+                player.sendMessage(ChatColor.RED + "Player " + args[3] + " is not online.");
+                return;
+            }
+            boolean nowWatched = debugLogger.toggleWatchedPlayer(watched.getUniqueId());
+            player.sendMessage(ChatColor.GREEN + (nowWatched ? "Now logging debug output for " : "No longer filtering debug output to ") + watched.getName() + ".");
+            return;
+        }
+
+        Boolean state = null;
+        if (args.length >= 4) {
+            if (args[3].equalsIgnoreCase("on")) {
+                state = true;
+            } else if (args[3].equalsIgnoreCase("off")) {
+                state = false;
+            } else {
+                player.sendMessage(ChatColor.RED + "Usage: /tag admin debug <category|all> [on|off]");
+                return;
+            }
+        }
+
+        if (target.equals("all")) {
+            boolean enable = state != null ? state : debugLogger.getEnabledCategories().size() < DebugLogger.Category.values().length;
+            debugLogger.setAllEnabled(enable);
+            player.sendMessage(ChatColor.GREEN + "All debug categories " + (enable ? "enabled." : "disabled."));
+            return;
+        }
+
+        DebugLogger.Category category = DebugLogger.Category.fromName(target);
+        if (category == null) {
+            player.sendMessage(ChatColor.RED + "Unknown debug category: " + args[2]);
+            return;
+        }
+        boolean enable = state != null ? state : !debugLogger.isEnabled(category);
+        debugLogger.setEnabled(category, enable);
+        player.sendMessage(ChatColor.GREEN + "Debug category " + target + " " + (enable ? "enabled." : "disabled."));
     }
 
     private void createTag(Player player, String[] args) {
@@ -310,9 +484,15 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         }
 
         // Add the new tag to the database
-        plugin.addTagToDatabase(new Tag(name, display, type, isPublic, Boolean.TRUE, material, weight)); // Use the isPublic variable
+        plugin.addTagToDatabase(new Tag(name, display, type, isPublic, Boolean.TRUE, material, weight)) // Use the isPublic variable
+                .thenAccept(created -> replyOnMainThread(player, created
+                        ? ChatColor.GREEN + "Tag '" + name + "' - " + display + ChatColor.GREEN + " has been created."
+                        : ChatColor.RED + "Failed to create tag '" + name + "'; see the console."));
+    }
 
-        player.sendMessage(ChatColor.GREEN + "Tag '" + name + "' - " + display + ChatColor.GREEN + " has been created.");
+    // Tag writes finish on the I/O executor; chat replies go back through the scheduler
+    private void replyOnMainThread(CommandSender sender, String message) {
+        Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(message));
     }
 
     private void deleteTag(Player player, String[] args) {
@@ -324,9 +504,9 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         String name = args[0];
 
         // Delete the tag from the database
-        plugin.deleteTagFromDatabase(name);
-
-        player.sendMessage(ChatColor.RED + "Tag '" + name + "' " + ChatColor.RED + "has been deleted.");
+        plugin.deleteTagFromDatabase(name).thenAccept(deleted -> replyOnMainThread(player, deleted
+                ? ChatColor.RED + "Tag '" + name + "' " + ChatColor.RED + "has been deleted."
+                : ChatColor.RED + "Failed to delete tag '" + name + "'; see the console."));
     }
 
     private void editTag(CommandSender sender, String[] args) {
@@ -344,19 +524,16 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         String attribute = args[2];
         String newValue = args[3];
 
-        if (!plugin.editTagAttribute(tagName, attribute, newValue)) {
-            sender.sendMessage(ChatColor.RED + "Failed to edit the tag. Please check the tag name, attribute, and new value.");
-            return;
-        }
-
-        sender.sendMessage(ChatColor.GREEN + "Successfully edited the tag.");
+        plugin.editTagAttribute(tagName, attribute, newValue).thenAccept(edited -> replyOnMainThread(sender, edited
+                ? ChatColor.GREEN + "Successfully edited the tag."
+                : ChatColor.RED + "Failed to edit the tag. Please check the tag name, attribute, and new value."));
     }
 
     private boolean isValidBoolean(String value) {
         return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
     }
 
-    private String isValidTag(String tag) {
+    static String isValidTag(String tag) {
         String colorCodePattern = "(&[0-9a-fA-F])";
         String invalidCodePattern = "(&[rRkKlLmMnNoO])";
         String tagPattern = "^" + colorCodePattern + "\\[" + "(?:(?:" + colorCodePattern + "|.)*){0,15}" + "\\]" + ".*" + "$";
@@ -408,7 +585,10 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         }
 
         // Save the name color preference using the correct method in uTags.java
-        plugin.savePlayerNameColorCode(player.getUniqueId(), finalColorCode);
+        if (!plugin.savePlayerNameColorCode(player.getUniqueId(), finalColorCode)) {
+            player.sendMessage(ChatColor.RED + "The server is busy; your name color was not changed. Try again in a moment.");
+            return;
+        }
 
         // Trigger display name update (assuming method exists in uTags)
         plugin.updatePlayerDisplayName(player); // Important: This needs implementation in uTags.java
@@ -435,14 +615,16 @@ public class TagCommand implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             suggestions.add("request");
             suggestions.add("set");
+            suggestions.add("search");
             if (player.hasPermission("utags.admin")) {
                 suggestions.add("admin");
             }
             suggestions.add("namecolor"); // Add namecolor suggestion
         } else if (args.length == 2) {
             if ("set".equalsIgnoreCase(args[0])) {
+                Set<String> permittedTags = plugin.getTagPermissionCache().getPermittedTagNames(player);
                 for (Tag tag : plugin.getAvailableTags(TagType.PREFIX)) {
-                    if (player.hasPermission("utags.tag." + tag.getName())) {
+                    if (permittedTags.contains(tag.getName())) {
                         suggestions.add(tag.getName());
                     }
                 }
@@ -454,6 +636,10 @@ public class TagCommand implements CommandExecutor, TabCompleter {
                     suggestions.add("edit"); // Add missing edit suggestion
                     suggestions.add("requests"); // Add missing requests suggestion
                     suggestions.add("purge");
+                    suggestions.add("debug");
+                    suggestions.add("stats");
+                    suggestions.add("import");
+                    suggestions.add("export");
                 }
             } else if ("namecolor".equalsIgnoreCase(args[0])) {
                 if (player.hasPermission("utags.command.namecolor")) {
@@ -494,6 +680,29 @@ public class TagCommand implements CommandExecutor, TabCompleter {
                     } else if (args.length == 4 && (args[2].equalsIgnoreCase("tags") || args[2].equalsIgnoreCase("requests"))) {
                         suggestions.add("confirm");
                     }
+                } else if ("import".equalsIgnoreCase(args[1]) || "export".equalsIgnoreCase(args[1])) {
+                    if (args.length == 3) {
+                        suggestions.add("tags.json");
+                    }
+                } else if ("stats".equalsIgnoreCase(args[1])) {
+                    if (args.length == 3) {
+                        suggestions.add("reset");
+                    }
+                } else if ("debug".equalsIgnoreCase(args[1])) {
+                    if (args.length == 3) {
+                        suggestions.add("all");
+                        suggestions.add("player");
+                        for (DebugLogger.Category category : DebugLogger.Category.values()) {
+                            suggestions.add(category.name().toLowerCase());
+                        }
+                    } else if (args.length == 4) {
+                        if ("player".equalsIgnoreCase(args[2])) {
+                            Bukkit.getOnlinePlayers().forEach(online -> suggestions.add(online.getName()));
+                        } else {
+                            suggestions.add("on");
+                            suggestions.add("off");
+                        }
+                    }
                 }
                 // TODO: Add suggestions for 'edit' command
             }
@@ -0,0 +1,86 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+/**
+ * A tag display such as "&a[VIP]" split once into the text before the opening bracket,
+ * the bracket content and the text after the closing bracket, with the colour lookups
+ * the recolouring needs already done. {@link #format(ChatColor, ChatColor)} produces exactly
+ * what {@link uTags#formatTagDisplayWithColor(String, PlayerTagColorPreference)} always has.
+ */
+public final class TagDisplayFormat {
+
+    private final String display;
+    private final boolean bracketed;
+    private final String leading;           // Everything before '['
+    private final String content;           // Everything between '[' and ']'
+    private final String trailing;          // Everything after ']'
+    private final String leadingLastColors; // ChatColor.getLastColors(leading)
+    private final String contentLastColors; // ChatColor.getLastColors(content)
+
+    private TagDisplayFormat(String display, boolean bracketed, String leading, String content, String trailing) {
+        this.display = display;
+        this.bracketed = bracketed;
+        this.leading = leading;
+        this.content = content;
+        this.trailing = trailing;
+        this.leadingLastColors = bracketed ? ChatColor.getLastColors(leading) : "";
+        this.contentLastColors = bracketed ? ChatColor.getLastColors(content) : "";
+    }
+
+    /**
+     * Parses a display string. Displays without a "[...]" pair are kept as-is and
+     * {@link #isBracketed()} returns false.
+     */
+    public static TagDisplayFormat parse(String display) {
+        int openBracketIndex = display.indexOf('[');
+        int closeBracketIndex = display.indexOf(']');
+        if (openBracketIndex == -1 || closeBracketIndex == -1 || openBracketIndex >= closeBracketIndex) {
+            return new TagDisplayFormat(display, false, null, null, null);
+        }
+        return new TagDisplayFormat(display,
+                true,
+                display.substring(0, openBracketIndex),
+                display.substring(openBracketIndex + 1, closeBracketIndex),
+                display.substring(closeBracketIndex + 1));
+    }
+
+    public String getDisplay() {
+        return display;
+    }
+
+    public boolean isBracketed() {
+        return bracketed;
+    }
+
+    /**
+     * Recolours the display. A null colour keeps the display's own colour for that part.
+     *
+     * @param bracketColor The colour for both brackets, or null.
+     * @param contentColor The colour for the text inside the brackets, or null.
+     * @return The recoloured display, or the original display if it has no brackets.
+     */
+    public String format(ChatColor bracketColor, ChatColor contentColor) {
+        if (!bracketed) {
+            return display;
+        }
+
+        String bracketCode = bracketColor != null ? bracketColor.toString() : leadingLastColors;
+        String contentCode;
+        if (contentColor != null) {
+            contentCode = contentColor.toString();
+        } else if (!contentLastColors.isEmpty()) {
+            contentCode = contentLastColors; // Keep the original colour used inside the brackets
+        } else {
+            contentCode = bracketCode; // Otherwise whatever colour was active before the content
+        }
+
+        StringBuilder formatted = new StringBuilder(display.length() + 3 * bracketCode.length() + contentCode.length());
+        formatted.append(leading)
+                .append(bracketCode).append('[')
+                .append(contentCode).append(content)
+                .append(bracketCode).append(']')
+                .append(trailing);
+        return formatted.toString();
+    }
+}
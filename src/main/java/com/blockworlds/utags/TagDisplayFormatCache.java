@@ -0,0 +1,119 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Bounded LRU caches for tag display formatting: parsed {@link TagDisplayFormat}s keyed by display,
+ * and finished strings keyed by (display, bracket colour, content colour). With 16 colours per part
+ * a display has at most a few hundred variants, and in practice players share a handful of them.
+ * Safe to call from any thread.
+ */
+public class TagDisplayFormatCache {
+
+    private static final int MAX_FORMATS = 1024;
+    private static final int MAX_RESULTS = 4096;
+
+    private final Logger logger;
+    private final Map<String, TagDisplayFormat> formats = new LruMap<>(MAX_FORMATS);
+    private final Map<FormatKey, String> results = new LruMap<>(MAX_RESULTS);
+
+    public TagDisplayFormatCache(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * @return The display recoloured with the given colours; null colours keep the display's own.
+     */
+    public String format(String display, ChatColor bracketColor, ChatColor contentColor) {
+        FormatKey key = new FormatKey(display, bracketColor, contentColor);
+        synchronized (results) {
+            String cached = results.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String formatted = getFormat(display).format(bracketColor, contentColor);
+        synchronized (results) {
+            results.put(key, formatted);
+        }
+        return formatted;
+    }
+
+    /**
+     * @return The parsed form of the display, parsing it on first use.
+     */
+    public TagDisplayFormat getFormat(String display) {
+        synchronized (formats) {
+            TagDisplayFormat format = formats.get(display);
+            if (format != null) {
+                return format;
+            }
+        }
+        TagDisplayFormat format = TagDisplayFormat.parse(display);
+        if (!format.isBracketed()) {
+            // Logged once per display rather than on every render
+            logger.warning("Could not parse brackets in tag display: " + display);
+        }
+        synchronized (formats) {
+            formats.put(display, format);
+        }
+        return format;
+    }
+
+    public void clear() {
+        synchronized (formats) {
+            formats.clear();
+        }
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int maxEntries;
+
+        private LruMap(int maxEntries) {
+            super(16, 0.75f, true); // Access order, so the least recently used entry is evicted
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static final class FormatKey {
+        private final String display;
+        private final ChatColor bracketColor;
+        private final ChatColor contentColor;
+        private final int hash;
+
+        private FormatKey(String display, ChatColor bracketColor, ChatColor contentColor) {
+            this.display = display;
+            this.bracketColor = bracketColor;
+            this.contentColor = contentColor;
+            this.hash = Objects.hash(display, bracketColor, contentColor);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FormatKey)) return false;
+            FormatKey other = (FormatKey) o;
+            return bracketColor == other.bracketColor
+                    && contentColor == other.contentColor
+                    && display.equals(other.display);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-built menu items for each tag in the tag selection GUI.
+ * Templates are built once per catalog version; rendering for a player only copies a template
+ * when the player's color override or the selected glow has to be applied on top.
+ * Bukkit copies items on {@code Inventory.setItem}, so unchanged templates are placed as-is.
+ */
+public class TagItemTemplateCache {
+
+    private final uTags plugin;
+    private final Map<String, Template> templates = new HashMap<>();
+    private long catalogVersion = -1L;
+
+    public TagItemTemplateCache(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Builds the item shown to a player who has permission to use the tag.
+     *
+     * @param tag        The tag.
+     * @param preference The player's color preference for the tag, or null.
+     * @param selected   Whether the player is currently wearing the tag.
+     */
+    public ItemStack getItem(Tag tag, PlayerTagColorPreference preference, boolean selected) {
+        Template template = getTemplate(tag);
+        boolean recolored = preference != null && !preference.isDefault();
+        if (!recolored && !selected) {
+            return template.defaultItem;
+        }
+
+        ItemStack item = template.defaultItem.clone();
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return item;
+        }
+
+        if (recolored) {
+            String display = ChatColor.translateAlternateColorCodes('&', plugin.formatTagDisplayWithColor(tag.getDisplay(), preference));
+            meta.setDisplayName(display);
+            if (!display.equals(template.defaultDisplay)) {
+                List<String> lore = new ArrayList<>(template.loreHead);
+                lore.add(ChatColor.YELLOW + "Default: " + template.defaultDisplay);
+                lore.addAll(template.loreTail);
+                meta.setLore(lore);
+            }
+        }
+
+        // Add enchantment glow if this is the currently selected tag
+        if (selected) {
+            try {
+                meta.addEnchant(Enchantment.LURE, 1, true); // Use any enchantment
+                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to add enchantment glow: " + e.getMessage());
+            }
+        }
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    /**
+     * @return The locked (barrier) item shown for public tags the player has no permission for.
+     */
+    public ItemStack getLockedItem(Tag tag) {
+        return getTemplate(tag).lockedItem;
+    }
+
+    private synchronized Template getTemplate(Tag tag) {
+        long version = plugin.getTagCatalog().getVersion();
+        if (version != catalogVersion) {
+            // Tags were added, edited or removed; rebuild templates lazily
+            templates.clear();
+            catalogVersion = version;
+        }
+        return templates.computeIfAbsent(tag.getName(), name -> buildTemplate(tag));
+    }
+
+    private Template buildTemplate(Tag tag) {
+        String defaultDisplay = ChatColor.translateAlternateColorCodes('&', tag.getDisplay());
+
+        List<String> loreHead = new ArrayList<>();
+        loreHead.add(" "); // Spacer
+        loreHead.add(ChatColor.YELLOW + "Click to Select");
+        loreHead.add(ChatColor.DARK_GRAY + "ID: " + tag.getName()); // Use DARK_GRAY for internal info
+        List<String> loreTail = new ArrayList<>();
+        // Add color customization hint if applicable
+        if (tag.isColor()) {
+            loreTail.add(ChatColor.AQUA + "Right-click to change color");
+        }
+
+        ItemStack defaultItem = tag.getMaterial().clone(); // Clone to avoid modifying original
+        ItemMeta meta = defaultItem.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(defaultDisplay);
+            List<String> lore = new ArrayList<>(loreHead);
+            lore.addAll(loreTail);
+            meta.setLore(lore);
+            defaultItem.setItemMeta(meta);
+        }
+
+        ItemStack lockedItem = new ItemStack(Material.BARRIER); // Locked item material
+        ItemMeta lockedMeta = lockedItem.getItemMeta();
+        if (lockedMeta != null) {
+            lockedMeta.setDisplayName(ChatColor.GRAY + "" + ChatColor.STRIKETHROUGH + defaultDisplay);
+            List<String> lockedLore = new ArrayList<>();
+            lockedLore.add(ChatColor.RED + "Locked - Requires Permission");
+            lockedLore.add(ChatColor.GRAY + "Permission: utags.tag." + tag.getName());
+            lockedLore.add(" ");
+            lockedLore.add(ChatColor.DARK_GRAY + "ID: " + tag.getName());
+            lockedMeta.setLore(lockedLore);
+            lockedItem.setItemMeta(lockedMeta);
+        }
+
+        return new Template(defaultItem, lockedItem, defaultDisplay,
+                Collections.unmodifiableList(loreHead), Collections.unmodifiableList(loreTail));
+    }
+
+    private static final class Template {
+        private final ItemStack defaultItem;
+        private final ItemStack lockedItem;
+        private final String defaultDisplay;  // Color-translated tag display
+        private final List<String> loreHead;  // Lines before the optional "Default:" line
+        private final List<String> loreTail;  // Lines after it
+
+        private Template(ItemStack defaultItem, ItemStack lockedItem, String defaultDisplay,
+                         List<String> loreHead, List<String> loreTail) {
+            this.defaultItem = defaultItem;
+            this.lockedItem = lockedItem;
+            this.defaultDisplay = defaultDisplay;
+            this.loreHead = loreHead;
+            this.loreTail = loreTail;
+        }
+    }
+}
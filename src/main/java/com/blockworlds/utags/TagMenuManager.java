@@ -13,13 +13,18 @@ import org.bukkit.inventory.meta.SkullMeta;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class TagMenuManager {
+    static final int ITEMS_PER_PAGE = 28; // 4 rows * 7 slots
+
     private final uTags plugin;
+    private final TagItemTemplateCache itemTemplates;
 
     public TagMenuManager(uTags plugin) {
         this.plugin = plugin;
+        this.itemTemplates = new TagItemTemplateCache(plugin);
     }
 
     // Original method - will be modified later to directly open selection
@@ -53,11 +58,27 @@ public class TagMenuManager {
     // --- Methods moved from TagMenuListener ---
 
     public void openTagSelection(Player player, int pageIndex, TagType selectionType) {
-        List<Tag> tags = plugin.getAvailableTags(selectionType);
-        // Filter tags based on type (prefix/suffix/both)
-        List<Tag> availableTags = tags.stream()
-                .filter(tag -> tag.getType() == selectionType || tag.getType() == TagType.BOTH)
-                .collect(Collectors.toList());
+        openTagSelection(player, pageIndex, selectionType, null);
+    }
+
+    /**
+     * Opens the selection menu, optionally narrowed to tags matching a search.
+     *
+     * @param searchQuery Text the tag name or display must contain, or null for every tag.
+     *                    Kept in the menu holder so paging and switching type keep the search.
+     */
+    public void openTagSelection(Player player, int pageIndex, TagType selectionType, String searchQuery) {
+        long renderStart = plugin.getMetrics().start();
+        if (searchQuery != null && searchQuery.trim().isEmpty()) {
+            searchQuery = null;
+        }
+        // The catalog's prefix/suffix views already include BOTH tags. Search results mix every type,
+        // so only those are filtered here
+        List<Tag> availableTags = searchQuery == null
+                ? plugin.getAvailableTags(selectionType)
+                : plugin.getTagCatalog().search(searchQuery).stream()
+                        .filter(tag -> tag.getType() == selectionType || tag.getType() == TagType.BOTH)
+                        .collect(Collectors.toList());
 
         // We will now filter tags inside populateTagSelectionInventory based on preference
         // List<Tag> permittedTags = availableTags.stream()
@@ -66,57 +87,80 @@ public class TagMenuManager {
         // Pass all available tags of the correct type
         List<Tag> tagsToDisplay = availableTags;
 
-        String inventoryTitle = selectionType == TagType.PREFIX ? "Select Prefix" : "Select Suffix";
+        String inventoryTitle = searchQuery != null ? "Search: " + searchQuery
+                : selectionType == TagType.PREFIX ? "Select Prefix" : "Select Suffix";
         // Ensure title length doesn't exceed limits, add page number safely
         String fullTitle = inventoryTitle + " (Page " + (pageIndex + 1) + ")";
         if (fullTitle.length() > 32) {
             fullTitle = inventoryTitle.substring(0, Math.min(inventoryTitle.length(), 25)) + "... (P" + (pageIndex + 1) + ")";
         }
 
+        UTagsMenuHolder holder = new UTagsMenuHolder(UTagsMenuHolder.Kind.TAG_SELECTION, pageIndex, selectionType, searchQuery);
         Inventory inventory = createInventoryFrame(54, fullTitle,
-                Material.valueOf(plugin.getConfig().getString("frame-material", "BLACK_STAINED_GLASS_PANE")), player);
+                Material.valueOf(plugin.getConfig().getString("frame-material", "BLACK_STAINED_GLASS_PANE")), holder);
 
-        populateTagSelectionInventory(player, inventory, tagsToDisplay, pageIndex, selectionType);
+        populateTagSelectionInventory(player, holder, inventory, tagsToDisplay, pageIndex, selectionType);
+        addSearchButton(holder, inventory, searchQuery);
+        if (searchQuery != null && tagsToDisplay.isEmpty()) {
+            player.sendMessage(ChatColor.YELLOW + "No " + (selectionType == TagType.PREFIX ? "prefixes" : "suffixes") + " match '" + searchQuery + "'.");
+        }
 
         // Add custom tag slots only for Prefix menu (top row)
         if (selectionType == TagType.PREFIX) {
             int[] itemSlots = {1, 3, 5, 7}; // Top row slots for custom tags
             for (int i = 0; i < itemSlots.length; i++) {
                 // Only add if slot index is valid (e.g., 0-3 for 4 slots)
-                ItemStack customTagItem = createCustomTagMenuItem(player, i);
+                ItemStack customTagItem = createCustomTagMenuItem(player, i, holder, itemSlots[i]);
                 inventory.setItem(itemSlots[i], customTagItem);
             }
         }
 
         player.openInventory(inventory);
+        plugin.getMetrics().record(UTagsMetrics.Timer.MENU_TAG_SELECTION, renderStart);
     }
 
-    private void populateTagSelectionInventory(Player player, Inventory inventory, List<Tag> allAvailableTags, int pageIndex, TagType selectionType) {
-        int itemsPerPage = 28; // 4 rows * 7 slots
-        int startIndex = pageIndex * itemsPerPage;
-        // We need to iterate through all tags and apply filtering *before* pagination logic.
-        // This requires restructuring how pagination works.
-
-        boolean showAll = plugin.getShowAllPublicTagsPreference(player.getUniqueId());
+    /**
+     * Picks the tags a player sees in the selection menu: every permitted tag, plus public tags
+     * (shown locked) when the player has "show all" on. Order is preserved.
+     */
+    static List<Tag> filterDisplayableTags(List<Tag> allAvailableTags, Set<String> permittedTags, boolean showAll) {
         List<Tag> displayableTags = new ArrayList<>();
-
         for (Tag tag : allAvailableTags) {
-            boolean hasPermission = player.hasPermission("utags.tag." + tag.getName());
-            boolean isPublic = tag.isPublic();
-
-            if (hasPermission) {
+            if (permittedTags.contains(tag.getName())) {
                 displayableTags.add(tag); // Always show if permitted
-            } else if (showAll && isPublic) {
-                // Mark this tag to be shown as locked (we'll handle item creation later)
-                displayableTags.add(tag); // Add it, but we'll modify its appearance
+            } else if (showAll && tag.isPublic()) {
+                displayableTags.add(tag); // Shown, but as a locked item
             }
-            // Implicitly skip if !hasPermission && !showAll
-            // Implicitly skip if !hasPermission && showAll && !isPublic
         }
+        return displayableTags;
+    }
+
+    /**
+     * Filters a catalog view with {@link #filterDisplayableTags} and slices out one page of it.
+     * A page past the end is empty.
+     */
+    static SelectionPage selectionPage(List<Tag> tagsOfType, Set<String> permittedTags, boolean showAll, int pageIndex) {
+        List<Tag> displayableTags = filterDisplayableTags(tagsOfType, permittedTags, showAll);
+        int startIndex = Math.min(Math.max(0, pageIndex) * ITEMS_PER_PAGE, displayableTags.size());
+        int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, displayableTags.size());
+        return new SelectionPage(displayableTags.subList(startIndex, endIndex), displayableTags.size());
+    }
+
+    static final class SelectionPage {
+        final List<Tag> tags;
+        final int totalDisplayable; // Across every page, for the next page arrow
+
+        SelectionPage(List<Tag> tags, int totalDisplayable) {
+            this.tags = tags;
+            this.totalDisplayable = totalDisplayable;
+        }
+    }
 
-        int totalDisplayableItems = displayableTags.size();
-        // int startIndex = pageIndex * itemsPerPage; // Removed duplicate declaration
-        int endIndex = Math.min(startIndex + itemsPerPage, totalDisplayableItems);
+    private void populateTagSelectionInventory(Player player, UTagsMenuHolder holder, Inventory inventory, List<Tag> allAvailableTags, int pageIndex, TagType selectionType) {
+        boolean showAll = plugin.getShowAllPublicTagsPreference(player.getUniqueId());
+        // Resolved once per player and reused by both loops below
+        Set<String> permittedTags = plugin.getTagPermissionCache().getPermittedTagNames(player);
+        SelectionPage page = selectionPage(allAvailableTags, permittedTags, showAll, pageIndex);
         // Slots available for tags (excluding frame and navigation)
         int[] itemSlots = {10, 11, 12, 13, 14, 15, 16,
                            19, 20, 21, 22, 23, 24, 25,
@@ -135,94 +179,45 @@ public class TagMenuManager {
 
 
         int slotIndex = 0;
-        for (int i = startIndex; i < endIndex; i++) {
+        for (Tag tag : page.tags) {
             if (slotIndex >= itemSlots.length) break; // Safety check
 
-            Tag tag = displayableTags.get(i);
-            boolean hasPermission = player.hasPermission("utags.tag." + tag.getName());
+            boolean hasPermission = permittedTags.contains(tag.getName());
             // We already filtered based on showAll preference, so we just need to know
             // if we need to display it normally or as locked.
 
             ItemStack tagItem;
-            ItemMeta tagMeta;
-
+            MenuAction action;
             if (hasPermission) {
-                // --- Normal Tag Item Creation ---
-                tagItem = tag.getMaterial().clone(); // Clone to avoid modifying original
-                tagMeta = tagItem.getItemMeta();
-
-                if (tagMeta != null) {
-                    // Get player preference and format display name
-                    PlayerTagColorPreference preference = plugin.getPlayerTagColorPreference(player.getUniqueId(), tag.getName());
-                    String formattedDisplay = plugin.formatTagDisplayWithColor(tag.getDisplay(), preference);
-                    String display = ChatColor.translateAlternateColorCodes('&', formattedDisplay);
-                    tagMeta.setDisplayName(display);
-
-                    List<String> lore = new ArrayList<>();
-                    lore.add(" "); // Spacer
-                    lore.add(ChatColor.YELLOW + "Click to Select");
-                    lore.add(ChatColor.DARK_GRAY + "ID: " + tag.getName()); // Use DARK_GRAY for internal info
-                    // Add default display to lore if different from current display
-                    String defaultDisplay = ChatColor.translateAlternateColorCodes('&', tag.getDisplay());
-                    if (!display.equals(defaultDisplay)) {
-                        lore.add(ChatColor.YELLOW + "Default: " + defaultDisplay);
-                    }
-                    // Add color customization hint if applicable
-                    if (tag.isColor()) {
-                        lore.add(ChatColor.AQUA + "Right-click to change color");
-                    }
-                    tagMeta.setLore(lore);
-
-                    // Add enchantment glow if this is the currently selected tag
-                    if (currentTagDisplay != null && currentTagDisplay.equals(tag.getDisplay())) { // Compare raw display string from DB
-                       try {
-                           tagItem.addUnsafeEnchantment(org.bukkit.enchantments.Enchantment.LURE, 1); // Use any enchantment
-                           tagMeta.addItemFlags(org.bukkit.inventory.ItemFlag.HIDE_ENCHANTS);
-                       } catch (Exception e) {
-                           plugin.getLogger().warning("Failed to add enchantment glow: " + e.getMessage());
-                       }
-                    }
-                    tagItem.setItemMeta(tagMeta); // Apply meta changes
-                }
-                // --- End Normal Tag Item Creation ---
+                // Template item, with the player's color override and selected glow applied if needed
+                PlayerTagColorPreference preference = plugin.getPlayerTagColorPreference(player.getUniqueId(), tag.getName());
+                boolean selected = currentTagDisplay != null && currentTagDisplay.equals(tag.getDisplay()); // Compare raw display string from DB
+                tagItem = itemTemplates.getItem(tag, preference, selected);
+                action = new MenuAction(MenuAction.Type.SELECT_TAG, tag.getName());
             } else {
-                // --- Locked Tag Item Creation ---
                 // Player doesn't have permission, but showAll is true and tag is public
-                tagItem = new ItemStack(Material.BARRIER); // Locked item material
-                tagMeta = tagItem.getItemMeta();
-
-                if (tagMeta != null) {
-                    String display = ChatColor.translateAlternateColorCodes('&', tag.getDisplay()); // Show original display but grayed out?
-                    tagMeta.setDisplayName(ChatColor.GRAY + "" + ChatColor.STRIKETHROUGH + display); // Example: Grayed out display
-
-                    List<String> lore = new ArrayList<>();
-                    lore.add(ChatColor.RED + "Locked - Requires Permission");
-                    lore.add(ChatColor.GRAY + "Permission: utags.tag." + tag.getName());
-                    lore.add(" ");
-                    lore.add(ChatColor.DARK_GRAY + "ID: " + tag.getName());
-                    tagMeta.setLore(lore);
-
-                    tagItem.setItemMeta(tagMeta);
-                }
-                // --- End Locked Tag Item Creation ---
+                tagItem = itemTemplates.getLockedItem(tag);
+                action = new MenuAction(MenuAction.Type.LOCKED_TAG, tag.getName());
             }
 
 
             // Place the created item (either normal or locked) into the inventory
             inventory.setItem(itemSlots[slotIndex], tagItem);
+            holder.setSlotAction(itemSlots[slotIndex], action);
             slotIndex++;
         }
         // Pass total count of *displayable* tags for accurate pagination
-        addExtraMenuItems(player, inventory, pageIndex, totalDisplayableItems, itemsPerPage, selectionType);
+        addExtraMenuItems(player, holder, inventory, pageIndex, page.totalDisplayable, ITEMS_PER_PAGE, selectionType);
     }
 
-    private void addExtraMenuItems(Player player, Inventory inventory, int pageIndex, int totalPermittedTags, int itemsPerPage, TagType currentType) {
+    private void addExtraMenuItems(Player player, UTagsMenuHolder holder, Inventory inventory, int pageIndex, int totalPermittedTags, int itemsPerPage, TagType currentType) {
         addPlayerHead(player, inventory, 49); // Player info always at bottom center
 
         // Previous Page Arrow
         if (pageIndex > 0) {
             ItemStack prevPageItem = createNavigationArrow(ChatColor.AQUA + "Previous Page");
             inventory.setItem(45, prevPageItem); // Bottom left
+            holder.setSlotAction(45, new MenuAction(MenuAction.Type.PREVIOUS_PAGE));
         }
 
         // Next Page Arrow
@@ -230,6 +225,7 @@ public class TagMenuManager {
         if ((pageIndex + 1) * itemsPerPage < totalPermittedTags) {
             ItemStack nextPageItem = createNavigationArrow(ChatColor.AQUA + "Next Page");
             inventory.setItem(53, nextPageItem); // Bottom right
+            holder.setSlotAction(53, new MenuAction(MenuAction.Type.NEXT_PAGE));
         }
 
         // Add Switch Button (Prefix/Suffix)
@@ -250,6 +246,7 @@ public class TagMenuManager {
             switchItem.setItemMeta(switchMeta);
         }
         inventory.setItem(48, switchItem); // Slot next to player head (left)
+        holder.setSlotAction(48, new MenuAction(MenuAction.Type.SWITCH_TYPE));
 
         // Add Remove Tag Button
         ItemStack removeItem = new ItemStack(Material.BARRIER);
@@ -260,6 +257,7 @@ public class TagMenuManager {
             removeItem.setItemMeta(removeMeta);
         }
         inventory.setItem(50, removeItem); // Slot next to player head (right)
+        holder.setSlotAction(50, new MenuAction(MenuAction.Type.REMOVE_TAG));
 
         // Add Change Name Color Button
         ItemStack changeNameColorItem = new ItemStack(Material.EMERALD);
@@ -270,13 +268,13 @@ public class TagMenuManager {
             changeNameColorItem.setItemMeta(changeNameColorMeta);
         }
         inventory.setItem(47, changeNameColorItem); // Slot next to switch button (left)
+        holder.setSlotAction(47, new MenuAction(MenuAction.Type.OPEN_NAME_COLOR));
 
         // Add Tag Visibility Toggle Button (New)
         boolean showAll = plugin.getShowAllPublicTagsPreference(player.getUniqueId());
         ItemStack toggleItem;
         ItemMeta toggleMeta;
         List<String> toggleLore = new ArrayList<>();
-        String identifierLore = ChatColor.DARK_GRAY + "utag_toggle_visibility"; // Identifier for listener
 
         if (showAll) {
             toggleItem = new ItemStack(Material.ENDER_PEARL);
@@ -285,8 +283,6 @@ public class TagMenuManager {
                 toggleMeta.setDisplayName(ChatColor.AQUA + "Show: All Public Tags");
                 toggleLore.add(ChatColor.GRAY + "Currently showing all public tags.");
                 toggleLore.add(ChatColor.YELLOW + "Click to show only permitted tags.");
-                toggleLore.add(" ");
-                toggleLore.add(identifierLore);
                 toggleMeta.setLore(toggleLore);
             }
         } else {
@@ -297,8 +293,6 @@ public class TagMenuManager {
                 toggleLore.add(ChatColor.GRAY + "Currently showing only tags you");
                 toggleLore.add(ChatColor.GRAY + "have permission for.");
                 toggleLore.add(ChatColor.YELLOW + "Click to show all public tags.");
-                 toggleLore.add(" ");
-                toggleLore.add(identifierLore);
                toggleMeta.setLore(toggleLore);
             }
         }
@@ -307,6 +301,28 @@ public class TagMenuManager {
             toggleItem.setItemMeta(toggleMeta);
         }
         inventory.setItem(51, toggleItem); // Slot next to remove button (right)
+        holder.setSlotAction(51, new MenuAction(MenuAction.Type.TOGGLE_VISIBILITY));
+    }
+
+    private void addSearchButton(UTagsMenuHolder holder, Inventory inventory, String searchQuery) {
+        ItemStack searchItem = new ItemStack(Material.COMPASS);
+        ItemMeta searchMeta = searchItem.getItemMeta();
+        if (searchMeta != null) {
+            searchMeta.setDisplayName(ChatColor.GOLD + "Search Tags");
+            List<String> searchLore = new ArrayList<>();
+            if (searchQuery != null) {
+                searchLore.add(ChatColor.GRAY + "Searching: " + ChatColor.WHITE + searchQuery);
+                searchLore.add(ChatColor.YELLOW + "Click to search again.");
+                searchLore.add(ChatColor.YELLOW + "Right-click to show all tags.");
+            } else {
+                searchLore.add(ChatColor.GRAY + "Find tags by name or display.");
+                searchLore.add(ChatColor.YELLOW + "Click, then type in chat.");
+            }
+            searchMeta.setLore(searchLore);
+            searchItem.setItemMeta(searchMeta);
+        }
+        inventory.setItem(52, searchItem); // Between the visibility toggle and the next page arrow
+        holder.setSlotAction(52, new MenuAction(MenuAction.Type.SEARCH));
     }
 
     public void addPlayerHead(Player player, Inventory inventory, int location) {
@@ -352,7 +368,7 @@ public class TagMenuManager {
         return arrowItem;
     }
 
-    public Inventory createInventoryFrame(int size, String title, Material frameMaterial, Player player) {
+    public Inventory createInventoryFrame(int size, String title, Material frameMaterial, UTagsMenuHolder holder) {
         // Ensure size is valid
         if (size <= 0 || size % 9 != 0) {
             size = 54; // Default to max size if invalid
@@ -361,7 +377,7 @@ public class TagMenuManager {
         if (title.length() > 32) {
             title = title.substring(0, 32);
         }
-        Inventory inventory = Bukkit.createInventory(player, size, title);
+        Inventory inventory = holder.createInventory(size, title);
 
         ItemStack frameItem = new ItemStack(frameMaterial);
         ItemMeta frameMeta = frameItem.getItemMeta();
@@ -381,17 +397,16 @@ public class TagMenuManager {
         return inventory;
     }
 
-    private ItemStack createCustomTagMenuItem(Player player, int slotIndex) {
+    private ItemStack createCustomTagMenuItem(Player player, int slotIndex, UTagsMenuHolder holder, int inventorySlot) {
         // slotIndex is 0-based (0, 1, 2, 3 for 4 slots)
         String permissionBase = "utags.custom"; // e.g., utags.custom1, utags.custom2
-        String permissionTagBase = "utags.tag." + player.getName(); // e.g., utags.tag.PlayerName1
         ItemStack item;
         ItemMeta meta;
 
-        String customTagPermission = permissionTagBase + (slotIndex + 1); // Permission for the specific tag
+        String customTagName = player.getName() + (slotIndex + 1); // e.g., PlayerName1, granted by utags.tag.PlayerName1
         String customSlotPermission = permissionBase + (slotIndex + 1); // Permission for the slot itself
 
-        if (player.hasPermission(customTagPermission)) {
+        if (plugin.getTagPermissionCache().canUse(player, customTagName)) {
             // Player has the specific custom tag unlocked (implies they also have the slot permission)
             item = new ItemStack(Material.PLAYER_HEAD, 1);
             SkullMeta skullMeta = (SkullMeta) item.getItemMeta();
@@ -428,17 +443,13 @@ public class TagMenuManager {
                  }
                  meta.setLore(finalLoreSet);
 
-
-                 // TODO: Add PersistentDataContainer here too
-                 // PersistentDataContainer pdc = meta.getPersistentDataContainer();
-                 // pdc.set(new NamespacedKey(plugin, "utag_internal_name"), PersistentDataType.STRING, tagInternalName);
-
             } else {
                  // Fallback if SkullMeta fails
                  item = new ItemStack(Material.PAPER);
                  meta = item.getItemMeta();
                  meta.setDisplayName(ChatColor.GOLD + "Custom Tag #" + (slotIndex + 1));
             }
+            holder.setSlotAction(inventorySlot, new MenuAction(MenuAction.Type.SELECT_TAG, player.getName() + (slotIndex + 1)));
 
         } else if (player.hasPermission(customSlotPermission)) {
             // Player has the slot unlocked but hasn't requested/received the specific tag permission yet
@@ -460,6 +471,7 @@ public class TagMenuManager {
                 finalLoreReq.add(ChatColor.GRAY + "to submit your custom tag.");
             }
             meta.setLore(finalLoreReq); // Use finalLoreReq here
+            holder.setSlotAction(inventorySlot, new MenuAction(MenuAction.Type.REQUEST_CUSTOM_SLOT, String.valueOf(slotIndex)));
         } else {
             // Player does not have permission for this slot
             item = new ItemStack(Material.BARRIER, 1);
@@ -479,6 +491,7 @@ public class TagMenuManager {
                 finalLoreLocked.add(ChatColor.GRAY + "or visiting the server store.");
             }
             meta.setLore(finalLoreLocked);
+            holder.setSlotAction(inventorySlot, new MenuAction(MenuAction.Type.LOCKED_CUSTOM_SLOT, String.valueOf(slotIndex)));
         } // End of the main if-else if-else structure
 
         if (meta != null) { // Ensure meta is not null before setting
@@ -492,7 +505,9 @@ public class TagMenuManager {
     // Method to open the custom tag request confirmation GUI
     public void openRequestConfirmation(Player player, String requestedTagDisplay) {
         // Simple 9-slot inventory for confirmation
-        Inventory confirmationMenu = Bukkit.createInventory(player, 9, "Confirm Tag Request");
+        // The raw display (with '&' codes) travels in the holder, so the listener never has to reverse the preview lore
+        UTagsMenuHolder holder = new UTagsMenuHolder(UTagsMenuHolder.Kind.REQUEST_CONFIRMATION, 0, null, requestedTagDisplay);
+        Inventory confirmationMenu = holder.createInventory(9, "Confirm Tag Request");
 
         // Item showing the tag preview
         ItemStack previewItem = new ItemStack(Material.PAPER); // Or NAME_TAG
@@ -504,9 +519,6 @@ public class TagMenuManager {
                     " ",
                     ChatColor.GRAY + "Is this the tag you want to request?"
             ));
-            // Store the requested tag display in the item's PDC for the listener
-            // TODO: Implement PDC
-            // previewMeta.getPersistentDataContainer().set(new NamespacedKey(plugin, "utag_request_display"), PersistentDataType.STRING, requestedTagDisplay);
             previewItem.setItemMeta(previewMeta);
         }
 
@@ -0,0 +1,264 @@
+package com.blockworlds.utags;
+
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeEqualityPredicate;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.types.PrefixNode;
+import net.luckperms.api.node.types.SuffixNode;
+import org.bukkit.ChatColor;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Owns the LuckPerms prefix and suffix nodes uTags writes (priority {@link uTags#TAG_PREFIX_PRIORITY}).
+ * Callers describe the node value they want; the manager compares it with the value it last wrote
+ * and only edits and saves the user when the value actually changes.
+ * Edits for the same user are chained, so two saves for one player never run at the same time.
+ */
+public class TagNodeManager {
+
+    private static final int PRIORITY = uTags.TAG_PREFIX_PRIORITY;
+    private static final String DEFAULT_NAME_COLOR = ChatColor.WHITE.toString();
+
+    private final uTags plugin;
+    private final Map<UUID, CompletableFuture<Void>> chains = new ConcurrentHashMap<>();
+    // Last prefix/suffix value uTags wrote (or found) per user; avoids scanning the node map
+    private final Map<UUID, String> ownedPrefixes = new ConcurrentHashMap<>();
+    private final Map<UUID, String> ownedSuffixes = new ConcurrentHashMap<>();
+
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong skippedSaves = new AtomicLong();
+
+    public TagNodeManager(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Builds the prefix node value for a tag: the display in the player's colours followed by their name colour.
+     *
+     * @param nameColor The translated name colour code (e.g. "§a") appended after the tag.
+     */
+    public String computePrefixValue(Tag tag, PlayerTagColorPreference preference, String nameColor) {
+        return plugin.formatTagDisplayWithColor(tag.getDisplay(), preference) + nameColor;
+    }
+
+    /**
+     * Puts the tag on as the player's prefix, in their colour preference for it and followed by their name colour.
+     *
+     * @return A future completing with true if the user was changed and saved.
+     */
+    public CompletableFuture<Boolean> applyTagPrefix(UUID playerUuid, Tag tag) {
+        return modifyUser(playerUuid, user -> {
+            String target = computePrefixValue(tag, plugin.getPlayerTagColorPreference(playerUuid, tag.getName()), resolveNameColor(user));
+            return setOwnedNode(user, NodeType.PREFIX, ownedPrefixes, target);
+        });
+    }
+
+    /**
+     * Sets the player's uTags prefix. A null value removes every prefix node, as "Remove Current Prefix" always has.
+     *
+     * @return A future completing with true if the user was changed and saved.
+     */
+    public CompletableFuture<Boolean> applyPrefix(UUID playerUuid, String value) {
+        return modifyUser(playerUuid, user -> setOwnedNode(user, NodeType.PREFIX, ownedPrefixes, value));
+    }
+
+    /**
+     * Sets the player's uTags suffix. Other suffix nodes are cleared when it changes, as before.
+     *
+     * @return A future completing with true if the user was changed and saved.
+     */
+    public CompletableFuture<Boolean> applySuffix(UUID playerUuid, String value) {
+        return modifyUser(playerUuid, user -> setOwnedNode(user, NodeType.SUFFIX, ownedSuffixes, value));
+    }
+
+    /**
+     * Recomputes the player's prefix from the tag they wear, their colour preference for it and their name colour.
+     * If the worn tag is unknown, the current prefix keeps its tag part and only the name colour is replaced.
+     *
+     * @return A future completing with true if the user was changed and saved.
+     */
+    public CompletableFuture<Boolean> refreshPrefix(UUID playerUuid) {
+        return modifyUser(playerUuid, user -> {
+            String current = findOwnedValue(user, NodeType.PREFIX, ownedPrefixes);
+            if (current == null || current.isEmpty()) {
+                plugin.getDebugLogger().log(DebugLogger.Category.LUCKPERMS, playerUuid, () ->
+                        "No uTags prefix on " + user.getUsername() + "; nothing to recolour.");
+                return false;
+            }
+
+            String nameColor = resolveNameColor(user);
+            String appliedTagName = plugin.playerAppliedPrefixTagName.get(playerUuid);
+            Tag appliedTag = appliedTagName != null ? plugin.getTagByName(appliedTagName) : null;
+            String target = appliedTag != null
+                    ? computePrefixValue(appliedTag, plugin.getPlayerTagColorPreference(playerUuid, appliedTagName), nameColor)
+                    : stripTrailingColorCode(current) + nameColor;
+            return setOwnedNode(user, NodeType.PREFIX, ownedPrefixes, target);
+        });
+    }
+
+    /**
+     * Runs an edit against the player's LuckPerms user after any earlier edit for the same player has finished,
+     * and saves the user if the edit reports a change.
+     *
+     * @param edit Applies the change and returns whether anything was modified. Runs on the I/O executor.
+     * @return A future completing with the edit's result once the save (if any) is done.
+     */
+    public CompletableFuture<Boolean> modifyUser(UUID playerUuid, Predicate<User> edit) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // Swap in this edit's completion marker first and build the chain afterwards: the edit may run
+        // (and finish) on this thread, and must not touch the map while a map operation is in progress
+        CompletableFuture<Void> next = new CompletableFuture<>();
+        CompletableFuture<Void> tail = chains.put(playerUuid, next);
+        CompletableFuture<Void> previous = tail != null ? tail : CompletableFuture.<Void>completedFuture(null);
+        previous.thenComposeAsync(ignored -> runEdit(playerUuid, edit), plugin.getIoExecutor())
+                .whenComplete((changed, ex) -> {
+                    // Drop the chain once it is idle so the map only holds users with edits in flight
+                    chains.remove(playerUuid, next);
+                    next.complete(null);
+                    if (ex != null) {
+                        plugin.getLogger().severe("LuckPerms update failed for " + playerUuid + ": " + ex.getMessage());
+                        result.completeExceptionally(ex);
+                    } else {
+                        result.complete(changed);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Forgets the tracked node values for a player, e.g. when they quit.
+     */
+    public void forget(UUID playerUuid) {
+        ownedPrefixes.remove(playerUuid);
+        ownedSuffixes.remove(playerUuid);
+    }
+
+    public long getSaveCount() {
+        return saves.get();
+    }
+
+    /**
+     * @return How many requested updates needed no save because the node already had the target value.
+     */
+    public long getSkippedSaveCount() {
+        return skippedSaves.get();
+    }
+
+    private CompletableFuture<Boolean> runEdit(UUID playerUuid, Predicate<User> edit) {
+        UserManager userManager = plugin.getLuckPerms().getUserManager();
+        UTagsMetrics metrics = plugin.getMetrics();
+        User loaded = userManager.getUser(playerUuid);
+        CompletableFuture<User> userFuture;
+        if (loaded != null) {
+            userFuture = CompletableFuture.completedFuture(loaded);
+        } else {
+            long loadStart = metrics.start();
+            userFuture = userManager.loadUser(playerUuid).whenComplete((user, ex) -> metrics.record(UTagsMetrics.Timer.LUCKPERMS_LOAD, loadStart));
+        }
+        return userFuture.thenCompose(user -> {
+            if (user == null || !edit.test(user)) {
+                skippedSaves.incrementAndGet();
+                plugin.getDebugLogger().log(DebugLogger.Category.LUCKPERMS, playerUuid, () -> "No node change for " + playerUuid + "; save skipped.");
+                return CompletableFuture.completedFuture(false);
+            }
+            saves.incrementAndGet();
+            plugin.getDebugLogger().log(DebugLogger.Category.LUCKPERMS, playerUuid, () ->
+                    "Saving LuckPerms user " + user.getUsername() + ", prefix now '" + DebugLogger.visible(ownedPrefixes.get(playerUuid)) + "'");
+            long saveStart = metrics.start();
+            return userManager.saveUser(user).thenApply(ignored -> {
+                metrics.record(UTagsMetrics.Timer.LUCKPERMS_SAVE, saveStart);
+                return true;
+            });
+        });
+    }
+
+    private boolean setOwnedNode(User user, NodeType<?> type, Map<UUID, String> owned, String target) {
+        UUID playerUuid = user.getUniqueId();
+        String current = findOwnedValue(user, type, owned);
+        if (current == null ? target == null : current.equals(target)) {
+            return false; // Already what we want; no save
+        }
+
+        if (target == null) {
+            // Removing: clear every node of the type, matching the menu's remove button
+            user.data().clear(type.predicate());
+            owned.remove(playerUuid);
+            return true;
+        }
+
+        if (type == NodeType.SUFFIX) {
+            user.data().clear(NodeType.SUFFIX.predicate()); // uTags suffixes replace any other suffix
+            user.data().add(SuffixNode.builder(target, PRIORITY).build());
+        } else {
+            if (current != null) {
+                user.data().remove(PrefixNode.builder(current, PRIORITY).build());
+            }
+            user.data().add(PrefixNode.builder(target, PRIORITY).build());
+        }
+        owned.put(playerUuid, target);
+        return true;
+    }
+
+    /**
+     * Returns the value of the user's uTags node of the given type. The tracked value is trusted when the node
+     * with that value is still present; otherwise (first use, or edited outside uTags) the nodes are scanned once.
+     */
+    private String findOwnedValue(User user, NodeType<?> type, Map<UUID, String> owned) {
+        String tracked = owned.get(user.getUniqueId());
+        if (tracked != null && user.data().contains(buildNode(type, tracked), NodeEqualityPredicate.IGNORE_EXPIRY_TIME).asBoolean()) {
+            return tracked;
+        }
+
+        String found = null;
+        for (Node node : user.getNodes(type)) {
+            if (node instanceof PrefixNode && ((PrefixNode) node).getPriority() == PRIORITY) {
+                found = ((PrefixNode) node).getMetaValue();
+                break;
+            }
+            if (node instanceof SuffixNode && ((SuffixNode) node).getPriority() == PRIORITY) {
+                found = ((SuffixNode) node).getMetaValue();
+                break;
+            }
+        }
+        if (found != null) {
+            owned.put(user.getUniqueId(), found);
+        } else {
+            owned.remove(user.getUniqueId());
+        }
+        return found;
+    }
+
+    /**
+     * The name colour to put after the tag: the player's stored name colour, or white if they never chose one.
+     * Every prefix write goes through here, so the same inputs always produce the same node value.
+     * Runs on the I/O executor, so a player who has already logged out is read from the database.
+     */
+    private String resolveNameColor(User user) {
+        String nameColorCode = plugin.loadPlayerNameColorCode(user.getUniqueId());
+        return nameColorCode != null ? ChatColor.translateAlternateColorCodes('&', nameColorCode) : DEFAULT_NAME_COLOR;
+    }
+
+    private static Node buildNode(NodeType<?> type, String value) {
+        return type == NodeType.SUFFIX ? SuffixNode.builder(value, PRIORITY).build() : PrefixNode.builder(value, PRIORITY).build();
+    }
+
+    // Removes a trailing "§x" / "&x" name colour code, if there is one
+    static String stripTrailingColorCode(String value) {
+        int length = value.length();
+        if (length >= 2) {
+            char marker = value.charAt(length - 2);
+            if ((marker == ChatColor.COLOR_CHAR || marker == '&') && ChatColor.getByChar(value.charAt(length - 1)) != null) {
+                return value.substring(0, length - 2);
+            }
+        }
+        return value;
+    }
+}
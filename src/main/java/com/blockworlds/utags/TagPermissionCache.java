@@ -0,0 +1,87 @@
+package com.blockworlds.utags;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player snapshot of which catalog tags the player may use.
+ * A snapshot is resolved in one pass over the catalog the first time a menu or tab completion needs it,
+ * after which permission checks are set lookups. Snapshots are dropped when LuckPerms recalculates the
+ * player's data, when the player quits, and whenever the tag catalog is reloaded.
+ */
+public class TagPermissionCache {
+
+    private final uTags plugin;
+    private final Map<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public TagPermissionCache(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Invalidates a player's snapshot whenever LuckPerms recalculates their permissions.
+     */
+    public void subscribe(LuckPerms luckPerms) {
+        luckPerms.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class,
+                event -> invalidate(event.getUser().getUniqueId()));
+    }
+
+    /**
+     * Returns the names of every catalog tag the player has permission for. Main thread only,
+     * since a missing snapshot is resolved with {@link Player#hasPermission(String)}.
+     *
+     * @return A read-only set of tag names.
+     */
+    public Set<String> getPermittedTagNames(Player player) {
+        TagCatalog catalog = plugin.getTagCatalog();
+        Snapshot snapshot = snapshots.get(player.getUniqueId());
+        if (snapshot == null || snapshot.catalogVersion != catalog.getVersion()) {
+            snapshot = resolve(player, catalog);
+            snapshots.put(player.getUniqueId(), snapshot);
+        }
+        return snapshot.tagNames;
+    }
+
+    /**
+     * Checks whether the player may use the named tag. Tags missing from the catalog
+     * fall back to a direct permission check.
+     */
+    public boolean canUse(Player player, String tagName) {
+        if (getPermittedTagNames(player).contains(tagName)) {
+            return true;
+        }
+        return plugin.getTagCatalog().getByName(tagName) == null && player.hasPermission("utags.tag." + tagName);
+    }
+
+    public void invalidate(UUID playerUuid) {
+        snapshots.remove(playerUuid);
+    }
+
+    private Snapshot resolve(Player player, TagCatalog catalog) {
+        Set<String> permitted = new HashSet<>();
+        for (Tag tag : catalog.getAll()) {
+            if (player.hasPermission(tag.getPermission())) {
+                permitted.add(tag.getName());
+            }
+        }
+        return new Snapshot(catalog.getVersion(), Collections.unmodifiableSet(permitted));
+    }
+
+    private static final class Snapshot {
+        private final long catalogVersion;
+        private final Set<String> tagNames;
+
+        private Snapshot(long catalogVersion, Set<String> tagNames) {
+            this.catalogVersion = catalogVersion;
+            this.tagNames = tagNames;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.blockworlds.utags;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Substring search over tag names and colour-stripped displays, built once per {@link TagCatalog}.
+ * Every 1-, 2- and 3-character gram of each text maps to the sorted positions of the tags containing it.
+ * Queries of up to three characters are a single lookup; longer queries intersect the postings of their
+ * trigrams and only check {@code contains} on the tags left over. Results keep catalog order
+ * (weight descending).
+ */
+final class TagSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+    private static final int[] NO_TAGS = new int[0];
+
+    private final List<Tag> tags;
+    private final String[] names;    // Lower-cased
+    private final String[] displays; // Colour-stripped, lower-cased
+    private final Map<String, int[]> postings;
+
+    TagSearchIndex(List<Tag> tags) {
+        this.tags = tags;
+        this.names = new String[tags.size()];
+        this.displays = new String[tags.size()];
+
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        for (int i = 0; i < tags.size(); i++) {
+            Tag tag = tags.get(i);
+            names[i] = normalize(tag.getName());
+            displays[i] = tag.getDisplay() == null ? "" : normalize(tag.getDisplay());
+            addGrams(builders, names[i], i);
+            addGrams(builders, displays[i], i);
+        }
+
+        Map<String, int[]> built = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<String, PostingBuilder> entry : builders.entrySet()) {
+            built.put(entry.getKey(), entry.getValue().toArray());
+        }
+        this.postings = built;
+    }
+
+    /**
+     * Lower-cases and strips colour codes, in both '&amp;' and section sign form, so "&amp;6[VIP]" and
+     * "vip" compare as expected.
+     */
+    static String normalize(String text) {
+        String stripped = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', text));
+        return stripped == null ? "" : stripped.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return The tags whose name or display contains the query, highest weight first. Read-only.
+     */
+    List<Tag> search(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (needle.length() <= MAX_GRAM) {
+            // The gram itself is indexed, so its postings are the exact answer
+            return toTags(postings.getOrDefault(needle, NO_TAGS), null);
+        }
+
+        int gramCount = needle.length() - MAX_GRAM + 1;
+        int[][] lists = new int[gramCount][];
+        for (int i = 0; i < gramCount; i++) {
+            int[] list = postings.get(needle.substring(i, i + MAX_GRAM));
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists[i] = list;
+        }
+        // Intersect the rarest grams first so the candidate set shrinks quickly
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i]);
+        }
+        // Sharing every trigram does not guarantee the grams are adjacent
+        return toTags(candidates, needle);
+    }
+
+    private List<Tag> toTags(int[] positions, String verify) {
+        List<Tag> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            if (verify == null || names[position].contains(verify) || displays[position].contains(verify)) {
+                result.add(tags.get(position));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static void addGrams(Map<String, PostingBuilder> builders, String text, int position) {
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int start = 0; start + length <= text.length(); start++) {
+                builders.computeIfAbsent(text.substring(start, start + length), gram -> new PostingBuilder()).add(position);
+            }
+        }
+    }
+
+    // Positions arrive in ascending order, so a repeat can only be the last value added
+    private static final class PostingBuilder {
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
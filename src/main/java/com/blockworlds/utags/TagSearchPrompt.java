@@ -0,0 +1,59 @@
+package com.blockworlds.utags;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Takes the text for the selection menu's search button from chat. The next chat message of a
+ * prompted player is swallowed and used as the query; "cancel" reopens the menu unchanged.
+ */
+public class TagSearchPrompt implements Listener {
+
+    private final uTags plugin;
+    // Player -> menu type to reopen; chat events arrive off the main thread
+    private final Map<UUID, TagType> pending = new ConcurrentHashMap<>();
+
+    public TagSearchPrompt(uTags plugin) {
+        this.plugin = plugin;
+    }
+
+    public void begin(Player player, TagType selectionType) {
+        pending.put(player.getUniqueId(), selectionType);
+        player.closeInventory();
+        player.sendMessage(ChatColor.YELLOW + "Type part of a tag name or display in chat to search, or 'cancel'.");
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onChat(AsyncPlayerChatEvent event) {
+        Player player = event.getPlayer();
+        TagType selectionType = pending.remove(player.getUniqueId());
+        if (selectionType == null) {
+            return;
+        }
+        event.setCancelled(true);
+
+        String message = event.getMessage().trim();
+        String query = message.equalsIgnoreCase("cancel") ? null : message;
+        // Menus are opened on the main thread
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                plugin.getTagMenuManager().openTagSelection(player, 0, selectionType, query);
+            }
+        });
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        pending.remove(event.getPlayer().getUniqueId());
+    }
+}
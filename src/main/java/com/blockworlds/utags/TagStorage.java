@@ -0,0 +1,84 @@
+package com.blockworlds.utags;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistence for tag definitions and custom tag requests.
+ * Every method blocks on the database, so call them from the I/O executor
+ * (or during startup/shutdown), never from an event handler on the main thread.
+ */
+public interface TagStorage {
+
+    /**
+     * @return Every tag, highest weight first. Unreadable materials are replaced with a name tag.
+     */
+    List<Tag> loadTags() throws SQLException;
+
+    /**
+     * Inserts the tag, or replaces the stored tag with the same name.
+     */
+    void saveTag(Tag tag) throws SQLException;
+
+    /**
+     * Inserts or replaces every tag as one JDBC batch in a single transaction.
+     *
+     * @return The number of tags written.
+     */
+    int saveTags(List<Tag> tags) throws SQLException;
+
+    void deleteTag(String tagName) throws SQLException;
+
+    /**
+     * Drops and recreates the tags table.
+     */
+    void purgeTags() throws SQLException;
+
+    int countTagsWithNamePrefix(String namePrefix) throws SQLException;
+
+    /**
+     * Sets one column of a tag.
+     *
+     * @param column One of name, display, type, public, color, material or weight.
+     * @return false if no tag has that name.
+     */
+    boolean updateTagColumn(String tagName, String column, Object value) throws SQLException;
+
+    /**
+     * @return Up to {@code limit} rows of {name, material} whose material is not in the current {@link MaterialCodec} format.
+     */
+    List<String[]> findLegacyMaterials(int limit) throws SQLException;
+
+    /**
+     * Rewrites materials in one transaction. A row is only changed if it still holds the expected value.
+     *
+     * @param rows {name, expected material, replacement material} per tag.
+     * @return The number of rows changed.
+     */
+    int replaceMaterials(List<String[]> rows) throws SQLException;
+
+    /**
+     * @return Every pending custom tag request, oldest first.
+     */
+    List<CustomTagRequest> loadRequests() throws SQLException;
+
+    /**
+     * @return The id of the player's pending request, or -1 if they have none.
+     */
+    int findRequestId(UUID playerUuid) throws SQLException;
+
+    void updateRequest(UUID playerUuid, String playerName, String tagDisplay) throws SQLException;
+
+    /**
+     * @return The generated request id, or -1 if the driver did not return one.
+     */
+    int insertRequest(UUID playerUuid, String playerName, String tagDisplay) throws SQLException;
+
+    void deleteRequest(int requestId) throws SQLException;
+
+    /**
+     * Drops and recreates the tag_requests table.
+     */
+    void purgeRequests() throws SQLException;
+}
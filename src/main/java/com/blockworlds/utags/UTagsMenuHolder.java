@@ -0,0 +1,108 @@
+package com.blockworlds.utags;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holder attached to every inventory uTags opens. It identifies the menu and carries the state
+ * the click handlers need (page, tag type, tag name, per-slot actions), so clicks are routed
+ * with one instanceof check instead of parsing the inventory title.
+ */
+public final class UTagsMenuHolder implements InventoryHolder {
+
+    public enum Kind {
+        TAG_SELECTION(false),
+        REQUEST_CONFIRMATION(false),
+        TAG_COLOR(true),
+        NAME_COLOR(true),
+        REQUESTS(true),
+        ADMIN_MAIN(false),
+        ADMIN_TAG_LIST(false),
+        ADMIN_TAG_EDITOR(false),   // Player inventory stays usable so an icon can be picked up
+        ADMIN_DELETE_CONFIRM(false),
+        ADMIN_PURGE_TYPE(false),
+        ADMIN_PURGE_CONFIRM(false),
+        ADMIN_CREATE_WIZARD(false);
+
+        private final boolean locksPlayerInventory;
+
+        Kind(boolean locksPlayerInventory) {
+            this.locksPlayerInventory = locksPlayerInventory;
+        }
+
+        /**
+         * @return Whether clicks in the player's own inventory are cancelled while this menu is open.
+         */
+        public boolean locksPlayerInventory() {
+            return locksPlayerInventory;
+        }
+    }
+
+    private final Kind kind;
+    private final int page;
+    private final TagType tagType;
+    private final String context;
+    private final Map<Integer, MenuAction> slotActions = new HashMap<>();
+    private Inventory inventory;
+
+    public UTagsMenuHolder(Kind kind) {
+        this(kind, 0, null, null);
+    }
+
+    /**
+     * @param kind    The menu kind.
+     * @param page    The 0-based page shown, for paged menus.
+     * @param tagType The tag type shown, for tag selection menus; otherwise null.
+     * @param context Menu-specific data, e.g. the tag being edited or the requested display; otherwise null.
+     */
+    public UTagsMenuHolder(Kind kind, int page, TagType tagType, String context) {
+        this.kind = kind;
+        this.page = page;
+        this.tagType = tagType;
+        this.context = context;
+    }
+
+    /**
+     * Creates the inventory for this menu. Call once per holder.
+     */
+    public Inventory createInventory(int size, String title) {
+        this.inventory = Bukkit.createInventory(this, size, title);
+        return inventory;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public TagType getTagType() {
+        return tagType;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public void setSlotAction(int slot, MenuAction action) {
+        slotActions.put(slot, action);
+    }
+
+    /**
+     * @return The action recorded for the slot when the menu was built, or null.
+     */
+    public MenuAction getSlotAction(int slot) {
+        return slotActions.get(slot);
+    }
+}
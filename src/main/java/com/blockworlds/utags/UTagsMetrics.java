@@ -0,0 +1,183 @@
+package com.blockworlds.utags;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms for the operations that cost uTags main-thread or storage time.
+ * Every timer keeps a since-startup histogram (shown by {@code /tag admin stats}) and an interval
+ * histogram that is written to a daily CSV under {@code plugins/uTags/metrics/} and then reset.
+ * Database timings come from HikariCP's own metrics hooks, so individual queries are not wrapped.
+ */
+public class UTagsMetrics {
+
+    public enum Timer {
+        MENU_TAG_SELECTION("menu.tag_selection"),
+        MENU_TAG_LIST("menu.admin_tag_list"),
+        MENU_CLICK("menu.click"),
+        DISPLAY_REFRESH("display.refresh"),
+        DB_CONNECTION_ACQUIRE("db.connection_acquire"),
+        DB_CONNECTION_USAGE("db.connection_usage"),
+        LUCKPERMS_LOAD("luckperms.load_user"),
+        LUCKPERMS_SAVE("luckperms.save_user");
+
+        private final String key;
+
+        Timer(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final String CSV_HEADER = "timestamp,timer,count,mean_us,p50_us,p90_us,p99_us,max_us";
+
+    private final uTags plugin;
+    private final Map<Timer, LatencyHistogram> totals = new EnumMap<>(Timer.class);
+    private final Map<Timer, LatencyHistogram> intervals = new EnumMap<>(Timer.class);
+    private final AtomicLong connectionTimeouts = new AtomicLong();
+    private volatile PoolStats poolStats;
+
+    public UTagsMetrics(uTags plugin) {
+        this.plugin = plugin;
+        for (Timer timer : Timer.values()) {
+            totals.put(timer, new LatencyHistogram());
+            intervals.put(timer, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @return A start mark to pass to {@link #record(Timer, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Timer timer, long startNanos) {
+        recordNanos(timer, System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(Timer timer, long nanos) {
+        totals.get(timer).record(nanos);
+        intervals.get(timer).record(nanos);
+    }
+
+    public LatencyHistogram.Snapshot getSnapshot(Timer timer) {
+        return totals.get(timer).snapshot();
+    }
+
+    public long getConnectionTimeouts() {
+        return connectionTimeouts.get();
+    }
+
+    /**
+     * @return Hikari's live pool statistics, or null before the pool is created.
+     */
+    public PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    public void reset() {
+        for (Timer timer : Timer.values()) {
+            totals.get(timer).snapshotAndReset();
+        }
+        connectionTimeouts.set(0);
+    }
+
+    /**
+     * Hooks connection acquire/usage timings into the pool. Pass to {@code HikariConfig#setMetricsTrackerFactory}.
+     */
+    public MetricsTrackerFactory hikariTrackerFactory() {
+        return (poolName, stats) -> {
+            poolStats = stats;
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    recordNanos(Timer.DB_CONNECTION_ACQUIRE, elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    recordNanos(Timer.DB_CONNECTION_USAGE, elapsedBorrowedMillis * 1_000_000L);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    connectionTimeouts.incrementAndGet();
+                }
+            };
+        };
+    }
+
+    /**
+     * Appends one row per timer with samples in the last interval, then resets the interval histograms.
+     * Files are named by day and only the newest {@code keepFiles} are kept. Runs on the I/O executor.
+     */
+    public void exportInterval(int keepFiles) {
+        File directory = new File(plugin.getDataFolder(), "metrics");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            plugin.getLogger().warning("Could not create metrics directory " + directory);
+            return;
+        }
+
+        Date now = new Date();
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.ROOT).format(now);
+        File file = new File(directory, "metrics-" + new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT).format(now) + ".csv");
+        boolean newFile = !file.exists();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram.Snapshot snapshot = intervals.get(timer).snapshotAndReset();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                writer.write(timestamp + "," + timer.getKey() + "," + snapshot.getCount() + "," + snapshot.getMeanMicros() + ","
+                        + snapshot.getPercentileMicros(50) + "," + snapshot.getPercentileMicros(90) + ","
+                        + snapshot.getPercentileMicros(99) + "," + snapshot.getMaxMicros());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write metrics file " + file + ": " + e.getMessage());
+            return;
+        }
+
+        if (newFile) {
+            pruneOldFiles(directory, keepFiles);
+        }
+    }
+
+    private void pruneOldFiles(File directory, int keepFiles) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("metrics-") && name.endsWith(".csv"));
+        if (files == null || files.length <= keepFiles) {
+            return;
+        }
+        Arrays.sort(files); // Date-stamped names sort oldest first
+        for (int i = 0; i < files.length - keepFiles; i++) {
+            if (!files[i].delete()) {
+                plugin.getLogger().warning("Could not delete old metrics file " + files[i]);
+            }
+        }
+    }
+}
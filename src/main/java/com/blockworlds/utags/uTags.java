@@ -2,11 +2,7 @@ package com.blockworlds.utags;
 
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
-import net.luckperms.api.model.user.User;
 import net.luckperms.api.node.Node;
-import net.luckperms.api.node.NodeType;
-import net.luckperms.api.node.types.PrefixNode;
-import net.luckperms.api.node.types.SuffixNode;
 // Removed incorrect import: import net.luckperms.api.cacheddata.MetaData;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -17,23 +13,20 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
 
 import com.blockworlds.utags.TagColorMenuManager;
 import java.util.concurrent.ConcurrentHashMap;
-import com.zaxxer.hikari.HikariDataSource;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
-import com.zaxxer.hikari.HikariConfig;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class uTags extends JavaPlugin {
 
@@ -41,23 +34,49 @@ public class uTags extends JavaPlugin {
     private String defaultTag;
     private LuckPerms luckPerms;
     private TagMenuManager tagMenuManager;
-    private HikariDataSource dataSource;
+    // MySQL or SQLite, chosen by database.type
+    private SqlStorage storage;
     private AdminMenuManager adminMenuManager;
     private TagColorMenuManager tagColorMenuManager;
     private NameColorMenuManager nameColorMenuManager; // Added for Name Color GUI
+    private TagSearchPrompt tagSearchPrompt;
 
     private final Map<UUID, String> previewTags = Collections.synchronizedMap(new HashMap<>());
 
     // Stores player-specific color preferences for tags
     // Key: Player UUID, Value: Map<TagName, PreferenceObject>
     private final Map<UUID, Map<String, PlayerTagColorPreference>> playerColorPreferences = new ConcurrentHashMap<>(); // For tag-specific colors
-    // Stores player-specific name color preferences (&a, &c, etc., or null for default)
-    private final Map<UUID, String> playerNameColorPreferences = new ConcurrentHashMap<>();
+    // Name color preferences (&a, &c, etc.) of online players, loaded with their profile on pre-login
+    // and evicted a while after quit, so memory follows the online count rather than the table size
+    private final NameColorCache nameColorCache = new NameColorCache();
     // Stores the NAME of the prefix tag currently applied to the player
     public final Map<UUID, String> playerAppliedPrefixTagName = new ConcurrentHashMap<>(); // Made public for LoginListener access
     // Stores player preference for showing all public tags vs. only permitted ones
     private final Map<UUID, Boolean> showAllPublicTagsPreference = new ConcurrentHashMap<>(); // Default: false (show permitted)
 
+    // In-memory snapshot of the tags table, replaced whenever tag data changes
+    private volatile TagCatalog tagCatalog = TagCatalog.empty();
+    private final AtomicLong tagCatalogVersion = new AtomicLong();
+
+    // Runs every blocking JDBC / LuckPerms storage task; created in onEnable from config
+    private IoExecutor ioExecutor;
+    // Coalesces tag colour preference writes; flushed on a timer, on quit and on disable
+    private final TagColorWriteBuffer tagColorWriteBuffer = new TagColorWriteBuffer(this);
+    private final TagPermissionCache tagPermissionCache = new TagPermissionCache(this);
+    private final TagDisplayFormatCache tagDisplayFormats = new TagDisplayFormatCache(getLogger());
+    // Collapses display name recomputes to at most one per player per tick
+    private final DisplayNameRefresher displayNameRefresher = new DisplayNameRefresher(this);
+    // Tracks uTags-owned prefix/suffix nodes and serializes LuckPerms saves per player
+    private final TagNodeManager tagNodeManager = new TagNodeManager(this);
+    // Latency histograms behind /tag admin stats and the metrics CSV
+    private final UTagsMetrics metrics = new UTagsMetrics(this);
+    // Off unless enabled in config or with /tag admin debug
+    private final DebugLogger debugLogger = new DebugLogger(getLogger());
+    // Mirror of tag_requests so notifications and the requests menu never query the table
+    private final PendingRequestCache pendingRequestCache = new PendingRequestCache();
+    private final StartupTimings startupTimings = new StartupTimings();
+    private LoginListener loginListener;
+
     @Override
     public void onEnable() {
         setupTagColorMenuManager();
@@ -69,21 +88,88 @@ public class uTags extends JavaPlugin {
         setupAdminMenuManager();
         registerCommandsAndEvents(); // Now managers are not null
 
+        long phaseStart = StartupTimings.start();
         loadConfig();
+        setupIoExecutor();
+        startupTimings.record("config", phaseStart);
+
+        // Only the pool and the schema checks block the main thread
+        phaseStart = StartupTimings.start();
         setupDatabase();
+        startupTimings.record("database", phaseStart);
+        if (!isEnabled()) {
+            return; // setupDatabase disabled the plugin
+        }
+        phaseStart = StartupTimings.start();
         updateDatabaseSchema();
-        cleanupInvalidMaterials();
-        loadAllPlayerNameColorsAsync(); // Load name colors on startup
+        startupTimings.record("schema", phaseStart);
+
+        startBackgroundStartup();
+        // Name colours are not preloaded: each player's is read with their profile on login
+    }
+
+    /**
+     * Warms the tag catalog and the pending request cache on the I/O executor, then loads profiles for
+     * players who are already online (after /reload) and starts the incremental material migration.
+     * Until the catalog is warm, menus simply show no tags.
+     */
+    private void startBackgroundStartup() {
+        final long pipelineStart = StartupTimings.start();
+        ioExecutor.runAsync(() -> {
+            long phaseStart = StartupTimings.start();
+            reloadTagCatalog(); // Unreadable materials fall back to a name tag here
+            startupTimings.record("catalog", phaseStart);
+
+            phaseStart = StartupTimings.start();
+            reloadPendingRequests();
+            startupTimings.record("requests", phaseStart);
+        }).thenRun(() -> Bukkit.getScheduler().runTask(this, () -> {
+            startupTimings.record("warmup", pipelineStart);
+            getLogger().info("Startup phases: " + startupTimings.summary() + " (" + tagCatalog.getAll().size() + " tags)");
+            if (loginListener != null) {
+                loginListener.loadOnlinePlayers();
+            }
+            // Runs last so it never delays the catalog; rewrites old material blobs a batch at a time
+            final long migrationStart = StartupTimings.start();
+            migrateLegacyMaterialsAsync().thenAccept(migrated -> {
+                if (migrated > 0) {
+                    startupTimings.record("material-migration", migrationStart);
+                }
+            });
+        })).exceptionally(ex -> {
+            getLogger().severe("Background startup failed: " + ex.getMessage());
+            ex.printStackTrace();
+            return null;
+        });
+    }
+
+    /**
+     * @return The startup phase durations recorded so far.
+     */
+    String getStartupTimingsSummary() {
+        return startupTimings.summary();
     }
 
     // --- Constants ---
     public static final int TAG_PREFIX_PRIORITY = 10000; // Priority for uTags prefixes
     public static final int NAME_COLOR_SUFFIX_PRIORITY = 100; // Priority for uTags name color suffixes
+    private static final int MATERIAL_MIGRATION_BATCH = 100; // Rows per background migration task
 
     @Override
     public void onDisable() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
+        // Drain queued database work first; it still needs the connection pool
+        if (ioExecutor != null) {
+            long timeout = getConfig().getLong("executor.shutdown-timeout-ms", 10000L);
+            getLogger().info("Draining uTags I/O executor (" + ioExecutor.describe() + ")");
+            ioExecutor.shutdown(timeout);
+        }
+        // Anything still buffered is written on this thread while the pool is open
+        int flushed = tagColorWriteBuffer.flushNow();
+        if (flushed > 0) {
+            getLogger().info("Flushed " + flushed + " buffered tag color preference change(s).");
+        }
+        if (storage != null) {
+            storage.close();
             getLogger().info("Database connection pool closed.");
         }
     }
@@ -97,6 +183,7 @@ public class uTags extends JavaPlugin {
             luckPerms = LuckPermsProvider.get();
             // Register the LuckPerms listener *after* successfully getting the API instance
             // new LuckPermsListener(this, luckPerms); // Instantiate to register with LuckPerms event bus - Disabled to prevent feedback loop
+            tagPermissionCache.subscribe(luckPerms); // Only drops cached tag permissions, no display name refresh
         } else {
             getLogger().warning("LuckPerms not found! Cannot register listener. Disabling uTags...");
             getServer().getPluginManager().disablePlugin(this);
@@ -108,15 +195,22 @@ public class uTags extends JavaPlugin {
 
     public void registerCommandsAndEvents() { // Made public for testing
         TagCommand tagCommand = new TagCommand(this);
+        // Menu clicks are routed by inventory holder through a single listener
+        AdminMenuListener adminMenuListener = new AdminMenuListener(this, this.adminMenuManager);
+        getServer().getPluginManager().registerEvents(new MenuClickListener(
+                metrics,
+                new TagMenuListener(this),
+                adminMenuListener,
+                new TagColorMenuListener(this, this.tagColorMenuManager),
+                new NameColorMenuListener(this),
+                new RequestMenuClickListener(this)), this);
         // Existing Listeners
-        getServer().getPluginManager().registerEvents(new TagColorMenuListener(this, this.tagColorMenuManager), this);
-        getServer().getPluginManager().registerEvents(new TagMenuListener(this), this);
-        getServer().getPluginManager().registerEvents(new RequestMenuClickListener(this), this);
         getServer().getPluginManager().registerEvents(new TagCommandPreviewListener(this), this);
-        getServer().getPluginManager().registerEvents(new LoginListener(this), this);
-        getServer().getPluginManager().registerEvents(new AdminMenuListener(this, this.adminMenuManager), this);
-        // Added for Name Color GUI
-        getServer().getPluginManager().registerEvents(new NameColorMenuListener(this), this);
+        tagSearchPrompt = new TagSearchPrompt(this);
+        getServer().getPluginManager().registerEvents(tagSearchPrompt, this); // Search button chat input
+        loginListener = new LoginListener(this);
+        getServer().getPluginManager().registerEvents(loginListener, this);
+        getServer().getPluginManager().registerEvents(adminMenuListener, this); // Admin chat input
 
         // Existing Commands
         getCommand("tag").setExecutor(tagCommand);
@@ -126,7 +220,7 @@ public class uTags extends JavaPlugin {
 
         long delay = 5 * 60 * 20; // 5 minutes in ticks (20 ticks per second)
         Bukkit.getScheduler().runTaskTimer(this, () -> {
-            if (!getCustomTagRequests().isEmpty()) {
+            if (hasPendingTagRequests()) {
                 for (Player player : Bukkit.getOnlinePlayers()) {
                     if (player.hasPermission("utags.staff")) {
                         player.sendMessage(ChatColor.RED + "There are pending tag requests. Use " + ChatColor.YELLOW + "/tag admin requests" + ChatColor.RED + " to check them.");
@@ -134,10 +228,30 @@ public class uTags extends JavaPlugin {
                 }
             }
         }, delay, delay);
+
+        long flushInterval = Math.max(20L, getConfig().getLong("preferences.flush-interval-ticks", 100L));
+        Bukkit.getScheduler().runTaskTimer(this, tagColorWriteBuffer::flushAsync, flushInterval, flushInterval);
+
+        // Drops name colours of players who left more than name-color-retain-seconds ago,
+        // and profiles preloaded for clients that disconnected before logging in
+        Bukkit.getScheduler().runTaskTimer(this, () -> {
+            long now = System.currentTimeMillis();
+            nameColorCache.evictExpired(now);
+            loginListener.evictStalePreloadedProfiles(now);
+        }, 1200L, 1200L);
+
+        long metricsInterval = getConfig().getLong("metrics.export-interval-seconds", 300L) * 20L;
+        if (metricsInterval > 0) {
+            int keepFiles = Math.max(1, getConfig().getInt("metrics.keep-files", 7));
+            Bukkit.getScheduler().runTaskTimer(this, () -> ioExecutor.tryExecute(() -> metrics.exportInterval(keepFiles), "metrics export"), metricsInterval, metricsInterval);
+        }
     }
 
+    /**
+     * @return Whether any custom tag requests are waiting for review. Served from memory.
+     */
     public boolean hasPendingTagRequests() {
-        return getCustomTagRequests() != null && !getCustomTagRequests().isEmpty();
+        return !pendingRequestCache.isEmpty();
     }
     private void setupTagMenuManager() {
         this.tagMenuManager = new TagMenuManager(this);
@@ -166,101 +280,81 @@ public class uTags extends JavaPlugin {
         saveDefaultConfig();
         FileConfiguration config = getConfig();
         defaultTag = config.getString("default-tag");
+        debugLogger.configure(config.getStringList("debug.categories"));
+    }
+
+    private void setupIoExecutor() {
+        int threads = getConfig().getInt("executor.threads", 4);
+        int queueCapacity = getConfig().getInt("executor.queue-capacity", 256);
+        long mainThreadWaitMillis = getConfig().getLong("executor.main-thread-wait-ms", 50L);
+        ioExecutor = new IoExecutor(threads, queueCapacity, mainThreadWaitMillis, getLogger());
+        getLogger().info("uTags I/O executor started with " + ioExecutor.getPoolSize() + " thread(s), queue capacity " + ioExecutor.getQueueCapacity() + ".");
+    }
+
+    /**
+     * @return The executor used for blocking database and LuckPerms storage work.
+     */
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    public DisplayNameRefresher getDisplayNameRefresher() {
+        return displayNameRefresher;
+    }
+
+    public UTagsMetrics getMetrics() {
+        return metrics;
+    }
+
+    public DebugLogger getDebugLogger() {
+        return debugLogger;
+    }
+
+    public TagNodeManager getTagNodeManager() {
+        return tagNodeManager;
+    }
+
+    public TagPermissionCache getTagPermissionCache() {
+        return tagPermissionCache;
+    }
+
+    public TagColorWriteBuffer getTagColorWriteBuffer() {
+        return tagColorWriteBuffer;
     }
 
     private void setupDatabase() {
         try {
-            // Configure HikariCP
-            HikariConfig config = new HikariConfig();
-            // Check for explicit driver/url (for H2 testing or other DBs)
-            String driverClassName = getConfig().getString("database.driverClassName");
-            String jdbcUrl = getConfig().getString("database.jdbcUrl");
-            // Read database credentials from config.yml
-            String dbHost = getConfig().getString("database.host", "localhost");
-            int dbPort = getConfig().getInt("database.port", 3306);
-            String dbName = getConfig().getString("database.database", "utags");
-            String dbUser = getConfig().getString("database.username", "user");
-            String dbPass = getConfig().getString("database.password", "password");
-
-            // Log the credentials being used (excluding password for security)
-            getLogger().info("Connecting to database: " + dbHost + ":" + dbPort + "/" + dbName + " as user: " + dbUser);
-
-
-            if (driverClassName != null && !driverClassName.isEmpty() && jdbcUrl != null && !jdbcUrl.isEmpty()) {
-                // Use explicit driver and URL if provided
-                config.setDriverClassName(driverClassName);
-                config.setJdbcUrl(jdbcUrl);
-                getLogger().info("Using custom JDBC driver and URL from config.");
-            } else {
-                // Construct MySQL URL using config values
-                config.setJdbcUrl("jdbc:mysql://" + dbHost + ":" + dbPort + "/" + dbName + "?autoReconnect=true&useSSL=false");
-                getLogger().info("Using MySQL JDBC URL constructed from config.yml values.");
-            }
-
-            // Set common pool properties using config values
-            config.setUsername(dbUser);
-            config.setPassword(dbPass);
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(5);
-            config.setConnectionTimeout(30000); // 30 seconds
-            config.setIdleTimeout(600000); // 10 minutes
-            config.setMaxLifetime(1800000); // 30 minutes
-            
             // Initialize the connection pool
-            dataSource = new HikariDataSource(config);
-            getLogger().info("Database connection pool initialized successfully");
-            
+            storage = SqlStorage.create(getConfig().getConfigurationSection("database"), getDataFolder(), metrics.hikariTrackerFactory(), getLogger());
+            getLogger().info(storage.describe() + " connection pool initialized successfully");
+
             // Create tables if they don't exist
-            try (Connection connection = dataSource.getConnection()) {
-                createTagsTableIfNotExists(connection);
-                getLogger().info("Database tables verified/created successfully");
-            }
-        } catch (SQLException e) {
-            getLogger().severe("Error setting up the MySQL database: " + e.getMessage());
+            storage.createTables();
+            getLogger().info("Database tables verified/created successfully");
+        } catch (SQLException | RuntimeException e) {
+            getLogger().severe("Error setting up the database: " + e.getMessage());
             getLogger().severe("Please check your database configuration in config.yml");
             // Log more details but don't crash the plugin
             e.printStackTrace();
-            
+
             // Disable the plugin gracefully
             getLogger().severe("Disabling uTags plugin due to database connection failure");
             getServer().getPluginManager().disablePlugin(this);
         }
     }
 
-    private void createTagsTableIfNotExists(Connection connection) throws SQLException {
-        try (Statement statement = connection.createStatement()) {
-            statement.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS `tags` (" +
-                            "`id` INT AUTO_INCREMENT PRIMARY KEY," +
-                            "`name` VARCHAR(255) NOT NULL," +
-                            "`display` VARCHAR(255) NOT NULL," +
-                            "`type` ENUM('prefix', 'suffix', 'both') NOT NULL," +
-                            "`public` BOOLEAN NOT NULL," +
-                            "`color` BOOLEAN NOT NULL," +
-                            "`material` MEDIUMTEXT NOT NULL," +
-                            "`weight` INT NOT NULL" +
-                            ");"
-            );
-            statement.executeUpdate("CREATE TABLE IF NOT EXISTS `tag_requests` ("
-                    + "`id` INT AUTO_INCREMENT PRIMARY KEY,"
-                    + "`player_uuid` VARCHAR(36) NOT NULL,"
-                    + "`player_name` VARCHAR(255) NOT NULL,"
-                    + "`tag_display` VARCHAR(255) NOT NULL);");
-
-           // Add player_preferences table for name colors
-           statement.executeUpdate("CREATE TABLE IF NOT EXISTS `player_preferences` ("
-                   + "`player_uuid` VARCHAR(36) PRIMARY KEY NOT NULL,"
-                   + "`name_color_code` VARCHAR(2) NULL" // Allow NULL for reset/default
-                   + ");");
-           // Add player_tag_color_preferences table
-           statement.executeUpdate("CREATE TABLE IF NOT EXISTS `player_tag_color_preferences` (" +
-                   "`player_uuid` VARCHAR(36) NOT NULL," +
-                   "`tag_name` VARCHAR(255) NOT NULL," +
-                   "`bracket_color_code` VARCHAR(2) NULL," +
-                   "`content_color_code` VARCHAR(2) NULL," +
-                   "PRIMARY KEY (`player_uuid`, `tag_name`)" +
-                   ");");
-       }
+    /**
+     * @return Tag and request persistence.
+     */
+    public TagStorage getTagStorage() {
+        return storage;
+    }
+
+    /**
+     * @return Name colour and tag colour persistence.
+     */
+    public PreferenceStorage getPreferenceStorage() {
+        return storage;
     }
 
     /**
@@ -271,13 +365,13 @@ public class uTags extends JavaPlugin {
      * @throws SQLException if a database access error occurs
      */
     public Connection getConnection() throws SQLException {
-        if (dataSource == null || dataSource.isClosed()) {
+        if (storage == null) {
             getLogger().severe("Database connection pool is closed or not initialized!");
             throw new SQLException("Database connection pool is not available");
         }
-        
+
         try {
-            return dataSource.getConnection();
+            return storage.getConnection();
         } catch (SQLException e) {
             getLogger().severe("Failed to get database connection: " + e.getMessage());
             throw e;
@@ -292,6 +386,10 @@ public class uTags extends JavaPlugin {
         return tagMenuManager;
     }
 
+    public TagSearchPrompt getTagSearchPrompt() {
+        return tagSearchPrompt;
+    }
+
 
 
     public TagColorMenuManager getTagColorMenuManager() {
@@ -337,325 +435,298 @@ public class uTags extends JavaPlugin {
 
 
 
+    /**
+     * Gets the tags usable as the given type from the in-memory catalog, sorted by weight descending.
+     * This never touches the database; the catalog is refreshed by {@link #reloadTagCatalog()}.
+     *
+     * @param tagType PREFIX or SUFFIX (both include BOTH tags), or null for every tag.
+     * @return A read-only list of tags.
+     */
     public List<Tag> getAvailableTags(TagType tagType) {
-        List<Tag> availableTags = new ArrayList<>();
-
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
-
-            ResultSet resultSet = getTagsResultSet(tagType, statement);
-
-            while (resultSet.next()) {
-                availableTags.add(createTagFromResultSet(resultSet));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        TagCatalog catalog = tagCatalog;
+        if (tagType == TagType.PREFIX || tagType == TagType.SUFFIX) {
+            return catalog.getTags(tagType);
         }
-
-        return availableTags;
+        return catalog.getAll();
     }
 
-    private ResultSet getTagsResultSet(TagType tagType, Statement statement) throws SQLException {
-        if (tagType == TagType.PREFIX) {
-            return statement.executeQuery("SELECT * FROM tags WHERE type = 'prefix' OR type = 'both' ORDER BY weight DESC;");
-        } else if (tagType == TagType.SUFFIX) {
-            return statement.executeQuery("SELECT * FROM tags WHERE type = 'suffix' OR type = 'both' ORDER BY weight DESC;");
-        } else {
-            return statement.executeQuery("SELECT * FROM tags ORDER BY weight DESC;");
-        }
+    /**
+     * @return The current immutable tag catalog snapshot.
+     */
+    public TagCatalog getTagCatalog() {
+        return tagCatalog;
     }
 
-    private Tag createTagFromResultSet(ResultSet resultSet) throws SQLException {
-        String name = resultSet.getString("name");
-        String display = resultSet.getString("display");
-        
-        // Handle case-insensitive enum values
-        String typeStr = resultSet.getString("type").toUpperCase();
-        TagType type;
+    /**
+     * Reloads every tag from the database and swaps in a new catalog.
+     * Must be called after any change to the tags table. If loading fails the previous catalog is kept.
+     * Blocks on the database: call it on the I/O executor (the tag write methods below already do).
+     */
+    public synchronized void reloadTagCatalog() {
+        List<Tag> loadedTags;
         try {
-            type = TagType.valueOf(typeStr);
-        } catch (IllegalArgumentException e) {
-            getLogger().warning("Invalid tag type found in database: " + typeStr + ". Defaulting to PREFIX.");
-            type = TagType.PREFIX;
-        }
-        
-        boolean isPublic = resultSet.getBoolean("public");
-        boolean color = resultSet.getBoolean("color");
-        ItemStack material = deserializeMaterial(resultSet.getString("material"));
-        int weight = resultSet.getInt("weight");
-
-        return new Tag(name, display, type, isPublic, color, material, weight);
-    }
-
-    // Removed commented-out code
-    public void cleanupInvalidMaterials() {
-        getLogger().info("Checking for invalid player head materials...");
-        
-        // First, verify the table structure to make sure we have the right columns
-        List<String> columns = new ArrayList<>();
-        try (Connection conn = getConnection();
-             ResultSet rs = conn.getMetaData().getColumns(null, null, "tags", null)) {
-            
-            while (rs.next()) {
-                columns.add(rs.getString("COLUMN_NAME").toLowerCase());
-            }
-            
-            getLogger().info("Found columns: " + String.join(", ", columns));
+            loadedTags = storage.loadTags();
         } catch (SQLException e) {
-            getLogger().severe("Error checking table structure: " + e.getMessage());
+            getLogger().severe("Failed to load tag catalog, keeping previous version: " + e.getMessage());
             e.printStackTrace();
             return;
         }
-        
-        // Determine which column to use for the WHERE clause based on what's available
-        String idColumn = columns.contains("id") ? "id" : "name";
-        getLogger().info("Using column '" + idColumn + "' as identifier for updates");
-        
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT " + idColumn + ", name, material FROM tags")) {
-            
-            int cleanedCount = 0;
-            
-            while (rs.next()) {
-                String identifier = rs.getString(idColumn);
-                String tagName = rs.getString("name");
-                String materialData = rs.getString("material");
-                
-                boolean needsRepair = false;
-                
-                try {
-                    // Try to deserialize to test if it's valid
-                    ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(materialData));
-                    try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
-                        dataInput.readObject();
-                    }
-                } catch (Exception e) {
-                    // If any exception occurs during deserialization, mark for repair
-                    getLogger().warning("Error deserializing material for tag '" + tagName + "': " + e.getMessage());
-                    needsRepair = true;
-                }
-                
-                if (needsRepair) {
-                    getLogger().warning("Repairing invalid material for tag '" + tagName + "'");
-                    
-                    // Create a replacement item
-                    ItemStack replacementItem = new ItemStack(Material.NAME_TAG);
-                    String serialized;
-                    
-                    try {
-                        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
-                            dataOutput.writeObject(replacementItem);
-                        }
-                        serialized = Base64.getEncoder().encodeToString(outputStream.toByteArray());
-                        
-                        try (PreparedStatement ps = conn.prepareStatement(
-                                "UPDATE tags SET material = ? WHERE " + idColumn + " = ?")) {
-                            ps.setString(1, serialized);
-                            ps.setString(2, identifier);
-                            int updated = ps.executeUpdate();
-                            
-                            if (updated > 0) {
-                                cleanedCount++;
-                                getLogger().info("Successfully repaired tag '" + tagName + "'");
-                            } else {
-                                getLogger().warning("Failed to repair tag '" + tagName + "', no rows updated");
-                            }
-                        }
-                    } catch (Exception e) {
-                        getLogger().severe("Error while trying to repair tag '" + tagName + "': " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                }
-            }
-            
-            if (cleanedCount > 0) {
-                getLogger().info("Repaired " + cleanedCount + " invalid material entries.");
-            } else {
-                getLogger().info("No invalid material entries found or repaired.");
-            }
-        } catch (SQLException e) {
-            getLogger().severe("Error cleaning up invalid materials: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
 
-    private ItemStack deserializeMaterial(String base64Material) {
-        if (base64Material == null || base64Material.isEmpty()) {
-            getLogger().warning("Empty or null material data encountered, using default material.");
-            return new ItemStack(Material.NAME_TAG);
-        }
-        
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(base64Material));
-            try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
-                return (ItemStack) dataInput.readObject();
-            }
-        } catch (Exception e) {
-            getLogger().warning("Error deserializing material: " + e.getMessage());
-            
-            // Debug information
-            if (base64Material != null) {
-                getLogger().info("Base64 length: " + base64Material.length());
-                getLogger().info("Base64 prefix: " + 
-                    (base64Material.length() > 20 ? base64Material.substring(0, 20) + "..." : base64Material));
-            }
-            
-            // Return a default item based on the error
-            if (e.toString().contains("invalid characters") || e.toString().contains("Head Database")) {
-                // For player head errors
-                return new ItemStack(Material.NAME_TAG);
-            } else {
-                // For other errors, use NAME_TAG as a fallback
-                return new ItemStack(Material.NAME_TAG);
-            }
-        }
+        tagCatalog = new TagCatalog(tagCatalogVersion.incrementAndGet(), loadedTags);
+        getLogger().fine("Loaded tag catalog version " + tagCatalog.getVersion() + " with " + loadedTags.size() + " tags.");
     }
 
-    public void addTagToDatabase(Tag tag) {
-        try (Connection connection = getConnection();
-             PreparedStatement statement = prepareInsertTagStatement(connection, tag)) {
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Rewrites tags.material values still in the legacy Java-serialized format into the compact
+     * {@link MaterialCodec} format. Legacy values that cannot be read are replaced with a name tag,
+     * which is what the old startup cleanup did. Each row is only updated if it still holds the value
+     * that was read, so an icon edited meanwhile is never overwritten.
+     * Works through the table one batch per I/O executor task, so other queued work runs in between.
+     *
+     * @return A future with the number of rows rewritten.
+     */
+    public CompletableFuture<Integer> migrateLegacyMaterialsAsync() {
+        MaterialMigrationProgress progress = new MaterialMigrationProgress();
+        return migrateMaterialBatches(progress).thenApply(done -> {
+            if (progress.migrated > 0) {
+                getLogger().info("Migrated " + progress.migrated + " tag material(s) (" + progress.repaired + " repaired); "
+                        + progress.bytesBefore + " -> " + progress.bytesAfter + " characters.");
+            }
+            return progress.migrated;
+        });
     }
 
-    private PreparedStatement prepareInsertTagStatement(Connection connection, Tag tag) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement("REPLACE INTO tags (name, display, type, public, color, material, weight) VALUES (?, ?, ?, ?, ?, ?, ?)");
-
-        statement.setString(1, tag.getName());
-        statement.setString(2, tag.getDisplay());
-        statement.setString(3, tag.getType().toString());
-        statement.setBoolean(4, tag.isPublic());
-        statement.setBoolean(5, tag.isColor());
-        statement.setString(6, serializeMaterial(tag.getMaterial()));
-        statement.setInt(7, tag.getWeight());
-        return statement;
+    private CompletableFuture<Void> migrateMaterialBatches(MaterialMigrationProgress progress) {
+        return ioExecutor.supplyAsync(() -> migrateMaterialBatch(progress))
+                .thenCompose(more -> more ? migrateMaterialBatches(progress) : CompletableFuture.completedFuture(null));
     }
 
-    public String serializeMaterial(ItemStack material) { // Changed to public
+    // Rewrites up to MATERIAL_MIGRATION_BATCH legacy rows; returns true if another batch should follow
+    private boolean migrateMaterialBatch(MaterialMigrationProgress progress) {
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
-                dataOutput.writeObject(material);
+            List<String[]> legacyRows = storage.findLegacyMaterials(MATERIAL_MIGRATION_BATCH);
+            if (legacyRows.isEmpty()) {
+                return false;
+            }
+            if (progress.migrated == 0) {
+                getLogger().info("Migrating tag materials to the compact format in the background...");
+            }
+
+            List<String[]> replacements = new ArrayList<>(legacyRows.size());
+            for (String[] row : legacyRows) {
+                String tagName = row[0];
+                String legacyValue = row[1];
+                ItemStack item;
+                try {
+                    item = MaterialCodec.decodeLegacy(legacyValue);
+                } catch (Exception e) {
+                    getLogger().warning("Repairing invalid material for tag '" + tagName + "': " + e.getMessage());
+                    item = new ItemStack(Material.NAME_TAG);
+                    progress.repaired++;
+                }
+                String encoded = MaterialCodec.encode(item);
+                progress.bytesBefore += legacyValue != null ? legacyValue.length() : 0;
+                progress.bytesAfter += encoded.length();
+                replacements.add(new String[]{tagName, legacyValue, encoded});
             }
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
 
-    public void deleteTagFromDatabase(String tagName) {
-        try (Connection connection = getConnection();
-             PreparedStatement statement = prepareDeleteTagStatement(connection, tagName)) {
-            statement.executeUpdate();
+            int updated = storage.replaceMaterials(replacements);
+            progress.migrated += updated;
+            // A batch that changed nothing would be selected again forever
+            return updated > 0 && legacyRows.size() == MATERIAL_MIGRATION_BATCH;
         } catch (SQLException e) {
+            getLogger().severe("Error migrating tag materials: " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
 
-    private PreparedStatement prepareDeleteTagStatement(Connection connection, String tagName) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement("DELETE FROM tags WHERE name = ?");
-        statement.setString(1, tagName);
-        return statement;
+    // Running totals for one migrateLegacyMaterialsAsync call; batches run one after another
+    private static final class MaterialMigrationProgress {
+        int migrated;
+        int repaired;
+        long bytesBefore;
+        long bytesAfter;
     }
 
-    public void purgeTagsTable() {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
-            dropTagsTable(statement);
-            recreateTagsTable(statement);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Saves the tag on the I/O executor and publishes a reloaded catalog when done.
+     *
+     * @return A future completing with false if the write failed.
+     */
+    public CompletableFuture<Boolean> addTagToDatabase(Tag tag) {
+        return writeTagsAsync("saving tag " + tag.getName(), () -> {
+            storage.saveTag(tag);
+            return true;
+        });
     }
 
-    public void purgeRequestsTable() {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
-            dropRequestsTable(statement);
-            recreateRequestsTable(statement);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Runs a tags table write on the I/O executor, then reloads the catalog there if the write changed anything.
+     * Menus keep reading the previous catalog until the new one is published.
+     */
+    private CompletableFuture<Boolean> writeTagsAsync(String description, TagWrite write) {
+        return ioExecutor.supplyAsync(() -> {
+            boolean changed;
+            try {
+                changed = write.apply();
+            } catch (SQLException e) {
+                getLogger().severe("Error " + description + ": " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+            if (changed) {
+                reloadTagCatalog();
+            }
+            return changed;
+        }).exceptionally(reportFailure(description));
     }
 
-    private void dropTagsTable(Statement statement) throws SQLException {
-        String dropTableQuery = "DROP TABLE IF EXISTS tags";
-        statement.executeUpdate(dropTableQuery);
+    // Turns a refused (or crashed) write into a false result, so callers send their usual failure message
+    private Function<Throwable, Boolean> reportFailure(String description) {
+        return ex -> {
+            getLogger().severe("Error " + description + ": " + ex.getMessage());
+            return false;
+        };
     }
 
-    private void dropRequestsTable(Statement statement) throws SQLException {
-        String dropTableQuery = "DROP TABLE IF EXISTS tag_requests";
-        statement.executeUpdate(dropTableQuery);
+    @FunctionalInterface
+    private interface TagWrite {
+        /**
+         * @return Whether the tags table changed.
+         */
+        boolean apply() throws SQLException;
     }
 
-    private void recreateTagsTable(Statement statement) throws SQLException {
-        String createTable = "CREATE TABLE IF NOT EXISTS tags (" +
-                "`name` VARCHAR(255) PRIMARY KEY," +
-                "`display` VARCHAR(255) NOT NULL," +
-                "`type` ENUM('prefix', 'suffix', 'both') NOT NULL," +
-                "`public` BOOLEAN NOT NULL," +
-                "`color` BOOLEAN NOT NULL," +
-                "`material` MEDIUMTEXT NOT NULL," +
-                "`weight` INT NOT NULL" +
-                ");";
-        statement.executeUpdate(createTable);
+    public String serializeMaterial(ItemStack material) { // Changed to public
+        return MaterialCodec.encode(material);
     }
 
-    private void recreateRequestsTable(Statement statement) throws SQLException {
-        String createTable = ("CREATE TABLE IF NOT EXISTS `tag_requests` ("
-                + "`id` INT AUTO_INCREMENT PRIMARY KEY,"
-                + "`player_uuid` VARCHAR(36) NOT NULL,"
-                + "`player_name` VARCHAR(255) NOT NULL,"
-                + "`tag_display` VARCHAR(255) NOT NULL);");
-        statement.executeUpdate(createTable);
+    public CompletableFuture<Boolean> deleteTagFromDatabase(String tagName) {
+        return writeTagsAsync("deleting tag " + tagName, () -> {
+            storage.deleteTag(tagName);
+            return true;
+        });
     }
 
-    public void updateDatabaseSchema() {
-        int currentSchemaVersion = getConfig().getInt("database.schema");
-        int latestSchemaVersion = 3; // Update this value when the schema changes
-        getLogger().info("Checking if database schema needs an update...");
-
-        if (currentSchemaVersion < latestSchemaVersion) {
-            getLogger().info("Schema version " + currentSchemaVersion + " needs to be updated to version " + latestSchemaVersion);
+    public CompletableFuture<Boolean> purgeTagsTable() {
+        return ioExecutor.supplyAsync(() -> {
+            boolean purged = true;
+            try {
+                storage.purgeTags();
+            } catch (SQLException e) {
+                getLogger().severe("Error purging the tags table: " + e.getMessage());
+                e.printStackTrace();
+                purged = false;
+            }
+            reloadTagCatalog(); // Reload even on partial failure; the table may already be gone
+            return purged;
+        }).exceptionally(reportFailure("purging the tags table"));
+    }
 
-            try (Connection connection = getConnection()) {
-                updateSchemaVersions(connection, currentSchemaVersion, latestSchemaVersion);
-                updateConfigSchemaVersion(latestSchemaVersion);
+    public CompletableFuture<Boolean> purgeRequestsTable() {
+        return ioExecutor.supplyAsync(() -> {
+            try {
+                storage.purgeRequests();
             } catch (SQLException e) {
+                getLogger().severe("Error purging the tag_requests table: " + e.getMessage());
                 e.printStackTrace();
+                return false;
+            } finally {
+                pendingRequestCache.clear();
             }
-        }
+            return true;
+        }).exceptionally(reportFailure("purging the tag_requests table"));
     }
 
-    private void updateSchemaVersions(Connection connection, int currentSchemaVersion, int latestSchemaVersion) throws SQLException {
-        for (int i = currentSchemaVersion + 1; i <= latestSchemaVersion; i++) {
-            switch (i) {
-                case 3:
-                    addMaterialColumnIfNotExists(connection);
-                    break;
-                // Add more cases for future schema updates
+    /**
+     * Imports a tag bundle (see {@link TagBundle}) from the plugin folder on the I/O executor.
+     * Every entry is validated before anything is written; the tags are then upserted in one
+     * transaction and the catalog is reloaded once.
+     */
+    public void importTagBundleAsync(Player player, String fileName) {
+        File dataFolder = getDataFolder();
+        boolean queued = ioExecutor.tryExecute(() -> {
+            List<String> messages = new ArrayList<>();
+            try {
+                File file = TagBundle.resolve(dataFolder, fileName);
+                if (file == null) {
+                    messages.add(ChatColor.RED + "Bundle files must be inside the uTags plugin folder.");
+                } else if (!file.isFile()) {
+                    messages.add(ChatColor.RED + "No bundle named " + file.getName() + " in the uTags plugin folder.");
+                } else {
+                    long start = System.nanoTime();
+                    TagBundle.ReadResult result = TagBundle.read(file);
+                    if (!result.errors.isEmpty()) {
+                        messages.add(ChatColor.RED + "Import aborted, nothing was written. Invalid entries in " + file.getName() + ":");
+                        for (String error : result.errors) {
+                            messages.add(ChatColor.RED + " " + error);
+                        }
+                    } else {
+                        int written = storage.saveTags(result.tags);
+                        reloadTagCatalog();
+                        messages.add(ChatColor.GREEN + "Imported " + written + " tag(s) from " + file.getName() + " in "
+                                + (System.nanoTime() - start) / 1_000_000L + "ms.");
+                        getLogger().info(player.getName() + " imported " + written + " tag(s) from " + file.getName());
+                    }
+                }
+            } catch (IOException e) {
+                messages.add(ChatColor.RED + "Could not read the bundle: " + e.getMessage());
+            } catch (SQLException e) {
+                getLogger().severe("Error importing tag bundle " + fileName + ": " + e.getMessage());
+                e.printStackTrace();
+                messages.add(ChatColor.RED + "A database error occurred; the import was rolled back.");
             }
+            Bukkit.getScheduler().runTask(this, () -> messages.forEach(player::sendMessage));
+        }, "tag bundle import " + fileName);
+        if (!queued) {
+            player.sendMessage(ChatColor.RED + "The server is busy; try the import again in a moment.");
         }
     }
 
-    private void addMaterialColumnIfNotExists(Connection connection) throws SQLException {
-        DatabaseMetaData metaData = connection.getMetaData();
-        ResultSet resultSet = metaData.getColumns(null, null, "tags", "material");
-        if (!resultSet.next()) {
-            try (Statement statement = connection.createStatement()) {
-                String alterTable = "ALTER TABLE tags MODIFY COLUMN `material` MEDIUMTEXT NOT NULL;";
-                statement.executeUpdate(alterTable);
+    /**
+     * Writes every tag in the current catalog to a bundle in the plugin folder, overwriting an existing file.
+     */
+    public void exportTagBundleAsync(Player player, String fileName) {
+        File dataFolder = getDataFolder();
+        List<Tag> tags = tagCatalog.getAll();
+        boolean queued = ioExecutor.tryExecute(() -> {
+            String message;
+            try {
+                File file = TagBundle.resolve(dataFolder, fileName);
+                if (file == null) {
+                    message = ChatColor.RED + "Bundle files must be inside the uTags plugin folder.";
+                } else {
+                    int written = TagBundle.write(file, tags);
+                    message = ChatColor.GREEN + "Exported " + written + " tag(s) to " + file.getName() + ".";
+                }
+            } catch (IOException e) {
+                getLogger().warning("Error exporting tag bundle " + fileName + ": " + e.getMessage());
+                message = ChatColor.RED + "Could not write the bundle: " + e.getMessage();
             }
+            String finalMessage = message;
+            Bukkit.getScheduler().runTask(this, () -> player.sendMessage(finalMessage));
+        }, "tag bundle export " + fileName);
+        if (!queued) {
+            player.sendMessage(ChatColor.RED + "The server is busy; try the export again in a moment.");
         }
     }
 
-    private void updateConfigSchemaVersion(int latestSchemaVersion) {
-        getConfig().set("database.schema", latestSchemaVersion);
-        saveConfig();
+    /**
+     * Applies pending schema migrations. Applied versions are recorded in the utags_schema_migrations table;
+     * the old database.schema config key is no longer read.
+     */
+    public void updateDatabaseSchema() {
+        getLogger().info("Checking if database schema needs an update...");
+        try {
+            int applied = storage.migrateSchema();
+            if (applied > 0) {
+                getLogger().info("Applied " + applied + " schema migration(s); schema is at version " + SchemaMigrator.latestVersion() + ".");
+            }
+        } catch (SQLException e) {
+            getLogger().severe("Error migrating the database schema: " + e.getMessage());
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -681,7 +752,6 @@ public class uTags extends JavaPlugin {
 
         // Use final variables for lambda
         final String finalTagDisplay = tagDisplay.trim(); // Trim before using
-        final String playerUUID = player.getUniqueId().toString();
         final String playerName = player.getName(); // Capture name now
 
         if (finalTagDisplay.isEmpty()) {
@@ -690,28 +760,21 @@ public class uTags extends JavaPlugin {
         }
 
         // Run database operations asynchronously
-        return CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> submitted = ioExecutor.runAsync(() -> {
             boolean updateFailed = false;
             boolean insertFailed = false;
             boolean checkFailed = false;
             boolean updated = false;
 
-            try (Connection connection = getConnection();
-                 PreparedStatement checkExistingRequest = connection.prepareStatement(
-                         "SELECT id FROM tag_requests WHERE player_uuid = ? LIMIT 1")) { // Optimized query
-
-                checkExistingRequest.setString(1, playerUUID);
-                ResultSet resultSet = checkExistingRequest.executeQuery();
-
-                if (resultSet.next()) {
+            UUID playerUuid = player.getUniqueId();
+            try {
+                int existingId = storage.findRequestId(playerUuid);
+                if (existingId >= 0) {
                     // Request exists, update it
-                    try (PreparedStatement updateRequest = connection.prepareStatement(
-                            "UPDATE tag_requests SET player_name = ?, tag_display = ? WHERE player_uuid = ?")) {
-                        updateRequest.setString(1, playerName);
-                        updateRequest.setString(2, finalTagDisplay);
-                        updateRequest.setString(3, playerUUID);
-                        updateRequest.executeUpdate();
+                    try {
+                        storage.updateRequest(playerUuid, playerName, finalTagDisplay);
                         updated = true; // Mark as updated
+                        pendingRequestCache.put(new CustomTagRequest(existingId, playerUuid, playerName, finalTagDisplay));
                     } catch (SQLException e) {
                         getLogger().severe("Error updating tag request for " + playerName + ": " + e.getMessage());
                         e.printStackTrace();
@@ -719,13 +782,14 @@ public class uTags extends JavaPlugin {
                     }
                 } else {
                     // Request doesn't exist, insert it
-                    try (PreparedStatement insertRequest = connection.prepareStatement(
-                            "INSERT INTO tag_requests (player_uuid, player_name, tag_display) VALUES (?, ?, ?)")) {
-                        insertRequest.setString(1, playerUUID);
-                        insertRequest.setString(2, playerName);
-                        insertRequest.setString(3, finalTagDisplay);
-                        insertRequest.executeUpdate();
-                        // No need for 'updated' flag here, success is implied if no exception
+                    try {
+                        int id = storage.insertRequest(playerUuid, playerName, finalTagDisplay);
+                        if (id >= 0) {
+                            pendingRequestCache.put(new CustomTagRequest(id, playerUuid, playerName, finalTagDisplay));
+                        } else {
+                            // Driver returned no key; fall back to a full reload so the cache stays correct
+                            reloadPendingRequests();
+                        }
                     } catch (SQLException e) {
                         getLogger().severe("Error inserting tag request for " + playerName + ": " + e.getMessage());
                         e.printStackTrace();
@@ -758,129 +822,143 @@ public class uTags extends JavaPlugin {
                 }
             });
         });
+        if (submitted.isCompletedExceptionally()) {
+            // Refused by a full I/O queue; only happens on the main thread, so reply directly
+            player.sendMessage(ChatColor.RED + "The server is busy; please submit your tag request again in a moment.");
+        }
+        return submitted;
     }
 
+    /**
+     * Counts the player's custom tags (tags named after them). Blocks on the database; use
+     * {@link #countCustomTagsAsync(String)} from the main thread.
+     */
     public int countCustomTags(String playerName) {
         // Count the number of custom tags for a player
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM tags WHERE name LIKE ?")) {
-
-            statement.setString(1, playerName + "%");
-            ResultSet resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            }
+        try {
+            return storage.countTagsWithNamePrefix(playerName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return 0;
     }
 
+    public CompletableFuture<Integer> countCustomTagsAsync(String playerName) {
+        return ioExecutor.supplyAsync(() -> countCustomTags(playerName));
+    }
+
+    /**
+     * @return A copy of the pending custom tag requests, oldest first. Served from memory.
+     */
     public List<CustomTagRequest> getCustomTagRequests() {
-        List<CustomTagRequest> requests = new ArrayList<>();
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT * FROM tag_requests");
-             ResultSet resultSet = statement.executeQuery()) {
-
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                UUID playerUuid = UUID.fromString(resultSet.getString("player_uuid"));
-                String playerName = resultSet.getString("player_name");
-                String tagDisplay = resultSet.getString("tag_display");
-                requests.add(new CustomTagRequest(id, playerUuid, playerName, tagDisplay));
-            }
+        return pendingRequestCache.getAll();
+    }
+
+    /**
+     * Reloads the pending request cache from the tag_requests table.
+     * Keeps the current cache if the query fails.
+     */
+    public void reloadPendingRequests() {
+        List<CustomTagRequest> requests;
+        try {
+            requests = storage.loadRequests();
         } catch (SQLException e) {
+            getLogger().severe("Failed to load pending tag requests: " + e.getMessage());
             e.printStackTrace();
+            return;
         }
-        return requests;
+        pendingRequestCache.replaceAll(requests);
     }
 
     public CustomTagRequest getCustomTagRequestByPlayerName(String playerName) {
-        CustomTagRequest request = null;
-        try (Connection connection = getConnection()) {
-            PreparedStatement statement = connection.prepareStatement("SELECT * FROM tag_requests WHERE player_name = ?;");
-            statement.setString(1, playerName);
-            ResultSet resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                UUID playerUuid = UUID.fromString(resultSet.getString("player_uuid"));
-                String display = resultSet.getString("tag_display");
-                request = new CustomTagRequest(id, playerUuid, playerName, display);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return request;
+        return pendingRequestCache.getByPlayerName(playerName);
     }
 
-    public void acceptCustomTagRequest(CustomTagRequest request) {
-        try (Connection connection = getConnection()) {
-            // Get count once to avoid race condition between permission and tag creation
-            int customTagNumber = countCustomTags(request.getPlayerName()) + 1;
-            String tagName = request.getPlayerName() + customTagNumber;
-            String permission = "utags.tag." + tagName;
-            // Add the new tag to the tags table
-            addTagToDatabase(new Tag(tagName, request.getTagDisplay(), TagType.PREFIX, false, false, new ItemStack(Material.PLAYER_HEAD), 1));
-
-            // Remove the request from the tag_requests table
-            removeCustomRequestFromDatabase(request);
-            getLuckPerms().getUserManager().loadUser(request.getPlayerUuid()).thenAcceptAsync(user -> {
-                user.data().add(Node.builder(permission).build());
-                getLuckPerms().getUserManager().saveUser(user);
-
-                // Execute the configured command to notify the player
-                String command = getConfig().getString("accept-command", "mail send %player% Your custom tag request has been accepted!");
-                command = command.replace("%player%", request.getPlayerName());
-                String finalCommand = command;
-                Bukkit.getScheduler().runTask(this, () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand));
-            });
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * @return The pending request with the given id, or null if it has been accepted, denied or purged.
+     */
+    public CustomTagRequest getCustomTagRequestById(int requestId) {
+        return pendingRequestCache.get(requestId);
     }
 
-    public void removeCustomRequestFromDatabase(CustomTagRequest request) {
-        try (Connection connection = getConnection()) {
-            PreparedStatement statement = connection.prepareStatement("DELETE FROM tag_requests WHERE id = ?;");
-            statement.setInt(1, request.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Accepts a request on the I/O executor: creates the player's next custom tag, deletes the request
+     * and grants the tag permission. The request leaves the pending cache straight away, so a second
+     * click cannot accept it twice.
+     *
+     * @return A future completing with false if the database work failed; the request is pending again then.
+     */
+    public CompletableFuture<Boolean> acceptCustomTagRequest(CustomTagRequest request) {
+        pendingRequestCache.remove(request.getId());
+        return ioExecutor.supplyAsync(() -> {
+            String tagName;
+            try {
+                // Count inside the task, so the number is current when the tag is created
+                int customTagNumber = storage.countTagsWithNamePrefix(request.getPlayerName()) + 1;
+                tagName = request.getPlayerName() + customTagNumber;
+                storage.saveTag(new Tag(tagName, request.getTagDisplay(), TagType.PREFIX, false, false, new ItemStack(Material.PLAYER_HEAD), 1));
+                storage.deleteRequest(request.getId());
+            } catch (SQLException e) {
+                getLogger().severe("Error accepting tag request " + request.getId() + " from " + request.getPlayerName() + ": " + e.getMessage());
+                e.printStackTrace();
+                pendingRequestCache.put(request);
+                return false;
+            }
+            reloadTagCatalog();
+
+            String permission = "utags.tag." + tagName;
+            tagNodeManager.modifyUser(request.getPlayerUuid(), user -> user.data().add(Node.builder(permission).build()).wasSuccessful())
+                    .thenRun(() -> {
+                        // Execute the configured command to notify the player
+                        String command = getConfig().getString("accept-command", "mail send %player% Your custom tag request has been accepted!");
+                        command = command.replace("%player%", request.getPlayerName());
+                        String finalCommand = command;
+                        Bukkit.getScheduler().runTask(this, () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand));
+                    });
+            return true;
+        }).exceptionally(restoreRequestOnFailure(request, "accepting"));
     }
 
-    public void denyCustomTagRequest(CustomTagRequest request) {
-        try (Connection connection = getConnection()) {
-            PreparedStatement statement = connection.prepareStatement("DELETE FROM tag_requests WHERE id = ?;");
-            statement.setInt(1, request.getId());
-            statement.executeUpdate();
+    /**
+     * Deletes a request on the I/O executor and runs the configured deny command.
+     *
+     * @return A future completing with false if the delete failed; the request is pending again then.
+     */
+    public CompletableFuture<Boolean> denyCustomTagRequest(CustomTagRequest request) {
+        pendingRequestCache.remove(request.getId());
+        return ioExecutor.supplyAsync(() -> {
+            try {
+                storage.deleteRequest(request.getId());
+            } catch (SQLException e) {
+                getLogger().severe("Error denying tag request " + request.getId() + " from " + request.getPlayerName() + ": " + e.getMessage());
+                e.printStackTrace();
+                pendingRequestCache.put(request);
+                return false;
+            }
             // Execute the configured command to notify the player
             String command = getConfig().getString("deny-command", "mail send %player% Your custom tag request has been denied.");
-            command = command.replace("%player%", request.getPlayerName());
-            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            String finalCommand = command.replace("%player%", request.getPlayerName());
+            Bukkit.getScheduler().runTask(this, () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand));
+            return true;
+        }).exceptionally(restoreRequestOnFailure(request, "denying"));
+    }
+
+    // A refused task never touched the database, so the request is still pending and goes back in the cache
+    private Function<Throwable, Boolean> restoreRequestOnFailure(CustomTagRequest request, String action) {
+        return ex -> {
+            if (IoExecutor.isRejection(ex)) {
+                pendingRequestCache.put(request);
+                getLogger().warning("Could not start " + action + " tag request " + request.getId() + " from "
+                        + request.getPlayerName() + " (" + ex.getMessage() + "); it is still pending.");
+            } else {
+                getLogger().severe("Error " + action + " tag request " + request.getId() + " from " + request.getPlayerName() + ": " + ex.getMessage());
+            }
+            return false;
+        };
     }
 
     public void openRequestsMenu(Player player) {
-        List<CustomTagRequest> requests = new ArrayList<>();
-        try (Connection connection = getConnection()) {
-            PreparedStatement statement = connection.prepareStatement("SELECT * FROM tag_requests;");
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                UUID playerUuid = UUID.fromString(resultSet.getString("player_uuid"));
-                String playerName = resultSet.getString("player_name");
-                String display = resultSet.getString("tag_display");
-                requests.add(new CustomTagRequest(id, playerUuid, playerName, display));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        // Now create the inventory GUI and open it for the player
-        openRequestsMenu(player, requests);
+        openRequestsMenu(player, getCustomTagRequests());
     }
 
     public void openRequestsMenu(Player player, List<CustomTagRequest> requests) {
@@ -890,9 +968,12 @@ public class uTags extends JavaPlugin {
         rows = Math.min(rows, 6);  // Maximum 6 rows in a chest GUI
         int size = rows * 9;       // Size must be a multiple of 9
         
-        Inventory inventory = Bukkit.createInventory(null, size, ChatColor.BLUE + "Custom Tag Requests");
+        UTagsMenuHolder holder = new UTagsMenuHolder(UTagsMenuHolder.Kind.REQUESTS);
+        Inventory inventory = holder.createInventory(size, ChatColor.BLUE + "Custom Tag Requests");
 
+        int slot = 0;
         for (CustomTagRequest request : requests) {
+            if (slot >= size) break; // More requests than a chest can show
             ItemStack item = new ItemStack(Material.PLAYER_HEAD);
             SkullMeta skullMeta = (SkullMeta) item.getItemMeta();
             skullMeta.setOwningPlayer(Bukkit.getOfflinePlayer(request.getPlayerUuid()));
@@ -904,80 +985,63 @@ public class uTags extends JavaPlugin {
             lore.add(ChatColor.RED + "Right-click to deny");
             skullMeta.setLore(lore);
             item.setItemMeta(skullMeta);
-            inventory.addItem(item);
+            inventory.setItem(slot, item);
+            holder.setSlotAction(slot, new MenuAction(MenuAction.Type.REVIEW_REQUEST, String.valueOf(request.getId())));
+            slot++;
         }
 
         player.openInventory(inventory);
     }
 
-    public boolean editTagAttribute(String tagName, String attribute, String newValue) {
+    /**
+     * Validates and converts the value on the calling thread, then updates the column and reloads
+     * the catalog on the I/O executor.
+     *
+     * @return A future completing with false if the attribute or value is invalid, the tag does not exist or the write failed.
+     */
+    public CompletableFuture<Boolean> editTagAttribute(String tagName, String attribute, String newValue) {
         // List of allowed attribute names to prevent SQL injection
         Set<String> allowedAttributes = new HashSet<>(Arrays.asList("name", "display", "type", "public", "color", "material", "weight"));
 
         // Verify the attribute is valid
         if (!allowedAttributes.contains(attribute.toLowerCase())) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT * FROM tags WHERE name = ?")) {
-            statement.setString(1, tagName);
-            ResultSet resultSet = statement.executeQuery();
-
-            if (!resultSet.next()) {
-                return false;
-            }
-
-            // Use prepared statements with the validated attribute name
-            String sql = "";
-            switch(attribute.toLowerCase()) {
-                case "name": sql = "UPDATE tags SET name = ? WHERE name = ?"; break;
-                case "display": sql = "UPDATE tags SET display = ? WHERE name = ?"; break;
-                case "type": sql = "UPDATE tags SET type = ? WHERE name = ?"; break;
-                case "public": sql = "UPDATE tags SET public = ? WHERE name = ?"; break;
-                case "color": sql = "UPDATE tags SET color = ? WHERE name = ?"; break;
-                case "material": sql = "UPDATE tags SET material = ? WHERE name = ?"; break;
-                case "weight": sql = "UPDATE tags SET weight = ? WHERE name = ?"; break;
-                default: return false; // This shouldn't happen due to the validation above
-            }
-
-            try (PreparedStatement updateStatement = connection.prepareStatement(sql)) {
-                // Set the appropriate type based on the attribute
-                switch(attribute.toLowerCase()) {
-                    case "weight":
-                        try {
-                            updateStatement.setInt(1, Integer.parseInt(newValue));
-                        } catch (NumberFormatException e) {
-                            getLogger().warning("Invalid integer value for weight: " + newValue);
-                            return false;
-                        }
-                        break;
-                    case "public":
-                    case "color":
-                        updateStatement.setBoolean(1, Boolean.parseBoolean(newValue));
-                        break;
-                    case "type":
-                        // Validate enum value
-                        String upperValue = newValue.toUpperCase();
-                        if (!upperValue.equals("PREFIX") && !upperValue.equals("SUFFIX") && !upperValue.equals("BOTH")) {
-                            getLogger().warning("Invalid type value: " + newValue + ". Must be PREFIX, SUFFIX, or BOTH.");
-                            return false;
-                        }
-                        updateStatement.setString(1, upperValue.toLowerCase());
-                        break;
-                    default:
-                        updateStatement.setString(1, newValue);
-                        break;
+        // Convert the value to the column's type
+        String column = attribute.toLowerCase();
+        Object value;
+        switch (column) {
+            case "weight":
+                try {
+                    value = Integer.parseInt(newValue);
+                } catch (NumberFormatException e) {
+                    getLogger().warning("Invalid integer value for weight: " + newValue);
+                    return CompletableFuture.completedFuture(false);
                 }
-                updateStatement.setString(2, tagName);
-                updateStatement.executeUpdate();
-                return true;
-            }
-        } catch (SQLException e) {
-            getLogger().severe("Error updating tag attribute: " + e.getMessage());
-            e.printStackTrace();
+                break;
+            case "public":
+            case "color":
+                value = Boolean.parseBoolean(newValue);
+                break;
+            case "type":
+                // Validate enum value
+                String upperValue = newValue.toUpperCase();
+                if (!upperValue.equals("PREFIX") && !upperValue.equals("SUFFIX") && !upperValue.equals("BOTH")) {
+                    getLogger().warning("Invalid type value: " + newValue + ". Must be PREFIX, SUFFIX, or BOTH.");
+                    return CompletableFuture.completedFuture(false);
+                }
+                value = upperValue.toLowerCase();
+                break;
+            default:
+                value = newValue;
+                break;
         }
-        return false;
+
+        Object finalValue = value;
+        // false (no such tag) skips the reload
+        return writeTagsAsync("updating tag attribute " + column + " of " + tagName,
+                () -> storage.updateTagColumn(tagName, column, finalValue));
     }
 
     /**
@@ -993,393 +1057,92 @@ public class uTags extends JavaPlugin {
             return originalDisplay; // No custom colors set
         }
 
-        ChatColor bracketColor = preference.getBracketColor();
-        ChatColor contentColor = preference.getContentColor();
-
-        // Find the positions of the brackets
-        int openBracketIndex = originalDisplay.indexOf('[');
-        int closeBracketIndex = originalDisplay.indexOf(']');
-
-        // If brackets aren't found, return original (or handle error)
-        if (openBracketIndex == -1 || closeBracketIndex == -1 || openBracketIndex >= closeBracketIndex) {
-            getLogger().warning("Could not parse brackets in tag display: " + originalDisplay);
-            return originalDisplay;
-        }
-
-        String prefix = originalDisplay.substring(0, openBracketIndex); // Colors before the opening bracket
-        String content = originalDisplay.substring(openBracketIndex + 1, closeBracketIndex);
-        String suffix = originalDisplay.substring(closeBracketIndex + 1); // Text/colors after the closing bracket
-
-        StringBuilder formatted = new StringBuilder();
-
-        // Apply prefix colors
-        formatted.append(prefix);
-
-        // Apply bracket color
-        if (bracketColor != null) {
-            formatted.append(bracketColor).append('[');
-        } else {
-            // Need to re-apply prefix colors if bracket color is default
-            formatted.append(ChatColor.getLastColors(prefix)).append('[');
-        }
-
-        // Apply content color
-        if (contentColor != null) {
-            // Append content with its new color
-            formatted.append(contentColor).append(content);
-        } else {
-            // If content color is default, try to determine the original content color
-             String originalInside = originalDisplay.substring(openBracketIndex + 1, closeBracketIndex);
-             String lastColorInside = ChatColor.getLastColors(originalInside);
-             if (!lastColorInside.isEmpty()) {
-                 // Apply original internal color if found
-                 formatted.append(lastColorInside).append(content);
-             } else {
-                 // Fallback: Apply the color that was active just before the content (either prefix or bracket color)
-                 String colorBeforeContentStr = ChatColor.getLastColors(prefix);
-                 if (bracketColor != null) {
-                    colorBeforeContentStr = bracketColor.toString();
-                 }
-                 formatted.append(colorBeforeContentStr).append(content);
-             }
-        }
-
-        // Apply bracket color to closing bracket
-        if (bracketColor != null) {
-            formatted.append(bracketColor).append(']');
-        } else {
-            // Re-apply prefix colors if bracket color is default
-             formatted.append(ChatColor.getLastColors(prefix)).append(']');
-        }
-
-        // Append the original suffix directly. Let Minecraft handle color context continuation.
-        formatted.append(suffix);
-
-        return formatted.toString();
+        // Parsed once per display and memoised per colour pair; see TagDisplayFormat for the rules
+        return tagDisplayFormats.format(originalDisplay, preference.getBracketColor(), preference.getContentColor());
     }
 
 
     public void setPlayerTag(Player player, String tagName, TagType tagType) {
-        User user = getLuckPerms().getUserManager().getUser(player.getUniqueId());
-        if (user == null) {
-            getLogger().warning("[uTags] Could not find LuckPerms user for " + player.getName());
+        Tag tag = getTagByName(tagName);
+        if (tag == null || tag.getDisplay() == null || tag.getDisplay().isEmpty()) {
+            getLogger().warning("[uTags] Could not find display string for tag: " + tagName);
+            player.sendMessage(ChatColor.RED + "Error applying tag: Could not find tag display.");
             return;
         }
 
-        // --- Step 1 & 2: Retrieve Current Prefix and Extract Trailing Color (Synchronously) ---
-        String extractedNameColor = "§f"; // Default to white
-        Node existingPrefixNodeToRemove = null; // Store the node to remove later
-
-        if (tagType == TagType.PREFIX) { // Only need to do this for prefix changes
-            getLogger().fine("[uTags] Searching for existing prefix node with priority " + TAG_PREFIX_PRIORITY + " for " + player.getName());
-            for (Node node : user.data().toCollection()) {
-                if (node instanceof PrefixNode && ((PrefixNode) node).getPriority() == TAG_PREFIX_PRIORITY) {
-                    existingPrefixNodeToRemove = node; // Found the node to remove
-                    PrefixNode prefixNode = (PrefixNode) node;
-                    String currentPrefixValue = prefixNode.getMetaValue(); // Get the actual prefix string value
-                    getLogger().info("[uTags Debug] Retrieved current prefix value: '" + (currentPrefixValue != null ? currentPrefixValue.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") : "null") + "' for " + player.getName());
-
-                    // --- CORRECTED LOGIC: Extract the *last two characters* as potential color code ---
-                    extractedNameColor = "§f"; // Default to white
-
-                    if (currentPrefixValue != null && currentPrefixValue.length() >= 2) {
-                        String potentialColorCode = currentPrefixValue.substring(currentPrefixValue.length() - 2);
-                        char sectionChar = potentialColorCode.charAt(0);
-                        char codeChar = potentialColorCode.charAt(1);
-
-                        // Check if it's a valid color/format code using ChatColor.getByChar
-                        // Allow both '§' and '&' as the section character for flexibility, but store using '§'
-                        if ((sectionChar == ChatColor.COLOR_CHAR || sectionChar == '&') && ChatColor.getByChar(codeChar) != null) {
-                            // Construct the valid code using the standard COLOR_CHAR ('§')
-                            extractedNameColor = ChatColor.COLOR_CHAR + "" + codeChar;
-                            getLogger().info("[uTags Debug] Extracted valid trailing name color code: '" + extractedNameColor.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-                        } else {
-                            getLogger().info("[uTags Debug] Last two characters ('" + potentialColorCode.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "') are not a valid color/format code for " + player.getName() + ". Using default ('§f').");
-                            // extractedNameColor remains "§f" (default)
-                        }
-                    } else {
-                        getLogger().info("[uTags Debug] Current prefix is null or too short (< 2 chars) for " + player.getName() + ". Using default color ('§f').");
-                        // extractedNameColor remains "§f"
-                    }
-                    // --- END CORRECTED LOGIC ---
-                    break; // Found the relevant node, exit loop
-                }
-            }
-             if (existingPrefixNodeToRemove == null) {
-                 getLogger().info("[uTags Debug] No existing uTags prefix node found for " + player.getName() + ". Using default color ('§f').");
-                 // extractedNameColor remains "§f" (default)
-             }
+        UUID playerUuid = player.getUniqueId();
+        CompletableFuture<Boolean> update;
+        if (tagType == TagType.PREFIX) {
+            // Stored first so a name colour refresh queued behind this update sees the new tag
+            playerAppliedPrefixTagName.put(playerUuid, tagName);
+            update = tagNodeManager.applyTagPrefix(playerUuid, tag);
+        } else if (tagType == TagType.SUFFIX) {
+            update = tagNodeManager.applySuffix(playerUuid, tag.getDisplay());
+        } else {
+            return;
         }
-            // Debug log moved inside the corrected logic block above.
-        // Make the extracted color effectively final for use in lambda
-        final String finalExtractedNameColor = extractedNameColor;
-        final Node finalExistingPrefixNodeToRemove = existingPrefixNodeToRemove; // Also make the node effectively final
-
-        // --- Step 3: Fetch the display string for the *new* tag asynchronously ---
-        getTagDisplayByNameAsync(tagName).thenAcceptAsync(newTagBaseDisplay -> { // Renamed variable for clarity
-            if (newTagBaseDisplay == null || newTagBaseDisplay.isEmpty()) {
-                getLogger().warning("[uTags] Could not find display string for tag: " + tagName);
-                Bukkit.getScheduler().runTask(this, () -> player.sendMessage(ChatColor.RED + "Error applying tag: Could not find tag display."));
-                return;
-            }
-            getLogger().info("[uTags Debug] Retrieved new tag display string: '" + newTagBaseDisplay.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-
-
-            if (tagType == TagType.PREFIX) {
-                // --- Step 4 & 5: Combine new tag display with extracted color and Update LuckPerms ---
-
-                // Apply Player-Specific Tag Colors to the new tag's base display
-                PlayerTagColorPreference colorPref = getPlayerTagColorPreference(player.getUniqueId(), tagName);
-                String colorFormattedNewTagDisplay = formatTagDisplayWithColor(newTagBaseDisplay, colorPref);
-                getLogger().info("[uTags Debug] Color-formatted new tag string: '" + colorFormattedNewTagDisplay.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-
-                // Combine the *color-formatted* new tag display with the *extracted* name color
-                String finalPrefixValue = colorFormattedNewTagDisplay + finalExtractedNameColor;
-                getLogger().info("[uTags Debug] Final combined prefix string: '" + finalPrefixValue.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-
-                // Remove the existing uTags prefix node (if found) - Use the effectively final variable
-                if (finalExistingPrefixNodeToRemove != null) {
-                    user.data().remove(finalExistingPrefixNodeToRemove);
-                    getLogger().fine("[uTags] Removed existing uTags prefix node for " + player.getName());
-                } else {
-                    getLogger().fine("[uTags] No existing uTags prefix node found to remove for " + player.getName());
-                }
-
-                // Add the new uTags prefix node
-                user.data().add(PrefixNode.builder(finalPrefixValue, TAG_PREFIX_PRIORITY).build());
-                getLogger().fine("[uTags] Added new uTags prefix node for " + player.getName());
-
-                // Store the applied tag NAME for later color updates
-                playerAppliedPrefixTagName.put(player.getUniqueId(), tagName);
-
-                // --- Step 6: Trigger Refresh (Save user and update display name) ---
-                // The save logic below handles the refresh
-
-                // [This entire block was moved and refactored above, before the async call and inside the new logic]
-
-                // [This logic was moved above]
-
-                // Save user data and schedule refresh
-                getLuckPerms().getUserManager().saveUser(user)
-                    .exceptionally(ex -> {
-                        getLogger().severe("Failed to save user " + player.getName() + " in setPlayerTag (prefix): " + ex.getMessage());
-                        // ex.printStackTrace(); // Optionally uncomment for full stack trace
-                        return null; // Required for exceptionally
-                    })
-                    .thenRunAsync(() -> {
-                    // Existing callback logic...
-                    getLogger().info("[uTags Debug] saveUser callback started for " + player.getName());
-                    getLogger().fine("[uTags] setPlayerTag (prefix) save complete for " + player.getName() + ". Scheduling display name update.");
-
-                    // Directly schedule the final display name update on the main thread
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        try {
-                            // Get the LuckPerms user again inside the task to ensure we have the latest reference
-                            User currentUser = luckPerms.getUserManager().getUser(player.getUniqueId());
-                            if (currentUser == null) {
-                                getLogger().warning("[uTags] Could not find LuckPerms user for " + player.getName() + " during display name update task.");
-                                return;
-                            }
-
-            // [Code removed from here and moved earlier]
-                            // Get prefix and suffix from the user's cached data
-                            String prefix = currentUser.getCachedData().getMetaData().getPrefix();
-                            String suffix = currentUser.getCachedData().getMetaData().getSuffix();
-                            String name = player.getName();
-                            String reset = ChatColor.RESET.toString(); // Ensure reset code is included
-
-                            // Construct the final display name
-                            // Note: Name color is implicitly handled by LuckPerms suffix/prefix if configured correctly.
-                            // We just assemble the parts provided by the cached metadata.
-                            String finalDisplayName = (prefix != null ? ChatColor.translateAlternateColorCodes('&', prefix) : "") +
-                                                      name + // Base name, color should come from prefix/suffix
-                                                      (suffix != null ? ChatColor.translateAlternateColorCodes('&', suffix) : "") +
-                                                      reset; // Add reset at the end
-
-                            getLogger().fine("[uTags] Constructed display name in update task for " + name + ": " + finalDisplayName.replace(String.valueOf(ChatColor.COLOR_CHAR), "&"));
-
-                            // Set the display name and list name
-                            player.setDisplayName(finalDisplayName);
-                            player.setPlayerListName(finalDisplayName); // Update list name too
-
-                            getLogger().info("[uTags] Successfully updated display name for " + name + " via scheduled task after prefix set.");
-
-                        } catch (Exception e) {
-                            getLogger().severe("[uTags] Failed during scheduled display name update for " + player.getName() + " after prefix set: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                    });
 
-                }, runnable -> Bukkit.getScheduler().runTask(this, runnable)); // Ensure Bukkit tasks run on main thread
-
-            } else if (tagType == TagType.SUFFIX) {
-                // Suffix logic: Use the newTagBaseDisplay directly
-                user.data().clear(NodeType.SUFFIX.predicate()); // Clear existing suffixes first
-                user.data().add(SuffixNode.builder(newTagBaseDisplay, 10000).build()); // Use the fetched display string
-
-                // Save the user data asynchronously (Suffix doesn't need the special prefix handling)
-                getLuckPerms().getUserManager().saveUser(user)
-                    .exceptionally(ex -> {
-                        getLogger().severe("Failed to save user " + player.getName() + " in setPlayerTag (suffix): " + ex.getMessage());
-                        // ex.printStackTrace(); // Optionally uncomment for full stack trace
-                        return null; // Required for exceptionally
-                    })
-                    .thenRunAsync(() -> {
-                    // Existing callback logic...
-                    getLogger().info("[uTags Debug] saveUser callback started for " + player.getName());
-                    getLogger().fine("[uTags] setPlayerTag (suffix) save complete for " + player.getName() + ". Scheduling display name update.");
-
-                    // Load the user again to get the most up-to-date data after save
-                    // Directly schedule the final display name update on the main thread
-                    // No need to reload/invalidate here, the previous saveUser should make the data available
-                    // in the subsequent task if LuckPerms caching works as expected.
-                    // If issues arise, uncomment the loadUser/invalidate logic.
-                    // luckPerms.getUserManager().loadUser(player.getUniqueId()).thenAcceptAsync(userToRecalc -> { ... });
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        try {
-                             // Get the LuckPerms user again inside the task
-                             User currentUser = luckPerms.getUserManager().getUser(player.getUniqueId());
-                             if (currentUser == null) {
-                                 getLogger().warning("[uTags] Could not find LuckPerms user for " + player.getName() + " during display name update task (suffix).");
-                                 return;
-                             }
-
-                            // Get prefix and suffix from the user's cached data
-                            String prefix = currentUser.getCachedData().getMetaData().getPrefix();
-                            String suffix = currentUser.getCachedData().getMetaData().getSuffix(); // Should reflect the new suffix
-                            String name = player.getName();
-                            String reset = ChatColor.RESET.toString();
-
-                            // Construct the final display name
-                            String finalDisplayName = (prefix != null ? ChatColor.translateAlternateColorCodes('&', prefix) : "") +
-                                                      name + // Base name
-                                                      (suffix != null ? ChatColor.translateAlternateColorCodes('&', suffix) : "") +
-                                                      reset; // Add reset at the end
-
-                            getLogger().fine("[uTags] Constructed display name in update task for " + name + " (suffix): " + finalDisplayName.replace(String.valueOf(ChatColor.COLOR_CHAR), "&"));
-
-                            // Set the display name and list name
-                            player.setDisplayName(finalDisplayName);
-                            player.setPlayerListName(finalDisplayName); // Update list name too
-
-                            getLogger().info("[uTags] Successfully updated display name for " + name + " via scheduled task after suffix set.");
-
-                        } catch (Exception e) {
-                            getLogger().severe("[uTags] Failed during scheduled display name update for " + player.getName() + " after suffix set: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                    });
-
-                // [This logic was replaced by the direct Bukkit task scheduling above]
-
-                }, runnable -> Bukkit.getScheduler().runTask(this, runnable)); // Ensure Bukkit tasks run on main thread
+        update.whenComplete((changed, ex) -> {
+            if (ex != null) {
+                getLogger().severe("Failed to save user " + player.getName() + " in setPlayerTag (" + tagType + "): " + ex.getMessage());
+                return;
             }
-
-            // Remove this entire redundant save block
-
-        }, runnable -> Bukkit.getScheduler().runTask(this, runnable)); // Ensure Bukkit tasks run on main thread
+            debugLogger.log(DebugLogger.Category.TAGS, playerUuid, () ->
+                    "setPlayerTag " + tagType + " '" + tagName + "' for " + player.getName() + (changed ? ": saved." : ": already applied, no save."));
+            displayNameRefresher.requestRefresh(playerUuid);
+        });
     }
 
     /**
-     * Asynchronously retrieves the internal tag name based on its display value.
+     * Retrieves the internal tag name based on its display value, using the catalog's display index.
+     * The future is already complete when returned.
      *
-     * @param display The display value of the tag.
-     * @return A CompletableFuture containing the internal tag name, or null if not found or an error occurs.
+     * @param display The display value of the tag (raw or colour-translated).
+     * @return A CompletableFuture containing the internal tag name, or null if not found.
      */
     public CompletableFuture<String> getTagNameByDisplayAsync(String display) {
-        return CompletableFuture.supplyAsync(() -> {
-            String tagName = null;
-            try (Connection connection = getConnection();
-                 PreparedStatement statement = connection.prepareStatement("SELECT name FROM tags WHERE display = ? LIMIT 1;")) { // Optimized query
-                statement.setString(1, display);
-                ResultSet resultSet = statement.executeQuery();
-                if (resultSet.next()) {
-                    tagName = resultSet.getString("name");
-                }
-            } catch (SQLException e) {
-                getLogger().severe("Error fetching tag name by display '" + display + "': " + e.getMessage());
-                e.printStackTrace(); // Log the stack trace for debugging
-                // Optionally, complete exceptionally: future.completeExceptionally(e);
-                // For simplicity here, we return null on error.
-            }
-            return tagName;
-        });
+        return CompletableFuture.completedFuture(getTagNameByDisplay(display));
     }
 
     /**
-     * Asynchronously retrieves the display value of a tag based on its internal name.
+     * Retrieves the internal tag name based on its display value from the in-memory catalog.
+     *
+     * @param display The display value of the tag (raw or colour-translated).
+     * @return The internal tag name, or null if not found.
+     */
+    public String getTagNameByDisplay(String display) {
+        Tag tag = tagCatalog.getByDisplay(display);
+        return tag != null ? tag.getName() : null;
+    }
+
+    /**
+     * Retrieves the display value of a tag based on its internal name, using the catalog's name index.
+     * The future is already complete when returned.
      *
      * @param name The internal name of the tag.
-     * @return A CompletableFuture containing the display value, or null if not found or an error occurs.
+     * @return A CompletableFuture containing the display value, or null if not found.
      */
     public CompletableFuture<String> getTagDisplayByNameAsync(String name) {
-        return CompletableFuture.supplyAsync(() -> {
-            String tagDisplay = null;
-            try (Connection connection = getConnection();
-                 PreparedStatement statement = connection.prepareStatement("SELECT display FROM tags WHERE name = ? LIMIT 1;")) { // Optimized query
-                statement.setString(1, name);
-                ResultSet resultSet = statement.executeQuery();
-                if (resultSet.next()) {
-                    tagDisplay = resultSet.getString("display");
-                }
-            } catch (SQLException e) {
-                getLogger().severe("Error fetching tag display by name '" + name + "': " + e.getMessage());
-                e.printStackTrace(); // Log the stack trace for debugging
-                // Optionally, complete exceptionally: future.completeExceptionally(e);
-                // For simplicity here, we return null on error.
-            }
-            return tagDisplay;
-        });
-}
+        return CompletableFuture.completedFuture(getTagDisplayByName(name));
+    }
 
     /**
-     * Synchronously retrieves the display value of a tag based on its internal name.
-     * Use getTagDisplayByNameAsync for better performance when possible.
+     * Retrieves the display value of a tag based on its internal name from the in-memory catalog.
      *
      * @param name The internal name of the tag.
-     * @return The display value, or null if not found or an error occurs.
+     * @return The display value, or null if not found.
      */
     public String getTagDisplayByName(String name) {
-        String tagDisplay = null;
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT display FROM tags WHERE name = ? LIMIT 1;")) {
-            statement.setString(1, name);
-            ResultSet resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                tagDisplay = resultSet.getString("display");
-            }
-        } catch (SQLException e) {
-            getLogger().severe("Error fetching tag display synchronously by name '" + name + "': " + e.getMessage());
-            e.printStackTrace();
-        }
-        return tagDisplay;
+        Tag tag = tagCatalog.getByName(name);
+        return tag != null ? tag.getDisplay() : null;
     }
 
-
-    // Keep the synchronous version for now if needed elsewhere, or remove if fully replaced
-    // public String getTagDisplayByName(String name) { ... }
-
-
     /**
-     * Retrieves a Tag object from the database based on its internal name.
-     * Returns null if the tag is not found or an error occurs.
+     * Retrieves a Tag object from the in-memory catalog based on its internal name.
+     * Returns null if the tag is not found.
      */
     public Tag getTagByName(String name) {
-        Tag tag = null;
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT * FROM tags WHERE name = ?")) {
-
-            statement.setString(1, name);
-            ResultSet resultSet = statement.executeQuery();
-
-            if (resultSet.next()) {
-                tag = createTagFromResultSet(resultSet); // Reuse existing creation logic
-            }
-        } catch (SQLException e) {
-            getLogger().severe("Error retrieving tag by name '" + name + "': " + e.getMessage());
-            e.printStackTrace();
-        }
-        return tag;
+        return tagCatalog.getByName(name);
     }
 
     public void addPreviewTag(Player player, String tag) {
@@ -1406,10 +1169,30 @@ public class uTags extends JavaPlugin {
                 .computeIfAbsent(tagName, k -> new PlayerTagColorPreference(playerUuid, tagName));
     }
 
+    /**
+     * Fills the color preference cache for a player with already-persisted values.
+     * Unlike {@link #setPlayerTagColor}, this neither queues database writes nor touches LuckPerms.
+     * Entries the player changed in memory in the meantime are kept.
+     *
+     * @param playerUuid  The UUID of the player.
+     * @param preferences Preferences keyed by tag name, as read from the database.
+     */
+    public void hydratePlayerTagColorPreferences(UUID playerUuid, Map<String, PlayerTagColorPreference> preferences) {
+        if (preferences.isEmpty()) {
+            return;
+        }
+        Map<String, PlayerTagColorPreference> playerPrefs = playerColorPreferences
+                .computeIfAbsent(playerUuid, k -> new ConcurrentHashMap<>());
+        for (Map.Entry<String, PlayerTagColorPreference> entry : preferences.entrySet()) {
+            playerPrefs.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Sets the custom color preference for a player and a specific tag.
      * Using null for a color means reverting that part (bracket or content) to the tag's default color.
      * If both colors are null, the preference entry might be removed for cleanup (optional optimization).
+     * The database row is written later by the {@link TagColorWriteBuffer}.
      *
      * @param playerUuid   The UUID of the player.
      * @param tagName      The internal name of the tag.
@@ -1421,14 +1204,12 @@ public class uTags extends JavaPlugin {
         Map<String, PlayerTagColorPreference> playerPrefs = playerColorPreferences
                 .computeIfAbsent(playerUuid, k -> new ConcurrentHashMap<>());
 
-        boolean removedInMemory = false;
         if (bracketColor == null && contentColor == null) {
             // Remove from memory if both colors are null (reset)
             playerPrefs.remove(tagName);
             if (playerPrefs.isEmpty()) {
                 playerColorPreferences.remove(playerUuid);
             }
-            removedInMemory = true;
         } else {
             // Update or create preference in memory
             PlayerTagColorPreference pref = playerPrefs
@@ -1442,130 +1223,30 @@ public class uTags extends JavaPlugin {
         if (appliedTagName != null && appliedTagName.equals(tagName)) {
             Player player = Bukkit.getPlayer(playerUuid);
             if (player != null && player.isOnline()) {
-                getLogger().info("[uTags] Player " + player.getName() + " is wearing the tag being color-modified (" + tagName + "). Updating LuckPerms prefix.");
+                debugLogger.log(DebugLogger.Category.TAGS, playerUuid, () ->
+                        player.getName() + " is wearing the tag being color-modified (" + tagName + "). Updating LuckPerms prefix.");
 
-                // Get the newly set preference (could be null if reset)
-                PlayerTagColorPreference newColorPref = playerPrefs.get(tagName);
-
-                // Perform the update asynchronously
-                CompletableFuture.runAsync(() -> {
-                    User user = luckPerms.getUserManager().getUser(playerUuid);
-                    if (user == null) {
-                        getLogger().warning("Could not load LuckPerms user for immediate tag color update: " + player.getName());
+                // Recomputed from the preference just stored; saved only if the prefix value changes
+                tagNodeManager.refreshPrefix(playerUuid).whenComplete((changed, ex) -> {
+                    if (ex != null) {
+                        getLogger().severe("Failed to save user " + player.getName() + " after immediate tag color update: " + ex.getMessage());
                         return;
                     }
-
-                    // Fetch the base display string for the tag
-                    String baseTagDisplay = getTagDisplayByName(tagName);
-                    if (baseTagDisplay == null) {
-                         getLogger().warning("Could not find base display for tag '" + tagName + "' during color update for " + player.getName());
-                         return;
-                    }
-
-                    // --- Find existing uTags prefix node and extract trailing color ---
-                    String preservedTrailingColorCode = "§f"; // Default to white (§f)
-                    Node existingPrefixNodeToRemove = null;
-
-                    for (Node node : user.data().toCollection()) {
-                        if (node instanceof PrefixNode && ((PrefixNode) node).getPriority() == TAG_PREFIX_PRIORITY) {
-                            existingPrefixNodeToRemove = node;
-                            PrefixNode prefixNode = (PrefixNode) node;
-                            String nodeKey = prefixNode.getKey();
-                            String prefixKeyPrefix = "prefix." + TAG_PREFIX_PRIORITY + ".";
-                            String existingValue = null;
-                            if (nodeKey.startsWith(prefixKeyPrefix)) {
-                                existingValue = nodeKey.substring(prefixKeyPrefix.length());
-                            } else {
-                                 getLogger().warning("[uTags] Found prefix node with correct priority, but key format unexpected: " + nodeKey);
-                            }
-
-                           if (existingValue != null && !existingValue.isEmpty()) {
-                               int lastColorIndex = existingValue.lastIndexOf(ChatColor.COLOR_CHAR);
-                               if (lastColorIndex != -1 && lastColorIndex < existingValue.length() - 1) {
-                                   char codeChar = existingValue.charAt(lastColorIndex + 1);
-                                   if ("0123456789abcdefklmnor".indexOf(Character.toLowerCase(codeChar)) != -1) {
-                                       preservedTrailingColorCode = existingValue.substring(lastColorIndex, lastColorIndex + 2);
-                                   }
-                               }
-                           }
-                            getLogger().fine("[uTags Debug] Extracted trailing color code during color update: '" + preservedTrailingColorCode.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-                            break;
-                        }
+                    if (changed) {
+                        displayNameRefresher.requestRefresh(playerUuid);
                     }
-
-                    // --- Remove the existing uTags prefix node (if found) ---
-                    if (existingPrefixNodeToRemove != null) {
-                        user.data().remove(existingPrefixNodeToRemove);
-                        getLogger().fine("[uTags] Removed existing uTags prefix node for " + player.getName() + " during color update.");
-                    }
-
-                    // --- Format tag with NEW colors and combine with preserved name color ---
-                    String colorFormattedTagDisplay = formatTagDisplayWithColor(baseTagDisplay, newColorPref); // Use the new preference
-                    String finalPrefixValue = colorFormattedTagDisplay + preservedTrailingColorCode;
-                    getLogger().info("[uTags Debug] Final combined prefix string during color update: '" + finalPrefixValue.replace(String.valueOf(ChatColor.COLOR_CHAR), "&") + "' for " + player.getName());
-
-                    // --- Add the new uTags prefix node ---
-                    user.data().add(PrefixNode.builder(finalPrefixValue, TAG_PREFIX_PRIORITY).build());
-
-                    // --- Save user data and schedule refresh ---
-                    luckPerms.getUserManager().saveUser(user)
-                        .exceptionally(ex -> {
-                            getLogger().severe("Failed to save user " + player.getName() + " after immediate tag color update: " + ex.getMessage());
-                            return null;
-                        })
-                        .thenRunAsync(() -> {
-                            getLogger().fine("LuckPerms save complete for " + player.getName() + " after tag color update. Triggering display name refresh.");
-                            // Use the existing refresh mechanism
-                            refreshBukkitDisplayName(player);
-                        }, runnable -> Bukkit.getScheduler().runTask(this, runnable)); // Ensure Bukkit tasks run on main thread
-
-                }); // End CompletableFuture.runAsync for LuckPerms update
+                });
             } else {
                  getLogger().warning("[uTags] Player " + playerUuid + " is wearing tag " + tagName + " but is offline. Skipping immediate LuckPerms update.");
             }
         } else {
-             getLogger().fine("[uTags] Player " + playerUuid + " is not wearing the tag being color-modified (" + tagName + "). Skipping immediate LuckPerms update.");
+             debugLogger.log(DebugLogger.Category.TAGS, playerUuid, () ->
+                     playerUuid + " is not wearing the tag being color-modified (" + tagName + "). Skipping immediate LuckPerms update.");
         }
 
-        // 2. Persist change to database asynchronously (This runs regardless of whether the tag was worn)
-        final boolean finalRemovedInMemory = removedInMemory; // Need final variable for lambda
-        CompletableFuture.runAsync(() -> {
-            String bracketCode = (bracketColor != null) ? "&" + bracketColor.getChar() : null;
-            String contentCode = (contentColor != null) ? "&" + contentColor.getChar() : null;
-
-            try (Connection conn = getConnection()) {
-                if (finalRemovedInMemory) {
-                    // Delete the row if colors were reset in memory
-                    String deleteSql = "DELETE FROM player_tag_color_preferences WHERE player_uuid = ? AND tag_name = ?";
-                    try (PreparedStatement ps = conn.prepareStatement(deleteSql)) {
-                        ps.setString(1, playerUuid.toString());
-                        ps.setString(2, tagName);
-                        int rowsAffected = ps.executeUpdate();
-                        if (rowsAffected > 0) {
-                            getLogger().fine("Removed tag color preference from DB for " + playerUuid + ", tag: " + tagName);
-                        }
-                    }
-                } else {
-                    // Insert or update the row
-                    String upsertSql = "INSERT INTO player_tag_color_preferences (player_uuid, tag_name, bracket_color_code, content_color_code) " +
-                                       "VALUES (?, ?, ?, ?) " +
-                                       "ON DUPLICATE KEY UPDATE bracket_color_code = VALUES(bracket_color_code), content_color_code = VALUES(content_color_code)";
-                    try (PreparedStatement ps = conn.prepareStatement(upsertSql)) {
-                        ps.setString(1, playerUuid.toString());
-                        ps.setString(2, tagName);
-                        // Handle nulls for SQL
-                        if (bracketCode != null) ps.setString(3, bracketCode); else ps.setNull(3, Types.VARCHAR);
-                        if (contentCode != null) ps.setString(4, contentCode); else ps.setNull(4, Types.VARCHAR);
-
-                        ps.executeUpdate();
-                        getLogger().fine("Saved tag color preference to DB for " + playerUuid + ", tag: " + tagName);
-                    }
-                }
-            } catch (SQLException e) {
-                getLogger().severe("Failed to save player tag color preference to database for " + playerUuid + ", tag: " + tagName + ". Error: " + e.getMessage());
-                e.printStackTrace(); // Log stack trace for debugging
-            }
-        });
+        // 2. Queue the change for the write-behind buffer (runs regardless of whether the tag was worn).
+        // Repeated clicks on the same tag collapse into one row write at the next flush.
+        tagColorWriteBuffer.enqueue(playerUuid, tagName, bracketColor, contentColor);
     }
 
     /**
@@ -1581,60 +1262,43 @@ public class uTags extends JavaPlugin {
     // --- Name Color Preference Methods ---
 
     /**
-     * Asynchronously loads all player name color preferences from the database into the cache.
-     * Should be called on plugin enable.
+     * Reads a player's name colour from the cache, or from player_preferences if they are not cached
+     * (e.g. a LuckPerms write that is still queued after they logged out). Offline lookups are not cached.
+     * Blocks on a miss, so only call it from the I/O executor.
+     *
+     * @param playerUuid The UUID of the player.
+     * @return The color code string (e.g., "&a") or null.
      */
-    private void loadAllPlayerNameColorsAsync() {
-        CompletableFuture.runAsync(() -> {
-            try (Connection conn = getConnection();
-                 PreparedStatement ps = conn.prepareStatement("SELECT player_uuid, name_color_code FROM player_preferences");
-                 ResultSet rs = ps.executeQuery()) {
-
-                int count = 0;
-                while (rs.next()) {
-                    try {
-                        UUID uuid = UUID.fromString(rs.getString("player_uuid"));
-                        String colorCode = rs.getString("name_color_code"); // Can be null
-                        playerNameColorPreferences.put(uuid, colorCode);
-                        count++;
-                    } catch (IllegalArgumentException e) {
-                        getLogger().warning("Invalid UUID found in player_preferences table: " + rs.getString("player_uuid"));
-                    }
-                }
-                getLogger().info("Loaded " + count + " player name color preferences.");
-
-            } catch (SQLException e) {
-                getLogger().severe("Failed to load player name color preferences: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+    public String loadPlayerNameColorCode(UUID playerUuid) {
+        if (nameColorCache.isLoaded(playerUuid)) {
+            return nameColorCache.get(playerUuid);
+        }
+        try {
+            return storage.loadNameColor(playerUuid);
+        } catch (SQLException e) {
+            getLogger().warning("Failed to load name color preference for " + playerUuid + ": " + e.getMessage());
+            return null;
+        }
     }
 
-
     /**
      * Asynchronously saves a player's name color preference to the database and updates the cache.
      *
      * @param playerUuid The UUID of the player.
      * @param colorCode  The color code string (e.g., "&a") or null to reset.
+     * @return false if the I/O queue refused the save; the cached colour is left unchanged then.
      */
-    public void savePlayerNameColorCode(UUID playerUuid, String colorCode) {
+    public boolean savePlayerNameColorCode(UUID playerUuid, String colorCode) {
         // Update cache immediately
         String finalColorCode = (colorCode == null || colorCode.equalsIgnoreCase("reset")) ? null : colorCode; // Treat "reset" as null
-        if (finalColorCode == null) {
-            playerNameColorPreferences.remove(playerUuid);
-        } else {
-            playerNameColorPreferences.put(playerUuid, finalColorCode);
-        }
+        boolean wasLoaded = nameColorCache.isLoaded(playerUuid);
+        String previousColorCode = nameColorCache.get(playerUuid);
+        nameColorCache.put(playerUuid, finalColorCode);
 
         // Save to DB asynchronously and then update LuckPerms/display name
-        CompletableFuture.runAsync(() -> {
-            String sql = "REPLACE INTO player_preferences (player_uuid, name_color_code) VALUES (?, ?)";
-            try (Connection conn = getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                ps.setString(1, playerUuid.toString());
-                ps.setString(2, finalColorCode); // Use finalColorCode (handles null)
-                ps.executeUpdate();
+        CompletableFuture<Void> submitted = ioExecutor.runAsync(() -> {
+            try {
+                storage.saveNameColor(playerUuid, finalColorCode); // Null clears the preference
 
                 // DB save successful. Now schedule the display name update on the main thread.
                 // updatePlayerDisplayName will handle applying the name color via the suffix node.
@@ -1654,6 +1318,17 @@ public class uTags extends JavaPlugin {
                 // Consider reverting cache change or marking as dirty? For now, log the error.
             }
         });
+        if (submitted.isCompletedExceptionally()) {
+            // Refused by a full I/O queue, so nothing will be written; keep the cache in line with the database
+            if (wasLoaded) {
+                nameColorCache.put(playerUuid, previousColorCode);
+            } else {
+                nameColorCache.remove(playerUuid);
+            }
+            getLogger().warning("Could not save the name color for " + playerUuid + ": the I/O queue is full.");
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -1663,7 +1338,7 @@ public class uTags extends JavaPlugin {
      * @return The ChatColor preference, or ChatColor.WHITE if not set or invalid.
      */
     public ChatColor getPlayerNameColor(UUID playerUuid) {
-        String colorCode = playerNameColorPreferences.get(playerUuid);
+        String colorCode = getPlayerNameColorCode(playerUuid);
 
         if (colorCode == null || colorCode.length() != 2 || colorCode.charAt(0) != '&') {
             return ChatColor.WHITE; // Default if not set or invalid format
@@ -1674,13 +1349,10 @@ public class uTags extends JavaPlugin {
     }
 
     /**
-     * Gets the internal map storing player name color preferences.
-     * Primarily intended for testing or specific internal uses.
-     *
-     * @return The map of player UUIDs to color codes.
+     * @return The cache holding the name colours of online and recently departed players.
      */
-    public Map<UUID, String> getPlayerNameColorPreferencesMap() {
-        return playerNameColorPreferences;
+    NameColorCache getNameColorCache() {
+        return nameColorCache;
     }
 
     // Cleaned up stray brace and comment
@@ -1695,7 +1367,40 @@ public class uTags extends JavaPlugin {
      * @return The color code string (e.g., "&a") or null.
      */
     public String getPlayerNameColorCode(UUID playerUuid) {
-        return playerNameColorPreferences.get(playerUuid); // Returns null if not found, which is desired
+        return nameColorCache.get(playerUuid); // Null means "use the default" (or not loaded)
+    }
+
+    /**
+     * Updates the cached name color code for a player without writing to the database.
+     * Used when a freshly loaded player profile arrives. The entry stays until {@link #expirePlayerNameColorCode}.
+     *
+     * @param playerUuid The UUID of the player.
+     * @param colorCode  The stored color code, or null for the default color.
+     */
+    public void cachePlayerNameColorCode(UUID playerUuid, String colorCode) {
+        nameColorCache.put(playerUuid, colorCode);
+    }
+
+    /**
+     * Lets a player's cached name colour go after {@code preferences.name-color-retain-seconds};
+     * called on quit and on denied logins. Rejoining before then keeps the entry.
+     */
+    public void expirePlayerNameColorCode(UUID playerUuid) {
+        nameColorCache.expire(playerUuid, nameColorExpiryFromNow());
+    }
+
+    /**
+     * Caches a name colour loaded at pre-login without pinning it: it expires like a quit player's
+     * entry unless the join pins it with {@link #cachePlayerNameColorCode}, so clients that never
+     * finish logging in do not stay cached.
+     */
+    public void preloadPlayerNameColorCode(UUID playerUuid, String colorCode) {
+        nameColorCache.putUnpinned(playerUuid, colorCode, nameColorExpiryFromNow());
+    }
+
+    private long nameColorExpiryFromNow() {
+        long retainMillis = Math.max(0L, getConfig().getLong("preferences.name-color-retain-seconds", 300L)) * 1000L;
+        return System.currentTimeMillis() + retainMillis;
     }
 
 
@@ -1727,286 +1432,40 @@ public class uTags extends JavaPlugin {
      * @param player The player whose display name should be updated.
      */
     public void updatePlayerDisplayName(Player player) {
-        // getLogger().info("[uTags Debug] updatePlayerDisplayName called for " + player.getName()); // Optional: Keep if needed
         if (player == null || !player.isOnline()) {
             return;
         }
 
         UUID playerUuid = player.getUniqueId();
-        String baseName = player.getName(); // Keep base name for potential future use
-
-        // Get the intended name color code from cache FIRST
-        String intendedNameColorCode = getPlayerNameColorCode(playerUuid); // e.g., "&a", or null for default
-        getLogger().info("[uTags Debug] Intended name color code for " + player.getName() + ": '" + (intendedNameColorCode != null ? intendedNameColorCode : "none") + "'"); // Requirement 6.3
+        debugLogger.log(DebugLogger.Category.DISPLAY, playerUuid, () -> {
+            String code = getPlayerNameColorCode(playerUuid);
+            return "Intended name color code for " + player.getName() + ": '" + (code != null ? code : "none") + "'";
+        });
 
-        // Load the LuckPerms user asynchronously for modification
-        luckPerms.getUserManager().loadUser(playerUuid).thenAcceptAsync(user -> {
-            if (user == null) {
-                getLogger().warning("Could not load LuckPerms user for display name update: " + player.getName());
+        // Rebuilds the uTags prefix from the worn tag, its colour preference and the name colour.
+        // Players without a uTags prefix are left alone, as before.
+        tagNodeManager.refreshPrefix(playerUuid).whenComplete((changed, ex) -> {
+            if (ex != null) {
+                getLogger().severe("Error during LuckPerms operations in updatePlayerDisplayName for " + player.getName() + ": " + ex.getMessage());
+                // Attempt to reset display name on error
+                Bukkit.getScheduler().runTask(this, () -> player.setDisplayName(player.getName()));
                 return;
             }
-
-            // --- Prefix Handling Logic for Name Color ---
-            PrefixNode currentTagPrefixNode = null;
-            String currentPrefixValue = ""; // Default to empty string if no prefix node found
-
-            // Find the existing prefix node managed by uTags (using TAG_PREFIX_PRIORITY)
-            for (Node node : user.getNodes(NodeType.PREFIX)) {
-                if (node instanceof PrefixNode) {
-                    PrefixNode prefixNode = (PrefixNode) node;
-                    if (prefixNode.getPriority() == TAG_PREFIX_PRIORITY) {
-                        currentTagPrefixNode = prefixNode;
-                        currentPrefixValue = prefixNode.getMetaValue();
-                        break; // Found the relevant prefix node
-                    }
-                }
-            }
-            // Log retrieved prefix *before* checking if it's empty (Requirement 1a / 2)
-            getLogger().info("[uTags Debug] Retrieved existing uTags prefix node value for " + player.getName() + ": '" + currentPrefixValue + "'");
-
-            // Requirement 1a: Check if the retrieved prefix is null or empty. Stop if it is.
-            // Note: currentPrefixValue defaults to "" if no node is found, so we check isEmpty().
-            // If a node *must* exist for the /name command to work, this logic might need adjustment
-            // based on whether an empty prefix node is valid or implies an error state.
-            // Assuming for now that an empty/non-existent prefix means we cannot proceed with name color update.
-            if (currentPrefixValue.isEmpty()) {
-                 getLogger().severe("[uTags Error] Cannot update name color for " + player.getName() + ": Existing uTags prefix node (priority " + TAG_PREFIX_PRIORITY + ") is missing or empty.");
-                 // Optionally, attempt to reset the display name if this state is unexpected
-                 // Bukkit.getScheduler().runTask(this, () -> refreshBukkitDisplayName(player));
-                 return; // Stop processing for this user
-            }
-
-
-            // --- Extract Base Tag Part --- Requirement 1b / 2
-            String baseTagPart = null;
-            String appliedTagName = playerAppliedPrefixTagName.get(playerUuid); // Check if we know which tag is applied
-
-            if (appliedTagName != null) {
-                Tag appliedTag = getTagByName(appliedTagName); // Attempt to fetch the Tag object
-                if (appliedTag != null) {
-                    // Preferred method: Use the original display string of the applied tag
-                    baseTagPart = appliedTag.getDisplay();
-                    getLogger().info("[uTags Debug] Extracted base tag part for " + player.getName() + " from applied tag '" + appliedTagName + "': '" + baseTagPart + "'");
-                } else {
-                    getLogger().warning("[uTags Debug] Could not find tag definition for applied tag name '" + appliedTagName + "' for player " + player.getName() + ". Falling back to parsing current prefix.");
-                }
-            } else {
-                getLogger().warning("[uTags Debug] No applied tag name found in map for player " + player.getName() + ". Falling back to parsing current prefix.");
-            }
-
-            // Fallback: If we couldn't get the base tag from the map/DB, parse the current prefix value
-            if (baseTagPart == null) {
-                 // Find the last color code (& followed by 0-9a-fA-Fk-oK-OrR)
-                 int lastColorCodeIndex = -1;
-                 for (int i = currentPrefixValue.length() - 2; i >= 0; i--) {
-                     if (currentPrefixValue.charAt(i) == '&' && "0123456789abcdefABCDEFkKlLmMnNoOrR".indexOf(currentPrefixValue.charAt(i + 1)) != -1) {
-                         lastColorCodeIndex = i;
-                         break;
-                     }
-                 }
-
-                 if (lastColorCodeIndex != -1) {
-                     // Base part is everything before the last color code
-                     baseTagPart = currentPrefixValue.substring(0, lastColorCodeIndex);
-                     getLogger().info("[uTags Debug] Extracted base tag part for " + player.getName() + " using fallback (before last '&'): '" + baseTagPart + "'");
-                 } else {
-                     // If no color code found at the end, assume the whole prefix is the base tag part
-                     // This might happen if the prefix doesn't end with a name color, which could be an issue itself.
-                     baseTagPart = currentPrefixValue;
-                     getLogger().warning("[uTags Debug] Extracted base tag part for " + player.getName() + " using fallback (no trailing color code found, using full prefix): '" + baseTagPart + "'");
-                 }
-            }
-
-            // --- Construct New Prefix Value --- Requirement 3
-            String newPrefixValue = baseTagPart + (intendedNameColorCode != null ? intendedNameColorCode : ""); // Append color code or nothing if null
-            getLogger().info("[uTags Debug] Final combined string being set for " + player.getName() + ": '" + newPrefixValue + "'"); // Requirement 1c / 2
-
-            // Determine if an update to the prefix node is needed
-            boolean needsUpdate = false;
-            if (currentTagPrefixNode == null && !newPrefixValue.isEmpty()) {
-                 needsUpdate = true; // Adding a new prefix node
-                 getLogger().fine("Needs update: Adding new prefix node for " + player.getName());
-            } else if (currentTagPrefixNode != null && newPrefixValue.isEmpty()) {
-                 needsUpdate = true; // Removing the existing prefix node (setting empty prefix)
-                 getLogger().fine("Needs update: Removing prefix node for " + player.getName());
-            } else if (currentTagPrefixNode != null && !currentPrefixValue.equals(newPrefixValue)) {
-                 needsUpdate = true; // Changing the prefix value
-                 getLogger().fine("Needs update: Changing prefix node for " + player.getName() + " from '" + currentPrefixValue + "' to '" + newPrefixValue + "'");
-            } else {
-                 getLogger().fine("No prefix update needed for " + player.getName() + ". Current: '" + currentPrefixValue + "', New: '" + newPrefixValue + "'");
-            }
-
-
-            // Perform prefix node modifications ONLY if needsUpdate is true
-            if (needsUpdate) {
-                // Remove the old uTags prefix node if it existed --- Requirement 4
-                if (currentTagPrefixNode != null) {
-                    user.data().remove(currentTagPrefixNode);
-                    getLogger().info("[uTags Debug] Removed existing uTags prefix node for " + player.getName()); // Requirement 1d log refinement
-                }
-                // Add the new prefix node if the combined value is not empty --- Requirement 5
-                if (!newPrefixValue.isEmpty()) {
-                    PrefixNode newPrefixNode = PrefixNode.builder()
-                            .prefix(newPrefixValue)
-                            .priority(TAG_PREFIX_PRIORITY) // Use the same priority as tags
-                            .build();
-                    user.data().add(newPrefixNode);
-                    getLogger().info("[uTags Debug] Added new uTags prefix node for " + player.getName() + " with value: '" + newPrefixValue + "'"); // Requirement 1e log refinement
-                }
-
-                // Save the user data ONLY if prefix changed
-                luckPerms.getUserManager().saveUser(user).thenRunAsync(() -> {
-                    getLogger().fine("LuckPerms saveUser complete for " + player.getName() + " after prefix update. Reloading user and updating display name directly.");
-
-                    // Load the user again to get the most up-to-date data after save
-                    luckPerms.getUserManager().loadUser(player.getUniqueId()).thenAcceptAsync(userToRecalc -> {
-                        getLogger().fine("Invalidating cached data for " + player.getName() + " after prefix update.");
-                        // It's crucial to invalidate the cache so the subsequent getMetaData() call reflects the changes
-                        userToRecalc.getCachedData().invalidate();
-
-                        // Directly update the display name on the main thread using the recalculated data
-                        Bukkit.getScheduler().runTask(this, () -> {
-                            try {
-                                // Get the calculated prefix and suffix from the reloaded user's metadata
-                                String prefix = userToRecalc.getCachedData().getMetaData().getPrefix(); // Get current prefix
-                                String suffix = userToRecalc.getCachedData().getMetaData().getSuffix(); // Suffix remains unchanged by this logic
-
-                                // Format the display name
-                                String currentPlayerName = player.getName(); // Renamed variable
-
-                                // The prefix now contains the tag AND the name color. The suffix is separate.
-                                String formattedName = (prefix != null ? ChatColor.translateAlternateColorCodes('&', prefix) : "") +
-                                                       currentPlayerName + // Player name itself doesn't need extra color here
-                                                       (suffix != null ? ChatColor.translateAlternateColorCodes('&', suffix) : "");
-
-                                getLogger().fine("Directly setting display name for " + player.getName() + " after prefix update to: " + formattedName);
-                                player.setDisplayName(formattedName);
-                                player.setPlayerListName(formattedName); // Update list name too
-                                getLogger().info("[uTags Debug] Display name update triggered for " + player.getName() + " after saveUser and refresh."); // Requirement 1f / 2
-
-                            } catch (Exception e) {
-                                getLogger().severe("Error directly updating display name for " + player.getName() + " after prefix update: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        });
-
-                    }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(this, runnable)); // Run user loading/cache invalidation async
-
-                }, runnable -> Bukkit.getScheduler().runTask(this, runnable)); // Ensure Bukkit tasks run on main thread
-
-            } else {
-                 // Prefix didn't change. Do nothing here.
-                 getLogger().fine("No LuckPerms prefix update needed for " + player.getName() + ". No save/refresh scheduled from updatePlayerDisplayName.");
+            if (changed) {
+                displayNameRefresher.requestRefresh(playerUuid);
             }
-
-        }).exceptionally(ex -> {
-            getLogger().severe("Error during LuckPerms operations in updatePlayerDisplayName for " + player.getName() + ": " + ex.getMessage());
-            ex.printStackTrace();
-            // Attempt to reset display name on error
-            Bukkit.getScheduler().runTask(this, () -> player.setDisplayName(player.getName()));
-            return null;
         });
     }
 
     /**
      * Refreshes the player's Bukkit display name based on current LuckPerms data.
-     * Should be called on the main server thread.
+     * May be called from any thread; see {@link DisplayNameRefresher}.
      */
     public void refreshBukkitDisplayName(Player player) {
-        // This method is now just a trigger, called via Bukkit Scheduler on the main thread.
-        // The actual work, including fresh data loading, happens in processDisplayNameRefresh.
         if (player == null || !player.isOnline()) {
             return;
         }
-        // Directly call the processing method. It will handle async loading internally.
-        processDisplayNameRefresh(player);
-    }
-
-    // Helper method to process the refresh logic after user is loaded
-    // Helper method to process the refresh logic, now loading data freshly
-    private void processDisplayNameRefresh(Player player) {
-        if (player == null || !player.isOnline()) {
-            getLogger().warning("[uTags Debug] Player is null or offline before starting processDisplayNameRefresh.");
-            return; // Player logged out before task could even start
-        }
-
-        // Force a fresh load of user data directly from LuckPerms storage
-        luckPerms.getUserManager().loadUser(player.getUniqueId()).thenAcceptAsync(loadedUser -> {
-            getLogger().info("[uTags Debug] Inside loadUser callback for " + player.getName());
-            // --- Start of async block ---
-            // Ensure player is still valid *after* the async load completes
-            if (loadedUser == null || player == null || !player.isOnline()) {
-                getLogger().warning("[uTags Debug] User data loaded, but player " + (player != null ? player.getName() : "UNKNOWN") + " is now null or offline.");
-                return;
-            }
-
-            // Fetch the prefix AND suffix from the *freshly loaded* user data's metadata
-            net.luckperms.api.cacheddata.CachedMetaData metaData = loadedUser.getCachedData().getMetaData();
-            String rawPrefixMeta = metaData.getPrefix();
-            String suffix = metaData.getSuffix();
-
-            getLogger().info("[uTags Debug] Freshly loaded meta for " + player.getName() + ": Prefix='" + rawPrefixMeta + "', Suffix='" + suffix + "'");
-            // Ensure nulls become empty strings
-            if (rawPrefixMeta == null) rawPrefixMeta = "";
-            if (suffix == null) suffix = "";
-
-            // Apply formatting only if the prefix isn't empty
-            // Directly use the raw prefix from the fresh metadata
-            String prefix = rawPrefixMeta.isEmpty() ? "" : rawPrefixMeta + " "; // Add space only if prefix exists
-
-            // Construct the final display name: prefix + name + suffix + reset
-            String finalDisplayName = prefix + player.getName() + suffix + ChatColor.RESET; // Use ChatColor.RESET
-
-            getLogger().info("[uTags Debug] Processing refresh for " + player.getName() +
-                    ". Freshly Loaded Raw Prefix Meta: '" + rawPrefixMeta +
-                    "', Prefix: '" + prefix + // Changed variable name
-                    "', Freshly Loaded Suffix: '" + suffix +
-                    "', Final Name: '" + finalDisplayName + "'");
-
-            // Set the display name on the Bukkit player object - MUST run on main thread
-            final String nameToSet = finalDisplayName; // Final variable for lambda
-            getLogger().info("[uTags Debug] Scheduling final display name set for " + player.getName());
-            Bukkit.getScheduler().runTask(this, () -> {
-                try {
-                    // Double-check player validity right before setting
-                    if (player != null && player.isOnline()) {
-                        // --- Requested Debug Logging ---
-                        // Log the exact values *before* applying them.
-                        // 'nameToSet' contains the final calculated display name string.
-                        // We can re-log the components used to build it from the outer scope if needed, but logging the final string is most direct.
-                        getLogger().info(String.format("[uTags Debug] Applying Display Name (Main Thread): Player=%s, Final Calculated Name='%s'",
-                                player.getName(), nameToSet));
-                        // --- End Debug Logging ---
-
-                        // Set the display name and player list name using Bukkit API
-                        player.setDisplayName(nameToSet);
-                        player.setPlayerListName(nameToSet); // Update tab list name as well
-
-                        getLogger().info("[uTags Debug] Successfully set display name for " + player.getName() + " (main thread) to: " + nameToSet);
-                    } else {
-                         getLogger().warning("[uTags Debug] Player " + (player != null ? player.getName() : "UNKNOWN") + " became invalid just before setting display name on main thread.");
-                    }
-                } catch (Exception e) {
-                    getLogger().severe("Error setting display name for " + player.getName() + " on main thread: " + e.getMessage());
-                     getLogger().severe(String.format("Failed name: '%s'", nameToSet)); // Log the name that caused the error
-                    e.printStackTrace();
-                }
-            });
-            // --- End of async block ---
-
-        }, runnable -> Bukkit.getScheduler().runTask(this, runnable)) // Ensure Bukkit tasks run on main thread for the async callback itself
-        .exceptionally(ex -> {
-             getLogger().severe("Error during async user load in processDisplayNameRefresh for " + player.getName() + ": " + ex.getMessage());
-             ex.printStackTrace();
-             // Attempt to reset display name on main thread in case of error during load
-             Bukkit.getScheduler().runTask(this, () -> {
-                 if (player != null && player.isOnline()) {
-                    player.setDisplayName(player.getName());
-                    player.setPlayerListName(player.getName());
-                 }
-             });
-             return null;
-         });
+        displayNameRefresher.requestRefresh(player.getUniqueId());
     }
 
 }